@@ -1,26 +1,203 @@
+import data.NURBSDocument;
 import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SessionLog;
 import gui.ControlPanel;
 import gui.NURBSPanel;
+import gui.ViewSettingsPanel;
+import gui.events.ActiveCurveChangedEvent;
+import gui.events.EventSystem;
 
 import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class NURBSModelerGUI {
+    // Jede Kurve schreibt ihr Journal in session/curve-<n>; beim Start wird die letzte Sitzung wiederhergestellt
+    private static final Path SESSION = Path.of(System.getProperty("user.home"), ".nurbsmodeler", "session");
+    private static final List<SessionLog> sessionLogs = new ArrayList<>();
+    // Sperrdatei im Sitzungsverzeichnis; nur der Prozess, der sie sperrt, liest und schreibt die Sitzung
+    private static final String LOCK = "session.lock";
+    // Offen für die ganze Laufzeit, damit die Sperre bestehen bleibt
+    private static FileChannel lockChannel;
+    // Falsch, wenn ein anderer Prozess die Sitzung benutzt oder eine nicht wiederhergestellte Sitzung
+    // nicht beiseitegelegt werden konnte
+    private static boolean journaling = true;
+
     public static void main(String[] args) {
+        Runtime.getRuntime().addShutdownHook(new Thread(NURBSModelerGUI::closeSessionLogs));
         SwingUtilities.invokeLater(() -> {
-            NURBSModel model = new NURBSModel();
-            NURBSPanel drawingPanel = new NURBSPanel(model);
-            ControlPanel controlPanel = new ControlPanel(model, drawingPanel);
+            NURBSDocument document = new NURBSDocument();
+            for (NURBSModel curve : recoverSession()) {
+                document.addCurve(curve);
+            }
+            if (document.getCurveCount() == 0) {
+                document.addCurve(new NURBSModel());
+            }
+            for (int i = 0; i < document.getCurveCount(); i++) {
+                startSessionLog(document.getCurve(i), i);
+            }
+            NURBSModel model = document.getCurve(0);
+            NURBSPanel drawingPanel = new NURBSPanel(document, model);
+
+            // Jede Kurve bekommt beim ersten Aktivieren ihr eigenes ControlPanel (mit eigener Undo-Historie);
+            // nur das angezeigte ist beim EventSystem angemeldet
+            Map<NURBSModel, ControlPanel> controlPanels = new IdentityHashMap<>();
+            controlPanels.put(model, new ControlPanel(model, drawingPanel));
 
-            JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, controlPanel, drawingPanel);
+            JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, controlPanels.get(model), drawingPanel);
             splitPane.setDividerLocation(300);
             splitPane.setEnabled(false);
 
+            EventSystem.getInstance().subscribe(ActiveCurveChangedEvent.class, e -> {
+                NURBSModel curve = e.getCurve();
+                splitPane.setLeftComponent(controlPanels.computeIfAbsent(curve, c -> new ControlPanel(c, drawingPanel)));
+                splitPane.setDividerLocation(300);
+            });
+
+            JButton newCurveButton = new JButton("New Curve");
+            newCurveButton.addActionListener(e -> {
+                // Neue Kurve leicht versetzt zur letzten, damit sie sichtbar getrennt ist
+                NURBSModel curve = new NURBSModel();
+                double offset = 0.25 * document.getCurveCount();
+                NURBSSnapshot s = curve.snapshot();
+                for (int i = 0; i < s.size(); i++) {
+                    curve.setControlPoint(i, s.getX(i) + offset, s.getY(i) - offset, s.getZ(i), s.getWeight(i));
+                }
+                startSessionLog(curve, document.addCurve(curve));
+                EventSystem.getInstance().dispatch(new ActiveCurveChangedEvent(newCurveButton, curve));
+            });
+            JToolBar toolBar = new JToolBar();
+            toolBar.setFloatable(false);
+            toolBar.add(newCurveButton);
+            toolBar.addSeparator();
+            toolBar.add(new ViewSettingsPanel(drawingPanel));
+
             JFrame frame = new JFrame("NURBS Modeler");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.add(splitPane);
+            frame.add(toolBar, BorderLayout.NORTH);
+            frame.add(splitPane, BorderLayout.CENTER);
             frame.setSize(1080, 800);
             frame.setVisible(true);
         });
     }
-}
 
+    // Stellt curve-0, curve-1, ... wieder her. Bleibt etwas im Sitzungsverzeichnis übrig, das nicht
+    // wiederhergestellt wurde, wird das ganze Verzeichnis beiseitegelegt, bevor neue Journale es überschreiben.
+    private static List<NURBSModel> recoverSession() {
+        List<NURBSModel> curves = new ArrayList<>();
+        if (!lockSession()) {
+            journaling = false;
+            return curves;
+        }
+        boolean complete = true;
+        try {
+            for (int i = 0; Files.isDirectory(SESSION.resolve("curve-" + i)); i++) {
+                NURBSModel curve = SessionLog.recover(SESSION.resolve("curve-" + i));
+                if (curve == null) {
+                    break;
+                }
+                curves.add(curve);
+            }
+            if (Files.isDirectory(SESSION)) {
+                try (Stream<Path> entries = Files.list(SESSION)) {
+                    int recovered = curves.size();
+                    complete = entries.allMatch(entry -> isRecoveredCurve(entry, recovered));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not recover the last session: " + e);
+            curves.clear();
+            complete = false;
+        }
+        if (!complete) {
+            Path backup = SESSION.resolveSibling("session-" + System.currentTimeMillis());
+            try {
+                Files.move(SESSION, backup);
+                System.err.println("Unrecovered session data moved to " + backup);
+            } catch (IOException e) {
+                System.err.println("Could not move the last session aside, session logging disabled: " + e);
+                journaling = false;
+                return curves;
+            }
+            // Die gesperrte Datei ist mit verschoben worden; das neue Verzeichnis wird neu gesperrt
+            FileChannel moved = lockChannel;
+            if (!lockSession()) {
+                journaling = false;
+            }
+            try {
+                moved.close();
+            } catch (IOException e) {
+                System.err.println("Could not release the lock of the old session: " + e);
+            }
+        }
+        return curves;
+    }
+
+    // Sperrt das Sitzungsverzeichnis exklusiv für diesen Prozess. Hat ein anderer Modeler es schon
+    // gesperrt, ist das Ergebnis false; dann darf diese Instanz die Sitzung weder wiederherstellen noch schreiben.
+    private static boolean lockSession() {
+        try {
+            Files.createDirectories(SESSION);
+            FileChannel channel = FileChannel.open(SESSION.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                channel.close();
+                System.err.println("The session is in use by another NURBS Modeler, session logging disabled");
+                return false;
+            }
+            lockChannel = channel;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not lock the session, session logging disabled: " + e);
+            return false;
+        }
+    }
+
+    private static boolean isRecoveredCurve(Path entry, int recovered) {
+        String name = entry.getFileName().toString();
+        if (name.equals(LOCK)) {
+            return true;
+        }
+        for (int i = 0; i < recovered; i++) {
+            if (name.equals("curve-" + i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void startSessionLog(NURBSModel curve, int index) {
+        if (!journaling) {
+            return;
+        }
+        try {
+            SessionLog log = SessionLog.start(curve, SESSION.resolve("curve-" + index));
+            synchronized (sessionLogs) {
+                sessionLogs.add(log);
+            }
+        } catch (IOException e) {
+            System.err.println("Session log for curve " + index + " not available: " + e);
+        }
+    }
+
+    private static void closeSessionLogs() {
+        synchronized (sessionLogs) {
+            for (SessionLog log : sessionLogs) {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close session log: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import data.NURBSModel;
+import gui.ThumbnailService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Rendert Vorschaubilder ohne Fenster.
+// Aufruf: NURBSThumbnailRenderer [Ausgabeordner] [Anzahl] [Bildgröße] [Threads] [double|float]
+// Mangels Dateiformat für Kurven werden zufällige Kurven erzeugt; ThumbnailService nimmt beliebige Modelle.
+public class NURBSThumbnailRenderer {
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Path directory = Path.of(args.length > 0 ? args[0] : "thumbnails");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        boolean singlePrecision = args.length > 4 && args[4].equals("float");
+
+        List<NURBSModel> models = new ArrayList<>(count);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            models.add(randomCurve(random));
+        }
+
+        Files.createDirectories(directory);
+        try (ThumbnailService service = new ThumbnailService(size, size, threads, 32)) {
+            service.setSinglePrecision(singlePrecision);
+            double imagesPerSecond = service.render(models, ThumbnailService.directory(directory));
+            System.out.printf("%d images (%dx%d, %d threads, %s) in %s: %.1f images/s%n",
+                    count, size, size, threads, singlePrecision ? "float" : "double", directory.toAbsolutePath(), imagesPerSecond);
+        }
+    }
+
+    private static NURBSModel randomCurve(Random random) {
+        int degree = 2 + random.nextInt(2);
+        int points = degree + 2 + random.nextInt(12);
+        double[] xyzw = new double[4 * points];
+        double x = 0, y = 0;
+        for (int i = 0; i < points; i++) {
+            x += 0.2 + random.nextDouble();
+            y += random.nextGaussian();
+            xyzw[4 * i] = x;
+            xyzw[4 * i + 1] = y;
+            xyzw[4 * i + 3] = 0.5 + random.nextDouble();
+        }
+        // Gleichmäßiger, an den Enden geklemmter Knotenvektor
+        double[] knots = new double[points + degree + 1];
+        int inner = points - degree;
+        for (int i = 0; i < knots.length; i++) {
+            knots[i] = Math.max(0, Math.min(inner, i - degree)) / (double) inner;
+        }
+        return new NURBSModel(degree, knots, xyzw, points);
+    }
+}
@@ -0,0 +1,226 @@
+package data;
+
+/**
+ * Arc-length parameterization of a {@link NURBSModel}.
+ * <p>
+ * The length of every knot span is the integral of |C'(u)| over the span, computed with adaptive
+ * 8-point Gauss–Legendre quadrature. Edits only recompute the spans they touch; the running totals
+ * are refreshed from the first changed span on. {@link #parameterAt(double)} maps a distance along
+ * the curve back to a parameter by a binary search over the totals followed by a safeguarded
+ * Newton iteration inside the span.
+ * <p>
+ * Queries refer to the snapshot returned by the last {@link #update()}.
+ */
+public class ArcLengthTable extends SpanCache {
+    static final double[] GAUSS_NODES = {
+            -0.9602898564975363, -0.7966664774136267, -0.5255324099163290, -0.1834346424956498,
+            0.1834346424956498, 0.5255324099163290, 0.7966664774136267, 0.9602898564975363};
+    static final double[] GAUSS_WEIGHTS = {
+            0.1012285362903763, 0.2223810344533745, 0.3137066458778873, 0.3626837833783620,
+            0.3626837833783620, 0.3137066458778873, 0.2223810344533745, 0.1012285362903763};
+    private static final int MAX_DEPTH = 12;
+    private static final double RELATIVE_TOLERANCE = 1e-10;
+    private static final int MAX_NEWTON_STEPS = 30;
+
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final double[] derivative = new double[6];
+    private NURBSSnapshot snapshot;
+    private int degree;
+    private int spanCount;
+    // spanLengths[k - p] is the length of span k; cumulative[k - p] the length of all spans before k
+    private double[] spanLengths = new double[0];
+    private double[] cumulative = new double[1];
+    private int firstChanged = Integer.MAX_VALUE;
+
+    public ArcLengthTable(NURBSModel model) {
+        super(model);
+    }
+
+    /**
+     * @return the length of the whole curve
+     */
+    public synchronized double getLength() {
+        return cumulative[spanCount];
+    }
+
+    /**
+     * @return the length of span k, zero for empty spans
+     */
+    public synchronized double getSpanLength(int k) {
+        return spanLengths[k - degree];
+    }
+
+    /**
+     * @return the length of the curve from its start to the beginning of span k
+     */
+    public synchronized double getSpanStart(int k) {
+        return cumulative[k - degree];
+    }
+
+    /**
+     * @return the length of the curve from its start to the parameter u
+     */
+    public synchronized double lengthAt(double u) {
+        if (spanCount == 0) {
+            return 0.0;
+        }
+        int k = SpanLocator.findSpan(snapshot.knots(), degree, u);
+        return cumulative[k - degree] + integrate(k, snapshot.getKnot(k), u);
+    }
+
+    /**
+     * @return the parameter of the point at distance s from the start, clamped to the curve
+     */
+    public synchronized double parameterAt(double s) {
+        if (spanCount == 0) {
+            return 0.0;
+        }
+        s = Math.max(0.0, Math.min(cumulative[spanCount], s));
+        // Letzte Spanne mit cumulative[i] <= s, leere Spannen werden übersprungen
+        int low = 0, high = spanCount;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= s) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        while (low > 0 && spanLengths[low] == 0.0) {
+            low--;
+        }
+        int k = low + degree;
+        return solve(k, s - cumulative[low], snapshot.getKnot(k), 0.0);
+    }
+
+    /**
+     * Writes segments + 1 parameters of span k into out, spaced at equal arc length within the span.
+     * The first and last value are the span's knots.
+     */
+    public synchronized void spanParameters(int k, int segments, double[] out) {
+        double u0 = snapshot.getKnot(k), u1 = snapshot.getKnot(k + 1);
+        double length = spanLengths[k - degree];
+        out[0] = u0;
+        double u = u0, done = 0.0;
+        for (int i = 1; i < segments; i++) {
+            // Von der vorigen Lösung weiter, damit jedes Integral nur ein kurzes Stück abdeckt
+            double target = length * i / segments;
+            u = solve(k, target, u, done);
+            out[i] = u;
+            done = target;
+        }
+        out[segments] = u1;
+    }
+
+    /**
+     * Evaluates the point at distance s from the start.
+     * @param out receives x, y, z at indices 0..2
+     */
+    public synchronized void pointAt(double s, double[] out) {
+        double u = parameterAt(s);
+        evaluator.point(snapshot, SpanLocator.findSpan(snapshot.knots(), degree, u), u, out);
+    }
+
+    @Override
+    protected void reset(NURBSSnapshot s) {
+        degree = s.getDegree();
+        spanCount = s.size() - degree;
+        // Vorhandener Speicher reicht, wenn die Kurve nicht mehr Spannen hat; cumulative[0] bleibt 0
+        if (spanLengths.length < spanCount) {
+            spanLengths = new double[spanCount];
+            cumulative = new double[spanCount + 1];
+        }
+        firstChanged = 0;
+    }
+
+    @Override
+    protected void computeSpan(NURBSSnapshot s, int k) {
+        snapshot = s;
+        double u0 = s.getKnot(k), u1 = s.getKnot(k + 1);
+        spanLengths[k - degree] = u0 == u1 ? 0.0 : integrate(k, u0, u1);
+        firstChanged = Math.min(firstChanged, k - degree);
+    }
+
+    @Override
+    protected void finishUpdate(NURBSSnapshot s) {
+        snapshot = s;
+        for (int i = firstChanged; i < spanCount; i++) {
+            cumulative[i + 1] = cumulative[i] + spanLengths[i];
+        }
+        firstChanged = Integer.MAX_VALUE;
+    }
+
+    // Finds u in span k with length(U_k, u) == target, starting from a known point
+    // uStart with length(U_k, uStart) == sStart <= target.
+    private double solve(int k, double target, double uStart, double sStart) {
+        double lo = uStart, hi = snapshot.getKnot(k + 1);
+        double spanLength = spanLengths[k - degree];
+        if (spanLength == 0.0 || target <= sStart) {
+            return uStart;
+        }
+        if (target >= spanLength) {
+            return hi;
+        }
+        double tolerance = RELATIVE_TOLERANCE * Math.max(spanLength, Double.MIN_NORMAL);
+        // Startwert aus linearer Interpolation, die Integrale laufen jeweils vom letzten Iterierten aus
+        double u = lo + (hi - lo) * (target - sStart) / (spanLength - sStart);
+        u = Math.max(lo, Math.min(hi, u));
+        double uKnown = uStart, sKnown = sStart;
+        for (int step = 0; step < MAX_NEWTON_STEPS; step++) {
+            double s = sKnown + integrate(k, uKnown, u);
+            uKnown = u;
+            sKnown = s;
+            double error = s - target;
+            if (Math.abs(error) <= tolerance) {
+                return u;
+            }
+            if (error > 0) {
+                hi = u;
+            } else {
+                lo = u;
+            }
+            double speed = speed(k, u);
+            double next = speed > 0 ? u - error / speed : Double.NaN;
+            // Newton-Schritt nur innerhalb der Klammer, sonst Bisektion
+            if (!(next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+            }
+            u = next;
+        }
+        return u;
+    }
+
+    // Integral von |C'| über [a, b] innerhalb der Spanne k; b < a ergibt einen negativen Wert.
+    private double integrate(int k, double a, double b) {
+        if (a == b) {
+            return 0.0;
+        }
+        double whole = gauss(k, a, b);
+        return adapt(k, a, b, whole, MAX_DEPTH);
+    }
+
+    private double adapt(int k, double a, double b, double whole, int depth) {
+        double m = 0.5 * (a + b);
+        double left = gauss(k, a, m);
+        double right = gauss(k, m, b);
+        double sum = left + right;
+        if (depth == 0 || Math.abs(sum - whole) <= RELATIVE_TOLERANCE * Math.abs(sum)) {
+            return sum;
+        }
+        return adapt(k, a, m, left, depth - 1) + adapt(k, m, b, right, depth - 1);
+    }
+
+    private double gauss(int k, double a, double b) {
+        double half = 0.5 * (b - a), mid = 0.5 * (a + b);
+        double sum = 0.0;
+        for (int i = 0; i < GAUSS_NODES.length; i++) {
+            sum += GAUSS_WEIGHTS[i] * speed(k, mid + half * GAUSS_NODES[i]);
+        }
+        return sum * half;
+    }
+
+    private double speed(int k, double u) {
+        evaluator.derivative(snapshot, k, u, derivative);
+        return Math.sqrt(derivative[3] * derivative[3] + derivative[4] * derivative[4] + derivative[5] * derivative[5]);
+    }
+}
@@ -0,0 +1,65 @@
+package data;
+
+/**
+ * Cholesky factorization A = L L^T of a symmetric positive definite band matrix with
+ * half bandwidth b, stored as its lower band: entry (i, i - d) at index i * (b + 1) + d.
+ * Factorization costs O(n b^2) and every solve O(n b) instead of O(n^3) and O(n^2).
+ */
+final class BandedCholesky {
+    private final int n;
+    private final int bandwidth;
+    private final double[] l;
+
+    /**
+     * Factors the matrix in place.
+     * @throws IllegalArgumentException if the matrix is not positive definite
+     */
+    BandedCholesky(double[] band, int n, int bandwidth) {
+        this.n = n;
+        this.bandwidth = bandwidth;
+        this.l = band;
+        int w = bandwidth + 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = Math.max(0, i - bandwidth); j <= i; j++) {
+                double sum = band[i * w + (i - j)];
+                for (int k = Math.max(0, i - bandwidth); k < j; k++) {
+                    sum -= band[i * w + (i - k)] * band[j * w + (j - k)];
+                }
+                if (i == j) {
+                    if (!(sum > 0))
+                        throw new IllegalArgumentException("Matrix is not positive definite.");
+                    band[i * w] = Math.sqrt(sum);
+                } else {
+                    band[i * w + (i - j)] = sum / band[j * w];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves A x = b in place for several right-hand sides stored interleaved: value c of row i at i * columns + c.
+     */
+    void solve(double[] b, int columns) {
+        int w = bandwidth + 1;
+        // L y = b
+        for (int i = 0; i < n; i++) {
+            for (int c = 0; c < columns; c++) {
+                double sum = b[i * columns + c];
+                for (int k = Math.max(0, i - bandwidth); k < i; k++) {
+                    sum -= l[i * w + (i - k)] * b[k * columns + c];
+                }
+                b[i * columns + c] = sum / l[i * w];
+            }
+        }
+        // L^T x = y
+        for (int i = n - 1; i >= 0; i--) {
+            for (int c = 0; c < columns; c++) {
+                double sum = b[i * columns + c];
+                for (int k = i + 1; k <= Math.min(n - 1, i + bandwidth); k++) {
+                    sum -= l[k * w + (k - i)] * b[k * columns + c];
+                }
+                b[i * columns + c] = sum / l[i * w];
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package data;
+
+/**
+ * LU factorization with partial pivoting of a band matrix with kl sub- and ku superdiagonals
+ * (the scheme of LAPACK's dgbtrf). Row interchanges let the upper factor grow to kl + ku
+ * superdiagonals, so every row keeps the columns row - kl .. row + kl + ku:
+ * entry (i, j) is stored at i * (2 kl + ku + 1) + j - i + kl.
+ * Factorization costs O(n kl (kl + ku)) and every solve O(n (kl + ku)).
+ */
+final class BandedLU {
+    private final int n;
+    private final int kl;
+    private final int ku;
+    private final int width;
+    private final double[] a;
+    // Multiplikatoren der Elimination, Zeile i + 1 + r im Schritt i an i * kl + r
+    private final double[] multipliers;
+    private final int[] pivots;
+
+    /**
+     * Creates an empty n x n band matrix; fill it with {@link #set(int, int, double)}, then call {@link #factor()}.
+     */
+    BandedLU(int n, int kl, int ku) {
+        this.n = n;
+        this.kl = kl;
+        this.ku = ku;
+        this.width = 2 * kl + ku + 1;
+        this.a = new double[n * width];
+        this.multipliers = new double[n * kl];
+        this.pivots = new int[n];
+    }
+
+    /**
+     * Sets entry (i, j); j must lie within i - kl .. i + ku.
+     */
+    void set(int i, int j, double value) {
+        if (j < i - kl || j > i + ku)
+            throw new IllegalArgumentException("Entry (" + i + ", " + j + ") lies outside the band.");
+        a[i * width + j - i + kl] = value;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the matrix is singular
+     */
+    void factor() {
+        for (int i = 0; i < n; i++) {
+            int last = Math.min(n - 1, i + kl);
+            int pivot = i;
+            double max = Math.abs(get(i, i));
+            for (int r = i + 1; r <= last; r++) {
+                double v = Math.abs(get(r, i));
+                if (v > max) {
+                    max = v;
+                    pivot = r;
+                }
+            }
+            if (max == 0)
+                throw new IllegalArgumentException("Matrix is singular.");
+            pivots[i] = pivot;
+            int end = Math.min(n - 1, i + kl + ku);
+            if (pivot != i) {
+                // Links von i sind beide Zeilen schon eliminiert, rechts liegen sie in beiden Fenstern
+                for (int j = i; j <= end; j++) {
+                    int x = i * width + j - i + kl, y = pivot * width + j - pivot + kl;
+                    double t = a[x];
+                    a[x] = a[y];
+                    a[y] = t;
+                }
+            }
+            double diagonal = get(i, i);
+            for (int r = i + 1; r <= last; r++) {
+                int row = r * width - r + kl;
+                double factor = a[row + i] / diagonal;
+                multipliers[i * kl + r - i - 1] = factor;
+                a[row + i] = 0.0;
+                if (factor != 0.0) {
+                    int pivotRow = i * width - i + kl;
+                    for (int j = i + 1; j <= end; j++) {
+                        a[row + j] -= factor * a[pivotRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves A x = b in place for several right-hand sides stored interleaved: value c of row i at i * columns + c.
+     */
+    void solve(double[] b, int columns) {
+        for (int i = 0; i < n; i++) {
+            int pivot = pivots[i];
+            if (pivot != i) {
+                for (int c = 0; c < columns; c++) {
+                    double t = b[i * columns + c];
+                    b[i * columns + c] = b[pivot * columns + c];
+                    b[pivot * columns + c] = t;
+                }
+            }
+            int last = Math.min(n - 1, i + kl);
+            for (int r = i + 1; r <= last; r++) {
+                double factor = multipliers[i * kl + r - i - 1];
+                for (int c = 0; c < columns; c++) {
+                    b[r * columns + c] -= factor * b[i * columns + c];
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int end = Math.min(n - 1, i + kl + ku);
+            int row = i * width - i + kl;
+            for (int c = 0; c < columns; c++) {
+                double sum = b[i * columns + c];
+                for (int j = i + 1; j <= end; j++) {
+                    sum -= a[row + j] * b[j * columns + c];
+                }
+                b[i * columns + c] = sum / a[row + i];
+            }
+        }
+    }
+
+    private double get(int i, int j) {
+        return a[i * width + j - i + kl];
+    }
+}
@@ -0,0 +1,144 @@
+package data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates many curves that share one degree and knot vector, such as the keyframes of an
+ * animation, at the same parameters.
+ * <p>
+ * The homogeneous control points {@code w*x, w*y, w*z, w} of all curves are packed point-major
+ * into one block, so the p+1 rows of a span lie next to each other for every curve. Span search
+ * and basis functions are computed once per parameter; evaluating all curves is then the product
+ * of the basis row with a (p+1) x 4·curves block, an unrolled sum over contiguous memory. Large
+ * parameter sets are split into chunks that are evaluated in parallel.
+ */
+public class BatchEvaluator {
+    // Parameter je Teilaufgabe; kleiner lohnt die Verteilung auf Threads nicht
+    static final int CHUNK = 256;
+
+    private final int degree;
+    private final double[] knots;
+    private final int pointCount;
+    private final int curveCount;
+    private final int width;
+    // Punkt i von Kurve c beginnt bei (i * curveCount + c) * 4
+    private final double[] block;
+    private boolean parallel = true;
+
+    /**
+     * Packs the control points of the given curves. All curves need the same degree, the same number
+     * of control points and bitwise identical knot vectors; the first curve's knot vector is copied.
+     */
+    public BatchEvaluator(List<NURBSSnapshot> curves) {
+        if (curves.isEmpty())
+            throw new IllegalArgumentException("At least one curve is needed.");
+        NURBSSnapshot first = curves.get(0);
+        if (!first.isValid())
+            throw new IllegalArgumentException("Curve 0 is not valid.");
+        this.degree = first.getDegree();
+        this.knots = first.getKnots();
+        this.pointCount = first.size();
+        this.curveCount = curves.size();
+        this.width = 4 * curveCount;
+        this.block = new double[pointCount * width];
+        for (int c = 0; c < curveCount; c++) {
+            setCurve(c, curves.get(c));
+        }
+    }
+
+    /**
+     * Replaces the control points of curve c, for example after a keyframe was edited.
+     * @throws IllegalArgumentException if the curve does not share degree and knot vector
+     */
+    public void setCurve(int c, NURBSSnapshot s) {
+        if (c < 0 || c >= curveCount)
+            throw new IndexOutOfBoundsException("Curve index out of range: " + c);
+        if (s.getDegree() != degree || s.size() != pointCount || !Arrays.equals(s.knots(), knots))
+            throw new IllegalArgumentException("Curve " + c + " does not share the degree and knot vector.");
+        for (int i = 0; i < pointCount; i++) {
+            int o = i * width + 4 * c;
+            double w = s.getWeight(i);
+            block[o] = s.getX(i) * w;
+            block[o + 1] = s.getY(i) * w;
+            block[o + 2] = s.getZ(i) * w;
+            block[o + 3] = w;
+        }
+    }
+
+    public int getCurveCount() {
+        return curveCount;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * @return a copy of the shared knot vector
+     */
+    public double[] getKnots() {
+        return knots.clone();
+    }
+
+    /**
+     * Chooses whether large batches are split across threads; on by default.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Evaluates every curve at the first count parameters.
+     * Parameters may come in any order, but ascending ones make the span search cheaper.
+     * @param out receives x, y, z of curve c at u[i] at index (i * curveCount + c) * 3
+     */
+    public void evaluate(double[] u, int count, double[] out) {
+        if (out.length < 3L * count * curveCount)
+            throw new IllegalArgumentException("Output array too small.");
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        if (!parallel || chunks < 2) {
+            evaluateRange(u, 0, count, out);
+            return;
+        }
+        IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> evaluateRange(u, chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK), out));
+    }
+
+    // Wertet die Parameter from..to-1 aus; jede Teilaufgabe hat ihren eigenen Arbeitsspeicher.
+    private void evaluateRange(double[] u, int from, int to, double[] out) {
+        int p = degree;
+        int width = this.width;
+        double[] block = this.block;
+        NURBSEvaluator evaluator = new NURBSEvaluator();
+        SpanLocator locator = new SpanLocator(knots, p);
+        double[] sum = new double[width];
+        for (int s = from; s < to; s++) {
+            double t = u[s];
+            int k = locator.find(t);
+            double[] N = evaluator.basisFunctions(k, t, p, knots);
+            // Zeilenvektor der Basisfunktionen mal Block der p+1 Punktzeilen aller Kurven
+            int row = (k - p) * width;
+            double n0 = N[0];
+            for (int i = 0; i < width; i++) {
+                sum[i] = n0 * block[row + i];
+            }
+            for (int j = 1; j <= p; j++) {
+                row += width;
+                double n = N[j];
+                for (int i = 0; i < width; i++) {
+                    sum[i] += n * block[row + i];
+                }
+            }
+            int o = s * curveCount * 3;
+            for (int c = 0; c < curveCount; c++) {
+                double w = sum[4 * c + 3];
+                out[o] = sum[4 * c] / w;
+                out[o + 1] = sum[4 * c + 1] / w;
+                out[o + 2] = sum[4 * c + 2] / w;
+                o += 3;
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * A rational Bezier piece of a NURBS curve over the parameter interval [t0, t1],
+ * stored as p+1 homogeneous control points {@code w*x, w*y, w*z, w}.
+ * <p>
+ * With positive weights the piece lies in the convex hull of its projected control points,
+ * so their box bounds it; splitting a piece (de Casteljau) gives two tighter boxes.
+ */
+final class BezierPiece {
+    final int degree;
+    // (degree + 1) * 4 homogeneous values
+    final double[] points;
+    final double t0, t1;
+    // minX, minY, minZ, maxX, maxY, maxZ of the projected control points
+    final double[] box = new double[6];
+
+    BezierPiece(int degree, double[] points, double t0, double t1) {
+        this.degree = degree;
+        this.points = points;
+        this.t0 = t0;
+        this.t1 = t1;
+        box[0] = box[1] = box[2] = Double.POSITIVE_INFINITY;
+        box[3] = box[4] = box[5] = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= degree; i++) {
+            double w = points[4 * i + 3];
+            for (int c = 0; c < 3; c++) {
+                double v = points[4 * i + c] / w;
+                box[c] = Math.min(box[c], v);
+                box[c + 3] = Math.max(box[c + 3], v);
+            }
+        }
+    }
+
+    /**
+     * Splits the NURBS curve of a snapshot into its Bezier pieces (Piegl/Tiller, A5.6).
+     * The knot vector must be clamped; empty spans produce no piece. Interior knots of multiplicity
+     * p+1 are allowed and start a new piece without shared control points.
+     */
+    static BezierPiece[] decompose(NURBSSnapshot s) {
+        int p = s.getDegree();
+        double[] U = s.knots();
+        int m = U.length - 1;
+        int w = p + 1;
+        BezierPiece[] pieces = new BezierPiece[s.size() - p];
+        double[] alphas = new double[w];
+        double[] q = new double[w * 4];
+        double[] next = new double[w * 4];
+        for (int i = 0; i <= p; i++) {
+            s.getPoint(i, q, 4 * i);
+            homogenize(q, i);
+        }
+        int count = 0;
+        int a = p, b = p + 1;
+        while (b < m) {
+            int i = b;
+            while (b < m && U[b + 1] == U[b]) {
+                b++;
+            }
+            int mult = b - i + 1;
+            if (mult < p) {
+                // Knoten U[b] bis zur Vielfachheit p einfügen
+                double numer = U[b] - U[a];
+                for (int j = p; j > mult; j--) {
+                    alphas[j - mult - 1] = numer / (U[a + j] - U[a]);
+                }
+                int r = p - mult;
+                for (int j = 1; j <= r; j++) {
+                    int save = r - j;
+                    int first = mult + j;
+                    for (int k = p; k >= first; k--) {
+                        double alpha = alphas[k - first];
+                        for (int c = 0; c < 4; c++) {
+                            q[4 * k + c] = alpha * q[4 * k + c] + (1 - alpha) * q[4 * (k - 1) + c];
+                        }
+                    }
+                    if (b < m) {
+                        System.arraycopy(q, 4 * p, next, 4 * save, 4);
+                    }
+                }
+            }
+            pieces[count++] = new BezierPiece(p, q.clone(), U[a], U[b]);
+            if (b < m) {
+                // Bei Vielfachheit p+1 (Sprung in der Kurve) kommt kein Punkt aus dem vorigen Stück
+                for (int k = Math.max(0, p - mult); k <= p; k++) {
+                    s.getPoint(b - p + k, next, 4 * k);
+                    homogenize(next, k);
+                }
+                double[] t = q;
+                q = next;
+                next = t;
+                a = b;
+                b++;
+            }
+        }
+        return Arrays.copyOf(pieces, count);
+    }
+
+    private static void homogenize(double[] q, int i) {
+        double w = q[4 * i + 3];
+        q[4 * i] *= w;
+        q[4 * i + 1] *= w;
+        q[4 * i + 2] *= w;
+    }
+
+    /**
+     * Splits the piece at its local parameter 0.5.
+     * @return the left and the right half
+     */
+    BezierPiece[] split() {
+        int p = degree;
+        double[] left = new double[points.length];
+        double[] right = points.clone();
+        System.arraycopy(right, 0, left, 0, 4);
+        for (int r = 1; r <= p; r++) {
+            for (int i = 0; i <= p - r; i++) {
+                for (int c = 0; c < 4; c++) {
+                    right[4 * i + c] = 0.5 * (right[4 * i + c] + right[4 * (i + 1) + c]);
+                }
+            }
+            System.arraycopy(right, 0, left, 4 * r, 4);
+        }
+        // right[i] ist jetzt der letzte Punkt der Stufe p-i, also der i-te Punkt der rechten Hälfte
+        double mid = 0.5 * (t0 + t1);
+        return new BezierPiece[]{new BezierPiece(p, left, t0, mid), new BezierPiece(p, right, mid, t1)};
+    }
+
+    /**
+     * Evaluates the point and the derivative with respect to the local parameter t (0..1).
+     * @param scratch at least (degree + 1) * 4 values
+     * @param out     receives x, y, z at 0..2 and the derivative at 3..5
+     */
+    void evaluate(double t, double[] scratch, double[] out) {
+        int p = degree;
+        System.arraycopy(points, 0, scratch, 0, points.length);
+        for (int r = 1; r < p; r++) {
+            for (int i = 0; i <= p - r; i++) {
+                for (int c = 0; c < 4; c++) {
+                    scratch[4 * i + c] = (1 - t) * scratch[4 * i + c] + t * scratch[4 * (i + 1) + c];
+                }
+            }
+        }
+        // Die letzten beiden Zwischenpunkte liefern Punkt und Ableitung der homogenen Kurve
+        double w = (1 - t) * scratch[3] + t * scratch[7];
+        double dw = p * (scratch[7] - scratch[3]);
+        for (int c = 0; c < 3; c++) {
+            double v = ((1 - t) * scratch[c] + t * scratch[4 + c]) / w;
+            double dv = p * (scratch[4 + c] - scratch[c]);
+            out[c] = v;
+            out[3 + c] = (dv - dw * v) / w;
+        }
+    }
+
+    /**
+     * @return the largest distance of an inner control point from the chord between the end points
+     */
+    double flatness() {
+        int p = degree;
+        double ax = points[0] / points[3], ay = points[1] / points[3], az = points[2] / points[3];
+        int o = 4 * p;
+        double dx = points[o] / points[o + 3] - ax, dy = points[o + 1] / points[o + 3] - ay,
+                dz = points[o + 2] / points[o + 3] - az;
+        double len2 = dx * dx + dy * dy + dz * dz;
+        double max = 0;
+        for (int i = 1; i < p; i++) {
+            double w = points[4 * i + 3];
+            double vx = points[4 * i] / w - ax, vy = points[4 * i + 1] / w - ay, vz = points[4 * i + 2] / w - az;
+            double t = len2 > 0 ? (vx * dx + vy * dy + vz * dz) / len2 : 0;
+            double ex = vx - t * dx, ey = vy - t * dy, ez = vz - t * dz;
+            max = Math.max(max, Math.sqrt(ex * ex + ey * ey + ez * ez));
+        }
+        return max;
+    }
+
+    /**
+     * @return true if the control polygon advances along its chord, so the piece cannot cross itself
+     */
+    boolean isMonotone() {
+        int p = degree;
+        int o = 4 * p;
+        double dx = points[o] / points[o + 3] - points[0] / points[3];
+        double dy = points[o + 1] / points[o + 3] - points[1] / points[3];
+        double dz = points[o + 2] / points[o + 3] - points[2] / points[3];
+        for (int i = 0; i < p; i++) {
+            double w0 = points[4 * i + 3], w1 = points[4 * i + 7];
+            double ex = points[4 * i + 4] / w1 - points[4 * i] / w0;
+            double ey = points[4 * i + 5] / w1 - points[4 * i + 1] / w0;
+            double ez = points[4 * i + 6] / w1 - points[4 * i + 2] / w0;
+            if (ex * dx + ey * dy + ez * dz <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    double size() {
+        return Math.max(box[3] - box[0], Math.max(box[4] - box[1], box[5] - box[2]));
+    }
+}
@@ -0,0 +1,139 @@
+package data;
+
+import java.util.List;
+
+/**
+ * A sequence of edits published as one version, as built by a {@link Transaction}.
+ * <p>
+ * The ranges cover every point and knot that may differ after the edit: nothing before the
+ * smallest first index of a part changed, and once a part changes the number of points or knots,
+ * everything after that index counts as changed. Listeners that want to handle the parts one by
+ * one can walk them with {@link #getEdit(int)}.
+ */
+public final class CompoundEdit extends EditDelta {
+    private final EditDelta[] edits;
+    private final int pointsBefore, pointsAfter;
+    private final int knotsBefore, knotsAfter;
+    private final boolean structural;
+    private final int firstPoint, lastPoint;
+    private final int firstKnot, lastKnot;
+
+    /**
+     * @param edits        the parts in the order they are applied
+     * @param pointsBefore number of control points before the first part
+     * @param knotsBefore  number of knots before the first part
+     * @param pointsAfter  number of control points after the last part
+     * @param knotsAfter   number of knots after the last part
+     */
+    CompoundEdit(List<EditDelta> edits, int pointsBefore, int knotsBefore, int pointsAfter, int knotsAfter) {
+        this(edits.toArray(new EditDelta[0]), pointsBefore, knotsBefore, pointsAfter, knotsAfter);
+    }
+
+    private CompoundEdit(EditDelta[] edits, int pointsBefore, int knotsBefore, int pointsAfter, int knotsAfter) {
+        this.edits = edits;
+        this.pointsBefore = pointsBefore;
+        this.knotsBefore = knotsBefore;
+        this.pointsAfter = pointsAfter;
+        this.knotsAfter = knotsAfter;
+        boolean structural = false, pointsShift = false, knotsShift = false;
+        int firstPoint = Integer.MAX_VALUE, lastPoint = -1;
+        int firstKnot = Integer.MAX_VALUE, lastKnot = -1;
+        for (EditDelta edit : edits) {
+            structural |= edit.isStructural();
+            if (edit instanceof SpliceEdit splice) {
+                // Auch entfernte Punkte und Knoten verschieben alles dahinter
+                if (splice.getOldPointCount() != splice.getNewPointCount()) {
+                    pointsShift = true;
+                    firstPoint = Math.min(firstPoint, splice.getPointIndex());
+                }
+                if (splice.getOldKnotCount() != splice.getNewKnotCount()) {
+                    knotsShift = true;
+                    firstKnot = Math.min(firstKnot, splice.getKnotIndex());
+                }
+            }
+            if (edit.getFirstPoint() >= 0) {
+                firstPoint = Math.min(firstPoint, edit.getFirstPoint());
+                lastPoint = Math.max(lastPoint, edit.getLastPoint());
+            }
+            if (edit.getFirstKnot() >= 0) {
+                firstKnot = Math.min(firstKnot, edit.getFirstKnot());
+                lastKnot = Math.max(lastKnot, edit.getLastKnot());
+            }
+        }
+        if (pointsShift) {
+            lastPoint = pointsAfter - 1;
+        }
+        if (knotsShift) {
+            lastKnot = knotsAfter - 1;
+        }
+        this.structural = structural;
+        this.firstPoint = firstPoint <= lastPoint ? firstPoint : -1;
+        this.lastPoint = firstPoint <= lastPoint ? lastPoint : -1;
+        this.firstKnot = firstKnot <= lastKnot ? firstKnot : -1;
+        this.lastKnot = firstKnot <= lastKnot ? lastKnot : -1;
+    }
+
+    /**
+     * @return the number of parts
+     */
+    public int getEditCount() {
+        return edits.length;
+    }
+
+    /**
+     * @return the part at the given position, in the order the parts are applied
+     */
+    public EditDelta getEdit(int i) {
+        return edits[i];
+    }
+
+    @Override
+    void applyTo(NURBSSnapshot.Builder b) {
+        for (EditDelta edit : edits) {
+            edit.applyTo(b);
+        }
+    }
+
+    @Override
+    public CompoundEdit inverse() {
+        EditDelta[] inverse = new EditDelta[edits.length];
+        for (int i = 0; i < edits.length; i++) {
+            inverse[i] = edits[edits.length - 1 - i].inverse();
+        }
+        return new CompoundEdit(inverse, pointsAfter, knotsAfter, pointsBefore, knotsBefore);
+    }
+
+    @Override
+    public boolean isStructural() {
+        return structural;
+    }
+
+    @Override
+    public int getFirstPoint() {
+        return firstPoint;
+    }
+
+    @Override
+    public int getLastPoint() {
+        return lastPoint;
+    }
+
+    @Override
+    public int getFirstKnot() {
+        return firstKnot;
+    }
+
+    @Override
+    public int getLastKnot() {
+        return lastKnot;
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = 64 + 8L * edits.length;
+        for (EditDelta edit : edits) {
+            size += edit.estimateSize();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,298 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Length, enclosed area, centroids and tight bounding box of a {@link NURBSModel}.
+ * <p>
+ * Every knot span stores its partial integrals, computed with adaptive 8-point Gauss–Legendre
+ * quadrature, and its tight box: the span's end points and every point where a coordinate of C'(u)
+ * changes sign, located by sampling C' and refining each sign change with regula falsi. An edit of one
+ * control point recomputes only the p+1 spans it touches. The totals are running sums that subtract
+ * the old and add the new span values, so they update in O(p); the overall box is kept in a segment
+ * tree over the span boxes and updates in O(p log n).
+ * <p>
+ * The enclosed area is that of the region bounded by the curve in the xy-plane and the straight line
+ * from its end back to its start, positive for counter-clockwise curves. Queries refer to the snapshot
+ * returned by the last {@link #update()}.
+ */
+public class CurveAnalysis extends SpanCache {
+    // Integrale pro Spanne: Länge, x y' - y x', x² y', y² x', x |C'|, y |C'|, z |C'|
+    private static final int LENGTH = 0, AREA = 1, MOMENT_X = 2, MOMENT_Y = 3, WIRE_X = 4, WIRE_Y = 5, WIRE_Z = 6;
+    private static final int VALUES = 7;
+    private static final int MAX_DEPTH = 12;
+    private static final double RELATIVE_TOLERANCE = 1e-10;
+    private static final int MAX_ROOT_STEPS = 60;
+
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final double[] derivative = new double[6];
+    private NURBSSnapshot snapshot;
+    private int degree;
+    private int spanCount;
+    // spanValues[(k - p) * VALUES + i]
+    private double[] spanValues = new double[0];
+    private final double[] totals = new double[VALUES];
+    // Segmentbaum der Boxen: minX, minY, minZ, maxX, maxY, maxZ pro Knoten, Blätter ab leafOffset
+    private double[] tree = new double[0];
+    private int leafOffset;
+    private final double[] start = new double[3], end = new double[3];
+
+    // Zwischenspeicher der Quadratur und der Extremsuche
+    private final double[] whole = new double[2 * VALUES];
+    private final double[][] levels = new double[2 * (MAX_DEPTH + 1)][2 * VALUES];
+    private double[] samples = new double[0];
+    private final double[] box = new double[6];
+
+    public CurveAnalysis(NURBSModel model) {
+        super(model);
+    }
+
+    /**
+     * @return the length of the curve
+     */
+    public synchronized double getLength() {
+        return totals[LENGTH];
+    }
+
+    /**
+     * @return the signed area enclosed by the curve and its closing chord in the xy-plane
+     */
+    public synchronized double getArea() {
+        return 0.5 * (totals[AREA] + end[0] * start[1] - end[1] * start[0]);
+    }
+
+    /**
+     * Writes the centroid of the area enclosed by the curve and its closing chord (xy-plane) into out[0..1];
+     * NaN if the area is zero.
+     */
+    public synchronized void getCentroid(double[] out) {
+        double area = getArea();
+        double xs = start[0], ys = start[1], xe = end[0], ye = end[1];
+        // Integrale über die Sehne vom Ende zum Anfang
+        double chordX = (ys - ye) * (xe * xe + xe * xs + xs * xs) / 3;
+        double chordY = (xs - xe) * (ye * ye + ye * ys + ys * ys) / 3;
+        out[0] = 0.5 * (totals[MOMENT_X] + chordX) / area;
+        out[1] = -0.5 * (totals[MOMENT_Y] + chordY) / area;
+    }
+
+    /**
+     * Writes the centroid of the curve itself, weighted by arc length, into out[0..2]; NaN for a curve of length zero.
+     */
+    public synchronized void getLengthCentroid(double[] out) {
+        double length = totals[LENGTH];
+        out[0] = totals[WIRE_X] / length;
+        out[1] = totals[WIRE_Y] / length;
+        out[2] = totals[WIRE_Z] / length;
+    }
+
+    /**
+     * Writes the tight box of the curve as minX, minY, minZ, maxX, maxY, maxZ; empty (min > max) without spans.
+     */
+    public synchronized void getBounds(double[] out) {
+        if (tree.length == 0) {
+            Arrays.fill(out, 0, 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(out, 3, 6, Double.NEGATIVE_INFINITY);
+        } else {
+            System.arraycopy(tree, 6, out, 0, 6);
+        }
+    }
+
+    /**
+     * @return the length of span k, zero for empty spans
+     */
+    public synchronized double getSpanLength(int k) {
+        return spanValues[(k - degree) * VALUES + LENGTH];
+    }
+
+    /**
+     * Writes the tight box of span k like {@link #getBounds(double[])}.
+     */
+    public synchronized void getSpanBounds(int k, double[] out) {
+        System.arraycopy(tree, 6 * (leafOffset + k - degree), out, 0, 6);
+    }
+
+    @Override
+    protected void reset(NURBSSnapshot s) {
+        degree = s.getDegree();
+        spanCount = s.size() - degree;
+        spanValues = new double[spanCount * VALUES];
+        Arrays.fill(totals, 0.0);
+        leafOffset = spanCount <= 1 ? 1 : Integer.highestOneBit(spanCount - 1) << 1;
+        tree = new double[12 * leafOffset];
+        for (int node = 0; node < 2 * leafOffset; node++) {
+            Arrays.fill(tree, 6 * node, 6 * node + 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(tree, 6 * node + 3, 6 * node + 6, Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    @Override
+    protected void computeSpan(NURBSSnapshot s, int k) {
+        snapshot = s;
+        int o = (k - degree) * VALUES;
+        for (int i = 0; i < VALUES; i++) {
+            totals[i] -= spanValues[o + i];
+        }
+        double u0 = s.getKnot(k), u1 = s.getKnot(k + 1);
+        if (u0 == u1) {
+            Arrays.fill(spanValues, o, o + VALUES, 0.0);
+            Arrays.fill(box, 0, 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(box, 3, 6, Double.NEGATIVE_INFINITY);
+        } else {
+            integrate(k, u0, u1);
+            System.arraycopy(whole, 0, spanValues, o, VALUES);
+            spanBox(k, u0, u1);
+        }
+        for (int i = 0; i < VALUES; i++) {
+            totals[i] += spanValues[o + i];
+        }
+        // Blatt setzen und die Vorfahren neu berechnen
+        int node = leafOffset + k - degree;
+        System.arraycopy(box, 0, tree, 6 * node, 6);
+        for (node >>= 1; node >= 1; node >>= 1) {
+            int a = 12 * node, b = a + 6, t = 6 * node;
+            for (int c = 0; c < 3; c++) {
+                tree[t + c] = Math.min(tree[a + c], tree[b + c]);
+                tree[t + c + 3] = Math.max(tree[a + c + 3], tree[b + c + 3]);
+            }
+        }
+    }
+
+    @Override
+    protected void finishUpdate(NURBSSnapshot s) {
+        snapshot = s;
+        int p = s.getDegree();
+        evaluator.point(s, p, s.getKnot(p), start);
+        evaluator.point(s, s.size() - 1, s.getKnot(s.size()), end);
+    }
+
+    // Integriert alle Werte über [a, b] in Spanne k; Ergebnis in whole[0..VALUES-1]
+    private void integrate(int k, double a, double b) {
+        gauss(k, a, b, whole);
+        adapt(k, a, b, whole, MAX_DEPTH);
+    }
+
+    // Verfeinert estimate (Integrale und Integrale der Beträge über [a, b]) an Ort und Stelle.
+    // Jede Rekursionstiefe hat ihr eigenes Paar Hälften in levels.
+    private void adapt(int k, double a, double b, double[] estimate, int depth) {
+        double[] left = levels[2 * depth], right = levels[2 * depth + 1];
+        double m = 0.5 * (a + b);
+        gauss(k, a, m, left);
+        gauss(k, m, b, right);
+        boolean converged = true;
+        for (int i = 0; i < VALUES && depth > 0; i++) {
+            double scale = left[VALUES + i] + right[VALUES + i];
+            if (Math.abs(left[i] + right[i] - estimate[i]) > RELATIVE_TOLERANCE * scale) {
+                converged = false;
+                break;
+            }
+        }
+        if (!converged) {
+            adapt(k, a, m, left, depth - 1);
+            adapt(k, m, b, right, depth - 1);
+        }
+        for (int i = 0; i < 2 * VALUES; i++) {
+            estimate[i] = left[i] + right[i];
+        }
+    }
+
+    // 8-Punkt-Gauss-Legendre aller Integranden und ihrer Beträge über [a, b]
+    private void gauss(int k, double a, double b, double[] out) {
+        Arrays.fill(out, 0.0);
+        double half = 0.5 * (b - a), mid = 0.5 * (a + b);
+        for (int g = 0; g < ArcLengthTable.GAUSS_NODES.length; g++) {
+            evaluator.derivative(snapshot, k, mid + half * ArcLengthTable.GAUSS_NODES[g], derivative);
+            double x = derivative[0], y = derivative[1], z = derivative[2];
+            double dx = derivative[3], dy = derivative[4], dz = derivative[5];
+            double speed = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            double weight = ArcLengthTable.GAUSS_WEIGHTS[g] * half;
+            accumulate(out, LENGTH, weight, speed);
+            accumulate(out, AREA, weight, x * dy - y * dx);
+            accumulate(out, MOMENT_X, weight, x * x * dy);
+            accumulate(out, MOMENT_Y, weight, y * y * dx);
+            accumulate(out, WIRE_X, weight, x * speed);
+            accumulate(out, WIRE_Y, weight, y * speed);
+            accumulate(out, WIRE_Z, weight, z * speed);
+        }
+    }
+
+    private static void accumulate(double[] out, int i, double weight, double value) {
+        out[i] += weight * value;
+        out[VALUES + i] += weight * Math.abs(value);
+    }
+
+    // Enge Box der Spanne: Endpunkte und alle Nullstellen der Ableitungskomponenten
+    private void spanBox(int k, double u0, double u1) {
+        int p = degree;
+        int n = 4 * (p + 1);
+        if (samples.length < 4 * (n + 1)) {
+            samples = new double[4 * (n + 1)];
+        }
+        // Pro Stützstelle: u, dx, dy, dz
+        Arrays.fill(box, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(box, 3, 6, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i <= n; i++) {
+            double u = i == n ? u1 : u0 + (u1 - u0) * i / n;
+            evaluator.derivative(snapshot, k, u, derivative);
+            samples[4 * i] = u;
+            System.arraycopy(derivative, 3, samples, 4 * i + 1, 3);
+            if (i == 0 || i == n) {
+                extend(derivative);
+            }
+        }
+        for (int c = 0; c < 3; c++) {
+            for (int i = 0; i < n; i++) {
+                double fa = samples[4 * i + 1 + c], fb = samples[4 * (i + 1) + 1 + c];
+                if (fa == 0.0) {
+                    evaluator.derivative(snapshot, k, samples[4 * i], derivative);
+                    extend(derivative);
+                } else if (fa * fb < 0) {
+                    double u = root(k, c, samples[4 * i], fa, samples[4 * (i + 1)], fb);
+                    evaluator.derivative(snapshot, k, u, derivative);
+                    extend(derivative);
+                }
+            }
+        }
+    }
+
+    // Regula falsi (Illinois) für die Nullstelle der Ableitungskomponente c, mit fa * fb < 0
+    private double root(int k, int c, double a, double fa, double b, double fb) {
+        int kept = 0;
+        double u = 0.5 * (a + b);
+        for (int step = 0; step < MAX_ROOT_STEPS; step++) {
+            double next = (a * fb - b * fa) / (fb - fa);
+            if (!(next > a && next < b)) {
+                break;
+            }
+            u = next;
+            evaluator.derivative(snapshot, k, u, derivative);
+            double fu = derivative[3 + c];
+            if (fu == 0.0) {
+                break;
+            }
+            // Bleibt dieselbe Seite zweimal stehen, wird ihr Wert halbiert
+            if (fa * fu < 0) {
+                b = u;
+                fb = fu;
+                if (kept == -1) {
+                    fa *= 0.5;
+                }
+                kept = -1;
+            } else {
+                a = u;
+                fa = fu;
+                if (kept == 1) {
+                    fb *= 0.5;
+                }
+                kept = 1;
+            }
+        }
+        return u;
+    }
+
+    private void extend(double[] point) {
+        for (int c = 0; c < 3; c++) {
+            box[c] = Math.min(box[c], point[c]);
+            box[c + 3] = Math.max(box[c + 3], point[c]);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Least-squares approximation of ordered data points by a non-rational B-spline curve
+ * (Piegl/Tiller, "The NURBS Book", 9.4.1).
+ * <p>
+ * The first and last data point are interpolated, the inner control points minimize the sum of
+ * squared distances. Every data point touches only p+1 basis functions, so the normal equations
+ * N^T N P = R form a band matrix with half bandwidth p; it is assembled in one pass over the points
+ * and solved with a banded Cholesky factorization. A fit therefore costs O(m p^2 + n p^2) for m points
+ * and n control points.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class CurveFitter {
+    private final int degree;
+    private final Parameterization parameterization;
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final SpanLocator locator = new SpanLocator();
+
+    public CurveFitter(int degree, Parameterization parameterization) {
+        if (degree < 1)
+            throw new IllegalArgumentException("Degree must be at least 1.");
+        this.degree = degree;
+        this.parameterization = parameterization;
+    }
+
+    /**
+     * Fits a curve with a fixed number of control points.
+     * @param xyz               packed x, y, z of the data points
+     * @param count             number of data points, more than controlPointCount
+     * @param controlPointCount number of control points, more than the degree
+     */
+    public FitResult fit(double[] xyz, int count, int controlPointCount) {
+        return fit(xyz, count, controlPointCount, Double.POSITIVE_INFINITY, 1);
+    }
+
+    /**
+     * Fits a curve and refines it until every data point lies within the tolerance. After each solve
+     * every span whose points deviate too far is split at the median parameter of its points,
+     * then the curve is fitted again.
+     * @param controlPointCount number of control points of the first fit
+     * @param maxIterations     maximal number of solves
+     * @return the last fit, which may miss the tolerance if maxIterations was reached
+     *         or no span could be split any more
+     */
+    public FitResult fit(double[] xyz, int count, int controlPointCount, double tolerance, int maxIterations) {
+        int p = degree;
+        if (controlPointCount <= p)
+            throw new IllegalArgumentException("Degree " + p + " needs more than " + p + " control points.");
+        if (count <= controlPointCount)
+            throw new IllegalArgumentException("Need more data points than control points.");
+        if (xyz.length < 3 * count)
+            throw new IllegalArgumentException("Not enough data point values.");
+        double[] u = parameterization.compute(xyz, count);
+        double[] knots = placeKnots(u, count, controlPointCount);
+        double[] deviations = new double[count];
+        double[] control = null;
+        double max = 0, rms = 0;
+        int iteration = 0;
+        while (true) {
+            control = solve(xyz, u, count, knots);
+            iteration++;
+            max = 0;
+            double sum = 0;
+            locator.reset(knots, p);
+            for (int k = 0; k < count; k++) {
+                double d = deviation(xyz, k, u[k], control, knots);
+                deviations[k] = d;
+                max = Math.max(max, d);
+                sum += d * d;
+            }
+            rms = Math.sqrt(sum / count);
+            if (max <= tolerance || iteration >= maxIterations) {
+                break;
+            }
+            double[] refined = refine(knots, u, deviations, count, tolerance);
+            if (refined == knots) {
+                break;
+            }
+            knots = refined;
+        }
+        int n = knots.length - p - 1;
+        return new FitResult(new NURBSModel(p, knots, control, n), max, rms, iteration);
+    }
+
+    // Knoten so verteilen, dass jede Spanne etwa gleich viele Datenpunkte enthält (NURBS Book 9.68, 9.69)
+    private double[] placeKnots(double[] u, int count, int controlPointCount) {
+        int p = degree;
+        int n = controlPointCount - 1;
+        int m = count - 1;
+        double[] knots = new double[n + p + 2];
+        Arrays.fill(knots, n + 1, knots.length, 1.0);
+        double d = (double) (m + 1) / (n - p + 1);
+        for (int j = 1; j <= n - p; j++) {
+            int i = (int) (j * d);
+            double alpha = j * d - i;
+            knots[p + j] = (1 - alpha) * u[i - 1] + alpha * u[i];
+        }
+        return knots;
+    }
+
+    // Löst die Normalgleichungen für die inneren Kontrollpunkte; Ergebnis gepackt mit Gewicht 1
+    private double[] solve(double[] xyz, double[] u, int count, double[] knots) {
+        int p = degree;
+        int n = knots.length - p - 2;
+        int m = count - 1;
+        int w = p + 1;
+        int unknowns = n - 1;
+        double[] control = new double[(n + 1) * NURBSSnapshot.STRIDE];
+        for (int c = 0; c < 3; c++) {
+            control[c] = xyz[c];
+            control[NURBSSnapshot.STRIDE * n + c] = xyz[3 * m + c];
+        }
+        for (int i = 0; i <= n; i++) {
+            control[NURBSSnapshot.STRIDE * i + 3] = 1.0;
+        }
+        if (unknowns == 0) {
+            return control;
+        }
+        // Band von N^T N: Eintrag (i, i - d) der Unbekannten i (Kontrollpunkt i + 1) an i * w + d
+        double[] band = new double[unknowns * w];
+        double[] rhs = new double[unknowns * 3];
+        locator.reset(knots, p);
+        for (int k = 1; k < m; k++) {
+            int span = locator.find(u[k]);
+            double[] N = evaluator.basisFunctions(span, u[k], p, knots);
+            // Randpunkte sind fest: ihren Anteil vom Datenpunkt abziehen
+            double n0 = span - p == 0 ? N[0] : 0.0;
+            double nn = span == n ? N[p] : 0.0;
+            double rx = xyz[3 * k] - n0 * xyz[0] - nn * xyz[3 * m];
+            double ry = xyz[3 * k + 1] - n0 * xyz[1] - nn * xyz[3 * m + 1];
+            double rz = xyz[3 * k + 2] - n0 * xyz[2] - nn * xyz[3 * m + 2];
+            for (int a = 0; a <= p; a++) {
+                int row = span - p + a - 1;
+                if (row < 0 || row >= unknowns) {
+                    continue;
+                }
+                double na = N[a];
+                rhs[3 * row] += na * rx;
+                rhs[3 * row + 1] += na * ry;
+                rhs[3 * row + 2] += na * rz;
+                for (int b = Math.max(0, a - p); b <= a; b++) {
+                    int col = span - p + b - 1;
+                    if (col >= 0) {
+                        band[row * w + (row - col)] += na * N[b];
+                    }
+                }
+            }
+        }
+        new BandedCholesky(band, unknowns, p).solve(rhs, 3);
+        for (int i = 0; i < unknowns; i++) {
+            System.arraycopy(rhs, 3 * i, control, NURBSSnapshot.STRIDE * (i + 1), 3);
+        }
+        return control;
+    }
+
+    private double deviation(double[] xyz, int k, double u, double[] control, double[] knots) {
+        int p = degree;
+        int span = locator.find(u);
+        double[] N = evaluator.basisFunctions(span, u, p, knots);
+        double x = 0, y = 0, z = 0;
+        for (int j = 0; j <= p; j++) {
+            int o = NURBSSnapshot.STRIDE * (span - p + j);
+            x += N[j] * control[o];
+            y += N[j] * control[o + 1];
+            z += N[j] * control[o + 2];
+        }
+        double dx = xyz[3 * k] - x, dy = xyz[3 * k + 1] - y, dz = xyz[3 * k + 2] - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Teilt jede Spanne mit zu großer Abweichung am Median ihrer Datenparameter.
+    // Gibt knots unverändert zurück, wenn keine Spanne geteilt werden kann.
+    private double[] refine(double[] knots, double[] u, double[] deviations, int count, double tolerance) {
+        int p = degree;
+        double[] inserted = new double[knots.length];
+        int insertedCount = 0;
+        int k = 0;
+        for (int span = p; span < knots.length - p - 1; span++) {
+            double end = knots[span + 1];
+            boolean last = span == knots.length - p - 2;
+            int first = k;
+            boolean bad = false;
+            while (k < count && (u[k] < end || last)) {
+                bad |= deviations[k] > tolerance;
+                k++;
+            }
+            if (bad && k - first >= 2) {
+                int mid = (first + k) >>> 1;
+                double knot = 0.5 * (u[mid - 1] + u[mid]);
+                if (knot > knots[span] && knot < end) {
+                    inserted[insertedCount++] = knot;
+                }
+            }
+        }
+        if (insertedCount == 0) {
+            return knots;
+        }
+        double[] refined = new double[knots.length + insertedCount];
+        int a = 0, b = 0;
+        for (int i = 0; i < refined.length; i++) {
+            refined[i] = b >= insertedCount || (a < knots.length && knots[a] <= inserted[b]) ? knots[a++] : inserted[b++];
+        }
+        return refined;
+    }
+}
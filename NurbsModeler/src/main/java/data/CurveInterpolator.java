@@ -0,0 +1,131 @@
+package data;
+
+/**
+ * Global interpolation of ordered data points by a non-rational B-spline curve
+ * (Piegl/Tiller, "The NURBS Book", 9.2.1 and 9.2.2).
+ * <p>
+ * The knots are averages of p consecutive data parameters, which keeps the collocation matrix
+ * banded: the row of a data point holds only the p+1 basis functions of its span. The system is
+ * solved with a banded LU factorization in O(n p^2) instead of a dense O(n^3) solve.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class CurveInterpolator {
+    private final int degree;
+    private final Parameterization parameterization;
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final SpanLocator locator = new SpanLocator();
+
+    public CurveInterpolator(int degree, Parameterization parameterization) {
+        if (degree < 1)
+            throw new IllegalArgumentException("Degree must be at least 1.");
+        this.degree = degree;
+        this.parameterization = parameterization;
+    }
+
+    /**
+     * Builds a curve through the data points with one control point per data point.
+     * @param xyz   packed x, y, z of the data points
+     * @param count number of data points, more than the degree
+     */
+    public NURBSModel interpolate(double[] xyz, int count) {
+        return interpolate(xyz, count, null, null);
+    }
+
+    /**
+     * Builds a curve through the data points. With end tangents the curve gets two more control
+     * points, and its derivatives at the start and end equal the given vectors.
+     * @param startTangent x, y, z of C'(0), or null
+     * @param endTangent   x, y, z of C'(1), or null; both tangents are given or none,
+     *                     and only for a degree of at least 2
+     */
+    public NURBSModel interpolate(double[] xyz, int count, double[] startTangent, double[] endTangent) {
+        int p = degree;
+        boolean tangents = startTangent != null;
+        if (tangents != (endTangent != null))
+            throw new IllegalArgumentException("Give both end tangents or none.");
+        if (tangents && p < 2)
+            throw new IllegalArgumentException("End tangents need a degree of at least 2.");
+        if (xyz.length < 3 * count)
+            throw new IllegalArgumentException("Not enough data point values.");
+        int size = tangents ? count + 2 : count;
+        if (count < 2 || size <= p)
+            throw new IllegalArgumentException("Degree " + p + " needs more than " + p + " control points.");
+        double[] u = parameterization.compute(xyz, count);
+        double[] knots = averageKnots(u, count, size);
+
+        // Zeile jedes Datenpunkts im Gleichungssystem; mit Tangenten kommen Zeile 1 und size - 2 hinzu
+        int[] rows = new int[count];
+        int[] spans = new int[count];
+        int kl = 0, ku = tangents ? 1 : 0;
+        locator.reset(knots, p);
+        for (int k = 0; k < count; k++) {
+            rows[k] = tangents && k > 0 ? (k == count - 1 ? size - 1 : k + 1) : k;
+            spans[k] = locator.find(u[k]);
+            kl = Math.max(kl, rows[k] - (spans[k] - p));
+            ku = Math.max(ku, spans[k] - rows[k]);
+        }
+        if (tangents) {
+            kl = Math.max(kl, 1);
+        }
+        BandedLU lu = new BandedLU(size, kl, ku);
+        double[] rhs = new double[3 * size];
+        for (int k = 0; k < count; k++) {
+            double[] N = evaluator.basisFunctions(spans[k], u[k], p, knots);
+            for (int j = 0; j <= p; j++) {
+                if (N[j] != 0.0) {
+                    lu.set(rows[k], spans[k] - p + j, N[j]);
+                }
+            }
+            System.arraycopy(xyz, 3 * k, rhs, 3 * rows[k], 3);
+        }
+        if (tangents) {
+            // P1 - P0 = u_{p+1} / p * D0 und P_{n+2} - P_{n+1} = (1 - u_{n+2}) / p * Dn
+            double s0 = knots[p + 1] / p, s1 = (1.0 - knots[size - 1]) / p;
+            lu.set(1, 0, -1.0);
+            lu.set(1, 1, 1.0);
+            lu.set(size - 2, size - 2, -1.0);
+            lu.set(size - 2, size - 1, 1.0);
+            for (int c = 0; c < 3; c++) {
+                rhs[3 + c] = s0 * startTangent[c];
+                rhs[3 * (size - 2) + c] = s1 * endTangent[c];
+            }
+        }
+        lu.factor();
+        lu.solve(rhs, 3);
+
+        double[] control = new double[size * NURBSSnapshot.STRIDE];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(rhs, 3 * i, control, NURBSSnapshot.STRIDE * i, 3);
+            control[NURBSSnapshot.STRIDE * i + 3] = 1.0;
+        }
+        return new NURBSModel(p, knots, control, size);
+    }
+
+    // Geklemmter Knotenvektor, innere Knoten als gleitender Mittelwert über p Parameter (NURBS Book 9.8, 9.22)
+    private double[] averageKnots(double[] u, int count, int size) {
+        int p = degree;
+        double[] knots = new double[size + p + 1];
+        for (int i = size; i < knots.length; i++) {
+            knots[i] = 1.0;
+        }
+        int inner = size - p - 1;
+        if (inner <= 0) {
+            return knots;
+        }
+        // Ohne Tangenten beginnt das Fenster bei u_1, mit Tangenten bei u_0
+        int first = size == count ? 1 : 0;
+        double sum = 0;
+        for (int i = first; i < first + p; i++) {
+            sum += u[i];
+        }
+        for (int j = 1; j <= inner; j++) {
+            knots[p + j] = sum / p;
+            int start = first + j - 1;
+            if (j < inner) {
+                sum += u[start + p] - u[start];
+            }
+        }
+        return knots;
+    }
+}
@@ -0,0 +1,55 @@
+package data;
+
+/**
+ * A point where two curves, or two parts of one curve, meet within the tolerance of the search.
+ */
+public final class CurveIntersection {
+    private final double parameterA;
+    private final double parameterB;
+    private final double x, y, z;
+    private final double distance;
+
+    CurveIntersection(double parameterA, double parameterB, double x, double y, double z, double distance) {
+        this.parameterA = parameterA;
+        this.parameterB = parameterB;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.distance = distance;
+    }
+
+    /**
+     * @return the parameter on the first curve; for self-intersections the smaller of the two
+     */
+    public double getParameterA() {
+        return parameterA;
+    }
+
+    public double getParameterB() {
+        return parameterB;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * @return the remaining distance between the two curve points
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "CurveIntersection[u=" + parameterA + ", v=" + parameterB + ", (" + x + ", " + y + ", " + z + ")]";
+    }
+}
@@ -0,0 +1,347 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds intersections between two curves and self-intersections of one curve.
+ * <p>
+ * Both curves are decomposed into rational Bezier pieces, and a box hierarchy over the pieces of
+ * each curve is traversed pairwise, so only pieces with overlapping boxes become candidate pairs.
+ * Every candidate pair is then refined independently and in parallel: the pieces are split
+ * (de Casteljau) while their boxes still overlap until both are nearly straight, and the remaining
+ * pairs are solved with Newton's method for C_a(u) = C_b(v). Solutions closer than the tolerance
+ * are reported once.
+ * <p>
+ * For self-intersections the pieces are first split until each control polygon advances along its
+ * chord, which rules out a crossing inside a piece; pairs of different pieces are then handled as
+ * above, and the trivial solutions u == v where neighbouring pieces meet are dropped. If the curve
+ * is closed (its first and last control points coincide), the seam where the end meets the start is
+ * dropped as well.
+ * <p>
+ * Knot vectors must be clamped. Sections where two curves coincide are not reported as ranges.
+ */
+public class CurveIntersector {
+    // Ein Stück gilt als gerade, wenn kein Kontrollpunkt weiter als dieser Anteil seiner Größe von der Sehne liegt
+    private static final double FLATNESS = 1e-2;
+    private static final int MAX_DEPTH = 48;
+    private static final int MAX_MONOTONE_DEPTH = 20;
+    private static final int MAX_NEWTON_STEPS = 32;
+    // Newton darf knapp über das Stück hinauslaufen, der Nachbar findet dieselbe Lösung
+    private static final double PARAMETER_SLACK = 1e-9;
+    private static final double DUPLICATE_EPSILON = 1e-7;
+
+    private final double tolerance;
+
+    /**
+     * @param tolerance largest distance in model units at which two curve points count as the same point
+     */
+    public CurveIntersector(double tolerance) {
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException("Tolerance must be positive.");
+        this.tolerance = tolerance;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @return the intersections of the two curves, sorted by the parameter on curve a
+     */
+    public List<CurveIntersection> intersect(NURBSSnapshot a, NURBSSnapshot b) {
+        if (!a.isValid() || !b.isValid()) {
+            return List.of();
+        }
+        BezierPiece[] piecesA = BezierPiece.decompose(a);
+        BezierPiece[] piecesB = BezierPiece.decompose(b);
+        int[] pairs = collectPairs(new BoxTree(piecesA), new BoxTree(piecesB), false);
+        return solve(piecesA, piecesB, pairs, false, domain(a), domain(b));
+    }
+
+    /**
+     * @return the self-intersections of the curve with u < v, sorted by u; the seam of a closed
+     *         curve is not reported
+     */
+    public List<CurveIntersection> selfIntersections(NURBSSnapshot s) {
+        if (!s.isValid()) {
+            return List.of();
+        }
+        List<BezierPiece> monotone = new ArrayList<>();
+        for (BezierPiece piece : BezierPiece.decompose(s)) {
+            splitMonotone(piece, 0, monotone);
+        }
+        BezierPiece[] pieces = monotone.toArray(new BezierPiece[0]);
+        BoxTree tree = new BoxTree(pieces);
+        int[] pairs = collectPairs(tree, tree, true);
+        double domain = domain(s);
+        List<CurveIntersection> result = solve(pieces, pieces, pairs, true, domain, domain);
+        int n = s.size() - 1;
+        double dx = s.getX(n) - s.getX(0), dy = s.getY(n) - s.getY(0), dz = s.getZ(n) - s.getZ(0);
+        if (Math.sqrt(dx * dx + dy * dy + dz * dz) <= tolerance) {
+            // Geschlossene Kurve: Anfang und Ende treffen sich, das ist kein Schnitt
+            double start = s.getKnot(0), end = s.getKnot(s.getKnotCount() - 1);
+            double eps = 10 * DUPLICATE_EPSILON * Math.max(domain, Double.MIN_NORMAL);
+            result.removeIf(hit -> hit.getParameterA() - start <= eps && end - hit.getParameterB() <= eps);
+        }
+        return result;
+    }
+
+    private static double domain(NURBSSnapshot s) {
+        return s.getKnot(s.getKnotCount() - 1) - s.getKnot(0);
+    }
+
+    private static void splitMonotone(BezierPiece piece, int depth, List<BezierPiece> out) {
+        if (depth >= MAX_MONOTONE_DEPTH || piece.isMonotone()) {
+            out.add(piece);
+            return;
+        }
+        BezierPiece[] halves = piece.split();
+        splitMonotone(halves[0], depth + 1, out);
+        splitMonotone(halves[1], depth + 1, out);
+    }
+
+    // Traverses both hierarchies at once and returns the index pairs of pieces with overlapping boxes.
+    private int[] collectPairs(BoxTree a, BoxTree b, boolean self) {
+        int[] pairs = new int[64];
+        int pairCount = 0;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 1;
+        stack[top++] = 1;
+        while (top > 0) {
+            int nb = stack[--top];
+            int na = stack[--top];
+            if (!overlaps(a.bounds, na * 6, b.bounds, nb * 6)) {
+                continue;
+            }
+            boolean leafA = na >= a.size, leafB = nb >= b.size;
+            if (top + 8 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            if (leafA && leafB) {
+                int i = na - a.size, j = nb - b.size;
+                if (self && i == j) {
+                    continue;
+                }
+                if (pairCount + 2 > pairs.length) {
+                    pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                }
+                pairs[pairCount++] = i;
+                pairs[pairCount++] = j;
+            } else if (self && na == nb) {
+                // Auf der Diagonale nur (L, L), (L, R) und (R, R), damit jedes Paar einmal vorkommt
+                stack[top++] = 2 * na;
+                stack[top++] = 2 * na;
+                stack[top++] = 2 * na;
+                stack[top++] = 2 * na + 1;
+                stack[top++] = 2 * na + 1;
+                stack[top++] = 2 * na + 1;
+            } else if (!leafA && (leafB || a.extent(na) >= b.extent(nb))) {
+                stack[top++] = 2 * na;
+                stack[top++] = nb;
+                stack[top++] = 2 * na + 1;
+                stack[top++] = nb;
+            } else {
+                stack[top++] = na;
+                stack[top++] = 2 * nb;
+                stack[top++] = na;
+                stack[top++] = 2 * nb + 1;
+            }
+        }
+        return Arrays.copyOf(pairs, pairCount);
+    }
+
+    private List<CurveIntersection> solve(BezierPiece[] a, BezierPiece[] b, int[] pairs, boolean self,
+                                          double domainA, double domainB) {
+        int pairCount = pairs.length / 2;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<CurveIntersection>[] found = new List[pairCount];
+        // Die Kandidatenpaare sind unabhängig voneinander
+        IntStream.range(0, pairCount).parallel().forEach(i -> {
+            Refiner refiner = new Refiner(a[pairs[2 * i]].degree, b[pairs[2 * i + 1]].degree);
+            refiner.refine(a[pairs[2 * i]], b[pairs[2 * i + 1]], 0);
+            found[i] = refiner.found;
+        });
+
+        double epsA = DUPLICATE_EPSILON * Math.max(domainA, Double.MIN_NORMAL);
+        double epsB = DUPLICATE_EPSILON * Math.max(domainB, Double.MIN_NORMAL);
+        List<CurveIntersection> all = new ArrayList<>();
+        for (List<CurveIntersection> list : found) {
+            for (CurveIntersection hit : list) {
+                if (self) {
+                    if (Math.abs(hit.getParameterA() - hit.getParameterB()) <= 10 * epsA) {
+                        continue;
+                    }
+                    if (hit.getParameterA() > hit.getParameterB()) {
+                        hit = new CurveIntersection(hit.getParameterB(), hit.getParameterA(),
+                                hit.getX(), hit.getY(), hit.getZ(), hit.getDistance());
+                    }
+                }
+                all.add(hit);
+            }
+        }
+        all.sort(Comparator.comparingDouble(CurveIntersection::getParameterA));
+
+        // Doppelte Lösungen benachbarter Kandidaten zusammenfassen, die genauere bleibt
+        List<CurveIntersection> result = new ArrayList<>();
+        int windowStart = 0;
+        for (CurveIntersection hit : all) {
+            while (windowStart < result.size()
+                    && hit.getParameterA() - result.get(windowStart).getParameterA() > epsA) {
+                windowStart++;
+            }
+            boolean duplicate = false;
+            for (int i = windowStart; i < result.size(); i++) {
+                CurveIntersection kept = result.get(i);
+                if (Math.abs(kept.getParameterB() - hit.getParameterB()) <= epsB) {
+                    if (hit.getDistance() < kept.getDistance()) {
+                        result.set(i, hit);
+                    }
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                result.add(hit);
+            }
+        }
+        return result;
+    }
+
+    private boolean overlaps(double[] a, int oa, double[] b, int ob) {
+        double t = tolerance;
+        return a[oa] <= b[ob + 3] + t && b[ob] <= a[oa + 3] + t
+                && a[oa + 1] <= b[ob + 4] + t && b[ob + 1] <= a[oa + 4] + t
+                && a[oa + 2] <= b[ob + 5] + t && b[ob + 2] <= a[oa + 5] + t;
+    }
+
+    // Refines one candidate pair; one instance per task, so the scratch arrays are not shared.
+    private final class Refiner {
+        final List<CurveIntersection> found = new ArrayList<>();
+        final double[] scratchA, scratchB;
+        final double[] pa = new double[6], pb = new double[6];
+
+        Refiner(int degreeA, int degreeB) {
+            scratchA = new double[(degreeA + 1) * 4];
+            scratchB = new double[(degreeB + 1) * 4];
+        }
+
+        void refine(BezierPiece a, BezierPiece b, int depth) {
+            if (!overlaps(a.box, 0, b.box, 0)) {
+                return;
+            }
+            boolean flatA = a.size() <= tolerance || a.flatness() <= FLATNESS * a.size();
+            boolean flatB = b.size() <= tolerance || b.flatness() <= FLATNESS * b.size();
+            if ((flatA && flatB) || depth >= MAX_DEPTH) {
+                newton(a, b);
+                return;
+            }
+            if (!flatA && (flatB || a.size() >= b.size())) {
+                BezierPiece[] halves = a.split();
+                refine(halves[0], b, depth + 1);
+                refine(halves[1], b, depth + 1);
+            } else {
+                BezierPiece[] halves = b.split();
+                refine(a, halves[0], depth + 1);
+                refine(a, halves[1], depth + 1);
+            }
+        }
+
+        void newton(BezierPiece a, BezierPiece b) {
+            // Startwert: nächstgelegene Punkte der beiden Sehnen
+            double s = 0.5, t = 0.5;
+            a.evaluate(0, scratchA, pa);
+            double ax = pa[0], ay = pa[1], az = pa[2];
+            a.evaluate(1, scratchA, pa);
+            double dax = pa[0] - ax, day = pa[1] - ay, daz = pa[2] - az;
+            b.evaluate(0, scratchB, pb);
+            double bx = pb[0], by = pb[1], bz = pb[2];
+            b.evaluate(1, scratchB, pb);
+            double dbx = pb[0] - bx, dby = pb[1] - by, dbz = pb[2] - bz;
+            double aa = dax * dax + day * day + daz * daz, bb = dbx * dbx + dby * dby + dbz * dbz;
+            double ab = dax * dbx + day * dby + daz * dbz;
+            double rx = ax - bx, ry = ay - by, rz = az - bz;
+            double ra = rx * dax + ry * day + rz * daz, rb = rx * dbx + ry * dby + rz * dbz;
+            double det = aa * bb - ab * ab;
+            if (det > 1e-12 * aa * bb) {
+                s = Math.max(0, Math.min(1, (ab * rb - bb * ra) / det));
+                t = Math.max(0, Math.min(1, (aa * rb - ab * ra) / det));
+            }
+
+            // Gauß-Newton für C_a(s) - C_b(t) = 0, im Raum als kleinste Quadrate
+            for (int step = 0; step < MAX_NEWTON_STEPS; step++) {
+                a.evaluate(s, scratchA, pa);
+                b.evaluate(t, scratchB, pb);
+                double fx = pa[0] - pb[0], fy = pa[1] - pb[1], fz = pa[2] - pb[2];
+                double a11 = pa[3] * pa[3] + pa[4] * pa[4] + pa[5] * pa[5];
+                double a22 = pb[3] * pb[3] + pb[4] * pb[4] + pb[5] * pb[5];
+                double a12 = -(pa[3] * pb[3] + pa[4] * pb[4] + pa[5] * pb[5]);
+                double r1 = pa[3] * fx + pa[4] * fy + pa[5] * fz;
+                double r2 = -(pb[3] * fx + pb[4] * fy + pb[5] * fz);
+                double d = a11 * a22 - a12 * a12;
+                if (!(d > 1e-30 * a11 * a22)) {
+                    break;
+                }
+                double ds = -(a22 * r1 - a12 * r2) / d;
+                double dt = -(a11 * r2 - a12 * r1) / d;
+                s += ds;
+                t += dt;
+                if (s < -1 || s > 2 || t < -1 || t > 2) {
+                    return;
+                }
+                if (Math.abs(ds) + Math.abs(dt) < 1e-15) {
+                    break;
+                }
+            }
+            if (s < -PARAMETER_SLACK || s > 1 + PARAMETER_SLACK || t < -PARAMETER_SLACK || t > 1 + PARAMETER_SLACK) {
+                return;
+            }
+            s = Math.max(0, Math.min(1, s));
+            t = Math.max(0, Math.min(1, t));
+            a.evaluate(s, scratchA, pa);
+            b.evaluate(t, scratchB, pb);
+            double fx = pa[0] - pb[0], fy = pa[1] - pb[1], fz = pa[2] - pb[2];
+            double distance = Math.sqrt(fx * fx + fy * fy + fz * fz);
+            if (distance <= tolerance) {
+                found.add(new CurveIntersection(a.t0 + s * (a.t1 - a.t0), b.t0 + t * (b.t1 - b.t0),
+                        0.5 * (pa[0] + pb[0]), 0.5 * (pa[1] + pb[1]), 0.5 * (pa[2] + pb[2]), distance));
+            }
+        }
+    }
+
+    // Complete binary tree of piece boxes; node 1 is the root, the leaves are at size..size+count-1.
+    private static final class BoxTree {
+        final int size;
+        // minX, minY, minZ, maxX, maxY, maxZ per node
+        final double[] bounds;
+
+        BoxTree(BezierPiece[] pieces) {
+            int count = pieces.length;
+            size = count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+            bounds = new double[12 * size];
+            for (int node = 0; node < 2 * size; node++) {
+                Arrays.fill(bounds, 6 * node, 6 * node + 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(bounds, 6 * node + 3, 6 * node + 6, Double.NEGATIVE_INFINITY);
+            }
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(pieces[i].box, 0, bounds, 6 * (size + i), 6);
+            }
+            for (int node = size - 1; node >= 1; node--) {
+                int o = 6 * node, l = 12 * node, r = l + 6;
+                for (int c = 0; c < 3; c++) {
+                    bounds[o + c] = Math.min(bounds[l + c], bounds[r + c]);
+                    bounds[o + 3 + c] = Math.max(bounds[l + 3 + c], bounds[r + 3 + c]);
+                }
+            }
+        }
+
+        double extent(int node) {
+            int o = 6 * node;
+            return Math.max(bounds[o + 3] - bounds[o], Math.max(bounds[o + 4] - bounds[o + 1], bounds[o + 5] - bounds[o + 2]));
+        }
+    }
+}
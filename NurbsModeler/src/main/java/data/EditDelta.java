@@ -0,0 +1,46 @@
+package data;
+
+/**
+ * A compact, invertible description of one edit of a {@link NURBSModel}.
+ * Deltas only hold the values that actually change, never a copy of the whole model.
+ */
+public abstract class EditDelta {
+
+    abstract void applyTo(NURBSSnapshot.Builder b);
+
+    /**
+     * @return the delta that reverts this one
+     */
+    public abstract EditDelta inverse();
+
+    /**
+     * @return true if the edit changes the number of control points or knots or the degree,
+     * which shifts span indices and invalidates everything derived from the model
+     */
+    public abstract boolean isStructural();
+
+    /**
+     * @return the first changed control point index after the edit, or -1 if no point changed
+     */
+    public abstract int getFirstPoint();
+
+    /**
+     * @return the last changed control point index after the edit, or -1 if no point changed
+     */
+    public abstract int getLastPoint();
+
+    /**
+     * @return the first changed knot index after the edit, or -1 if no knot changed
+     */
+    public abstract int getFirstKnot();
+
+    /**
+     * @return the last changed knot index after the edit, or -1 if no knot changed
+     */
+    public abstract int getLastKnot();
+
+    /**
+     * @return an estimate of the heap memory held by this delta in bytes
+     */
+    public abstract long estimateSize();
+}
@@ -0,0 +1,168 @@
+package data;
+
+import java.util.ArrayDeque;
+
+/**
+ * Undo/redo history of a {@link NURBSModel}, recorded as compact {@link EditDelta}s.
+ * <p>
+ * Consecutive moves of the same control point or knot within one gesture are merged into a single
+ * delta, so a drag costs one entry no matter how many mouse events it produced.
+ * The oldest entries are dropped once the history exceeds its memory cap.
+ */
+public class EditJournal implements EditListener {
+    public static final long DEFAULT_MEMORY_CAP = 64L << 20;
+
+    private final NURBSModel model;
+    private final ArrayDeque<EditDelta> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<EditDelta> redoStack = new ArrayDeque<>();
+    private long memoryCap;
+    private long memoryUsage;
+    // True while the last recorded delta may still absorb later moves of the same point or knot.
+    private boolean mergeOpen;
+    private boolean applying;
+
+    public EditJournal(NURBSModel model) {
+        this(model, DEFAULT_MEMORY_CAP);
+    }
+
+    /**
+     * @param model     the model to record
+     * @param memoryCap maximum estimated size of the history in bytes
+     */
+    public EditJournal(NURBSModel model, long memoryCap) {
+        this.model = model;
+        this.memoryCap = memoryCap;
+        model.addEditListener(this);
+    }
+
+    // All state is guarded by the model lock, which is already held when edits are reported.
+    @Override
+    public void edited(NURBSSnapshot snapshot, EditDelta delta) {
+        if (applying) {
+            return;
+        }
+        redoStack.forEach(d -> memoryUsage -= d.estimateSize());
+        redoStack.clear();
+
+        if (mergeOpen && delta instanceof PointEdit move
+                && undoStack.peekLast() instanceof PointEdit last && last.getIndex() == move.getIndex()) {
+            undoStack.pollLast();
+            undoStack.addLast(last.mergeWith(move));
+        } else if (mergeOpen && delta instanceof SpliceEdit move
+                && undoStack.peekLast() instanceof SpliceEdit last && last.canMergeWith(move)) {
+            undoStack.pollLast();
+            undoStack.addLast(last.mergeWith(move));
+        } else {
+            undoStack.addLast(delta);
+            memoryUsage += delta.estimateSize();
+        }
+        mergeOpen = true;
+        trim();
+    }
+
+    @Override
+    public void gestureEnded() {
+        synchronized (model) {
+            mergeOpen = false;
+        }
+    }
+
+    public boolean canUndo() {
+        synchronized (model) {
+            return !undoStack.isEmpty();
+        }
+    }
+
+    public boolean canRedo() {
+        synchronized (model) {
+            return !redoStack.isEmpty();
+        }
+    }
+
+    /**
+     * Reverts the most recent edit.
+     * @return the delta that was applied to the model, or null if there is nothing to undo
+     */
+    public EditDelta undo() {
+        synchronized (model) {
+            EditDelta delta = undoStack.pollLast();
+            if (delta == null) {
+                return null;
+            }
+            EditDelta applied = apply(delta.inverse());
+            redoStack.addLast(delta);
+            return applied;
+        }
+    }
+
+    /**
+     * Re-applies the most recently undone edit.
+     * @return the delta that was applied to the model, or null if there is nothing to redo
+     */
+    public EditDelta redo() {
+        synchronized (model) {
+            EditDelta delta = redoStack.pollLast();
+            if (delta == null) {
+                return null;
+            }
+            EditDelta applied = apply(delta);
+            undoStack.addLast(delta);
+            return applied;
+        }
+    }
+
+    /**
+     * Drops the whole history.
+     */
+    public void clear() {
+        synchronized (model) {
+            undoStack.clear();
+            redoStack.clear();
+            memoryUsage = 0;
+            mergeOpen = false;
+        }
+    }
+
+    public long getMemoryCap() {
+        synchronized (model) {
+            return memoryCap;
+        }
+    }
+
+    public void setMemoryCap(long memoryCap) {
+        synchronized (model) {
+            this.memoryCap = memoryCap;
+            trim();
+        }
+    }
+
+    /**
+     * @return the estimated size of the recorded history in bytes
+     */
+    public long getMemoryUsage() {
+        synchronized (model) {
+            return memoryUsage;
+        }
+    }
+
+    private EditDelta apply(EditDelta delta) {
+        mergeOpen = false;
+        applying = true;
+        try {
+            model.applyEdit(delta);
+        } finally {
+            applying = false;
+        }
+        return delta;
+    }
+
+    private void trim() {
+        // Oldest undo entries go first, then the redo entries farthest away from the current state.
+        while (memoryUsage > memoryCap && !undoStack.isEmpty()) {
+            memoryUsage -= undoStack.pollFirst().estimateSize();
+        }
+        while (memoryUsage > memoryCap && !redoStack.isEmpty()) {
+            memoryUsage -= redoStack.pollFirst().estimateSize();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package data;
+
+import java.util.EventListener;
+
+/**
+ * Receives every edit published by a {@link NURBSModel}.
+ * Callbacks run on the writing thread while the model is locked, in publication order.
+ */
+public interface EditListener extends EventListener {
+    /**
+     * @param snapshot the state after the edit
+     * @param delta    the edit that produced it
+     */
+    void edited(NURBSSnapshot snapshot, EditDelta delta);
+
+    /**
+     * Called when a continuous edit such as a drag has ended.
+     */
+    default void gestureEnded() {
+    }
+}
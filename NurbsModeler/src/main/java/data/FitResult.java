@@ -0,0 +1,49 @@
+package data;
+
+/**
+ * Outcome of a {@link CurveFitter} run: the fitted curve and how far the data points lie from it.
+ */
+public final class FitResult {
+    private final NURBSModel model;
+    private final double maxDeviation;
+    private final double rmsDeviation;
+    private final int iterations;
+
+    FitResult(NURBSModel model, double maxDeviation, double rmsDeviation, int iterations) {
+        this.model = model;
+        this.maxDeviation = maxDeviation;
+        this.rmsDeviation = rmsDeviation;
+        this.iterations = iterations;
+    }
+
+    public NURBSModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return the largest distance |Q_k - C(u_k)| over all data points
+     */
+    public double getMaxDeviation() {
+        return maxDeviation;
+    }
+
+    /**
+     * @return the root mean square of the distances |Q_k - C(u_k)|
+     */
+    public double getRmsDeviation() {
+        return rmsDeviation;
+    }
+
+    /**
+     * @return the number of least-squares solves, 1 without refinement
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FitResult{points=%d, max=%.3g, rms=%.3g, iterations=%d}",
+                model.snapshot().size(), maxDeviation, rmsDeviation, iterations);
+    }
+}
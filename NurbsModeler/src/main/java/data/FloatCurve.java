@@ -0,0 +1,163 @@
+package data;
+
+/**
+ * Single-precision copy of a curve for display-only evaluation.
+ * <p>
+ * Control points are stored as homogeneous {@code w*x, w*y, w*z, w} floats relative to an origin
+ * (the center of the control point box at the last {@link #load}), so their precision follows the size
+ * of the curve and not its distance from the model origin. That halves the memory of the point buffer
+ * compared to {@link NURBSSnapshot}. Results are accurate to about 1e-7 of the curve's extent, far below
+ * a pixel at ordinary zoom levels; exports, knot operations and analysis keep using double precision.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class FloatCurve {
+    private int degree;
+    private float[] points = new float[0];
+    private float[] knots = new float[0];
+    private double originX, originY, originZ;
+    private float[] deBoor = new float[0];
+
+    /**
+     * Copies all control points and knots of the snapshot and picks a new origin.
+     */
+    public void load(NURBSSnapshot s) {
+        degree = s.getDegree();
+        int n = s.size();
+        if (points.length != n * NURBSSnapshot.STRIDE) {
+            points = new float[n * NURBSSnapshot.STRIDE];
+        }
+        if (knots.length != s.getKnotCount()) {
+            knots = new float[s.getKnotCount()];
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, s.getX(i));
+            maxX = Math.max(maxX, s.getX(i));
+            minY = Math.min(minY, s.getY(i));
+            maxY = Math.max(maxY, s.getY(i));
+            minZ = Math.min(minZ, s.getZ(i));
+            maxZ = Math.max(maxZ, s.getZ(i));
+        }
+        originX = n > 0 ? 0.5 * (minX + maxX) : 0;
+        originY = n > 0 ? 0.5 * (minY + maxY) : 0;
+        originZ = n > 0 ? 0.5 * (minZ + maxZ) : 0;
+        for (int i = 0; i < n; i++) {
+            copyPoint(s, i);
+        }
+        for (int i = 0; i < knots.length; i++) {
+            knots[i] = (float) s.getKnot(i);
+        }
+    }
+
+    /**
+     * Copies the control points k-p..k and the knots k-p+1..k+p that span k depends on, keeping the origin.
+     * The snapshot must have the structure of the one last passed to {@link #load}.
+     */
+    public void updateSpan(NURBSSnapshot s, int k) {
+        int p = degree;
+        for (int i = k - p; i <= k; i++) {
+            copyPoint(s, i);
+        }
+        for (int i = k - p + 1; i <= k + p; i++) {
+            knots[i] = (float) s.getKnot(i);
+        }
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    public double getOriginZ() {
+        return originZ;
+    }
+
+    /**
+     * @return knot i as stored, in single precision
+     */
+    public float getKnot(int i) {
+        return knots[i];
+    }
+
+    /**
+     * Evaluates the curve at u in span k with de Boor's algorithm in single precision.
+     * @param out receives x, y, z relative to the origin at indices o..o+2
+     */
+    public void point(int k, float u, float[] out, int o) {
+        int p = degree;
+        if (deBoor.length < (p + 1) * 4) {
+            deBoor = new float[(p + 1) * 4];
+        }
+        float[] d = deBoor;
+        System.arraycopy(points, (k - p) * NURBSSnapshot.STRIDE, d, 0, (p + 1) * 4);
+        for (int r = 1; r <= p; r++) {
+            for (int j = p; j >= r; j--) {
+                int i = k - p + j;
+                float denominator = knots[i + p - r + 1] - knots[i];
+                // Knoten, die erst in float zusammenfallen, dürfen kein NaN erzeugen
+                float alpha = denominator == 0f ? 0f : (u - knots[i]) / denominator;
+                for (int c = 0; c < 4; c++) {
+                    d[4 * j + c] = (1 - alpha) * d[4 * (j - 1) + c] + alpha * d[4 * j + c];
+                }
+            }
+        }
+        float w = d[4 * p + 3];
+        out[o] = d[4 * p] / w;
+        out[o + 1] = d[4 * p + 1] / w;
+        out[o + 2] = d[4 * p + 2] / w;
+    }
+
+    /**
+     * Compares single- and double-precision tessellation of a curve: every non-empty span is sampled at
+     * segments + 1 equally spaced parameters, each path computing its parameters in its own precision.
+     * @return the largest distance between corresponding points, in model units
+     */
+    public static double maxDeviation(NURBSSnapshot s, int segments) {
+        if (!s.isValid()) {
+            return 0.0;
+        }
+        FloatCurve curve = new FloatCurve();
+        curve.load(s);
+        NURBSEvaluator evaluator = new NURBSEvaluator();
+        double[] exact = new double[3];
+        float[] approx = new float[3];
+        double max = 0.0;
+        int p = s.getDegree();
+        for (int k = p; k < s.size(); k++) {
+            double u0 = s.getKnot(k), u1 = s.getKnot(k + 1);
+            if (u0 == u1) {
+                continue;
+            }
+            float f0 = curve.getKnot(k), f1 = curve.getKnot(k + 1);
+            for (int i = 0; i <= segments; i++) {
+                double u = i == segments ? u1 : u0 + (u1 - u0) * i / segments;
+                float f = i == segments ? f1 : f0 + (f1 - f0) * i / segments;
+                evaluator.point(s, k, u, exact);
+                curve.point(k, f, approx, 0);
+                double dx = curve.originX + approx[0] - exact[0];
+                double dy = curve.originY + approx[1] - exact[1];
+                double dz = curve.originZ + approx[2] - exact[2];
+                max = Math.max(max, Math.sqrt(dx * dx + dy * dy + dz * dz));
+            }
+        }
+        return max;
+    }
+
+    private void copyPoint(NURBSSnapshot s, int i) {
+        int o = i * NURBSSnapshot.STRIDE;
+        double w = s.getWeight(i);
+        points[o] = (float) ((s.getX(i) - originX) * w);
+        points[o + 1] = (float) ((s.getY(i) - originY) * w);
+        points[o + 2] = (float) ((s.getZ(i) - originZ) * w);
+        points[o + 3] = (float) w;
+    }
+}
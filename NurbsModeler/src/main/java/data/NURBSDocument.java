@@ -0,0 +1,269 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A drawing made of many curves.
+ * <p>
+ * Every curve keeps its own {@link SpanBoundsTree}. On top of them the document keeps a
+ * bounding-volume hierarchy over the boxes of whole curves, so region queries for rendering and
+ * picking visit O(log n + hits) nodes instead of every curve. Editing a curve only marks it; the next
+ * {@link #update()} refreshes its span boxes and refits its leaf and the ancestors of that leaf.
+ * Adding or removing curves rebuilds the hierarchy on the next update.
+ */
+public class NURBSDocument {
+    private final List<NURBSModel> curves = new ArrayList<>();
+    private final Map<NURBSModel, Entry> entries = new IdentityHashMap<>();
+    private final BitSet dirty = new BitSet();
+    private boolean rebuild;
+
+    // Binärer Baum in Feldern: Knoten 0 ist die Wurzel, Blätter haben child == -1
+    private int nodeCount;
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] parent = new int[0];
+    private int[] leafCurve = new int[0];
+    // minX, minY, maxX, maxY pro Knoten
+    private double[] bounds = new double[0];
+    // Blatt jeder Kurve
+    private int[] leafOf = new int[0];
+    private int[] stack = new int[64];
+    private final double[] scratchBounds = new double[4];
+
+    private final class Entry implements EditListener {
+        final NURBSModel model;
+        final SpanBoundsTree spanBounds;
+        int index;
+
+        Entry(NURBSModel model) {
+            this.model = model;
+            this.spanBounds = new SpanBoundsTree(model);
+        }
+
+        @Override
+        public void edited(NURBSSnapshot snapshot, EditDelta delta) {
+            synchronized (NURBSDocument.this) {
+                dirty.set(index);
+            }
+        }
+    }
+
+    /**
+     * Adds a curve to the document.
+     * @return the index of the curve
+     */
+    public synchronized int addCurve(NURBSModel model) {
+        if (entries.containsKey(model))
+            throw new IllegalArgumentException("Curve is already part of the document.");
+        Entry entry = new Entry(model);
+        entry.index = curves.size();
+        curves.add(model);
+        entries.put(model, entry);
+        model.addEditListener(entry);
+        rebuild = true;
+        return entry.index;
+    }
+
+    public synchronized void removeCurve(NURBSModel model) {
+        Entry entry = entries.remove(model);
+        if (entry == null) {
+            return;
+        }
+        model.removeEditListener(entry);
+        model.removeEditListener(entry.spanBounds);
+        curves.remove(entry.index);
+        for (int i = entry.index; i < curves.size(); i++) {
+            entries.get(curves.get(i)).index = i;
+        }
+        rebuild = true;
+    }
+
+    public synchronized int getCurveCount() {
+        return curves.size();
+    }
+
+    public synchronized NURBSModel getCurve(int index) {
+        return curves.get(index);
+    }
+
+    /**
+     * @return a copy of the list of curves
+     */
+    public synchronized List<NURBSModel> getCurves() {
+        return new ArrayList<>(curves);
+    }
+
+    /**
+     * @return the span hierarchy of a curve of this document; it is kept up to date by {@link #update()}
+     */
+    public synchronized SpanBoundsTree getSpanBounds(NURBSModel model) {
+        Entry entry = entries.get(model);
+        if (entry == null)
+            throw new IllegalArgumentException("Curve is not part of the document.");
+        return entry.spanBounds;
+    }
+
+    /**
+     * Brings the span hierarchies of edited curves and the curve hierarchy up to date.
+     */
+    public synchronized void update() {
+        if (rebuild) {
+            for (NURBSModel model : curves) {
+                entries.get(model).spanBounds.update();
+            }
+            build();
+            dirty.clear();
+            rebuild = false;
+            return;
+        }
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            Entry entry = entries.get(curves.get(i));
+            entry.spanBounds.update();
+            int leaf = leafOf[i];
+            entry.spanBounds.getBounds(scratchBounds);
+            System.arraycopy(scratchBounds, 0, bounds, 4 * leaf, 4);
+            for (int node = parent[leaf]; node >= 0; node = parent[node]) {
+                refit(node);
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Reports every curve whose box intersects the given rectangle. Call {@link #update()} first.
+     */
+    public synchronized void query(double minX, double minY, double maxX, double maxY, Consumer<NURBSModel> found) {
+        if (nodeCount == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int o = 4 * node;
+            if (bounds[o] > maxX || bounds[o + 1] > maxY || bounds[o + 2] < minX || bounds[o + 3] < minY) {
+                continue;
+            }
+            if (left[node] < 0) {
+                found.accept(curves.get(leafCurve[node]));
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = right[node];
+                stack[top++] = left[node];
+            }
+        }
+    }
+
+    /**
+     * Writes the box around all curves as minX, minY, maxX, maxY; empty (min > max) without curves.
+     */
+    public synchronized void getBounds(double[] out) {
+        if (nodeCount == 0) {
+            out[0] = out[1] = Double.POSITIVE_INFINITY;
+            out[2] = out[3] = Double.NEGATIVE_INFINITY;
+        } else {
+            System.arraycopy(bounds, 0, out, 0, 4);
+        }
+    }
+
+    // Baut die Hierarchie von oben nach unten, geteilt am Median der Boxmittelpunkte entlang der längeren Achse.
+    private void build() {
+        int n = curves.size();
+        int capacity = Math.max(1, 2 * n - 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        leafCurve = new int[capacity];
+        bounds = new double[4 * capacity];
+        leafOf = new int[n];
+        nodeCount = 0;
+        if (n == 0) {
+            return;
+        }
+        double[] boxes = new double[4 * n];
+        double[] centers = new double[2 * n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            entries.get(curves.get(i)).spanBounds.getBounds(scratchBounds);
+            System.arraycopy(scratchBounds, 0, boxes, 4 * i, 4);
+            // Leere Kurven werden irgendwo einsortiert, ihre Box schneidet nichts
+            boolean empty = scratchBounds[0] > scratchBounds[2];
+            centers[2 * i] = empty ? 0 : 0.5 * (scratchBounds[0] + scratchBounds[2]);
+            centers[2 * i + 1] = empty ? 0 : 0.5 * (scratchBounds[1] + scratchBounds[3]);
+            order[i] = i;
+        }
+        build(order, 0, n, -1, boxes, centers);
+    }
+
+    private int build(int[] order, int from, int to, int parentNode, double[] boxes, double[] centers) {
+        int node = nodeCount++;
+        parent[node] = parentNode;
+        if (to - from == 1) {
+            int curve = order[from];
+            left[node] = right[node] = -1;
+            leafCurve[node] = curve;
+            leafOf[curve] = node;
+            System.arraycopy(boxes, 4 * curve, bounds, 4 * node, 4);
+            return node;
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int c = order[i];
+            minX = Math.min(minX, centers[2 * c]);
+            maxX = Math.max(maxX, centers[2 * c]);
+            minY = Math.min(minY, centers[2 * c + 1]);
+            maxY = Math.max(maxY, centers[2 * c + 1]);
+        }
+        int axis = maxX - minX >= maxY - minY ? 0 : 1;
+        int mid = (from + to) >>> 1;
+        select(order, from, to - 1, mid, centers, axis);
+        left[node] = build(order, from, mid, node, boxes, centers);
+        right[node] = build(order, mid, to, node, boxes, centers);
+        leafCurve[node] = -1;
+        refit(node);
+        return node;
+    }
+
+    // Quickselect: ordnet order[from..to] so, dass order[k] an seiner sortierten Position steht.
+    private static void select(int[] order, int from, int to, int k, double[] centers, int axis) {
+        while (from < to) {
+            double pivot = centers[2 * order[(from + to) >>> 1] + axis];
+            int i = from, j = to;
+            while (i <= j) {
+                while (centers[2 * order[i] + axis] < pivot) i++;
+                while (centers[2 * order[j] + axis] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void refit(int node) {
+        int o = 4 * node, l = 4 * left[node], r = 4 * right[node];
+        bounds[o] = Math.min(bounds[l], bounds[r]);
+        bounds[o + 1] = Math.min(bounds[l + 1], bounds[r + 1]);
+        bounds[o + 2] = Math.max(bounds[l + 2], bounds[r + 2]);
+        bounds[o + 3] = Math.max(bounds[l + 3], bounds[r + 3]);
+    }
+}
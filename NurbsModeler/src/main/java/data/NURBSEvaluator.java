@@ -0,0 +1,177 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates NURBS curves span by span using only the p+1 non-zero basis functions
+ * (Piegl/Tiller, "The NURBS Book", A2.2) and their derivatives (A2.3).
+ * <p>
+ * Instances keep their scratch arrays between calls and are not thread-safe;
+ * use one evaluator per thread.
+ */
+public class NURBSEvaluator {
+    private double[] basis = new double[0];
+    private double[] left = new double[0];
+    private double[] right = new double[0];
+    private double[] ders = new double[0];
+    private double[] ndu = new double[0];
+    private double[] a = new double[0];
+
+    /**
+     * Computes the p+1 non-zero basis functions N_{span-p,p}(u) .. N_{span,p}(u).
+     * @return an internal array holding the values at indices 0..p; it is overwritten by the next call
+     */
+    public double[] basisFunctions(int span, double u, int p, double[] U) {
+        if (basis.length < p + 1) {
+            basis = new double[p + 1];
+            left = new double[p + 1];
+            right = new double[p + 1];
+        }
+        double[] N = basis;
+        N[0] = 1.0;
+        for (int j = 1; j <= p; j++) {
+            left[j] = u - U[span + 1 - j];
+            right[j] = U[span + j] - u;
+            double saved = 0.0;
+            for (int r = 0; r < j; r++) {
+                double temp = N[r] / (right[r + 1] + left[j - r]);
+                N[r] = saved + right[r + 1] * temp;
+                saved = left[j - r] * temp;
+            }
+            N[j] = saved;
+        }
+        return N;
+    }
+
+    /**
+     * Evaluates the curve point at u, which must lie in the knot span with the given index.
+     * @param out receives x, y, z at indices 0..2
+     */
+    public void point(NURBSSnapshot s, int span, double u, double[] out) {
+        int p = s.getDegree();
+        double[] N = basisFunctions(span, u, p, s.knots());
+        double x = 0.0, y = 0.0, z = 0.0, w = 0.0;
+        for (int j = 0; j <= p; j++) {
+            int i = span - p + j;
+            double wN = s.getWeight(i) * N[j];
+            x += s.getX(i) * wN;
+            y += s.getY(i) * wN;
+            z += s.getZ(i) * wN;
+            w += wN;
+        }
+        out[0] = x / w;
+        out[1] = y / w;
+        out[2] = z / w;
+    }
+
+    /**
+     * Computes the basis functions N_{span-p,p} .. N_{span,p} and their derivatives up to order n at u.
+     * @return an internal array; entry k * (p + 1) + j holds the k-th derivative of N_{span-p+j,p}.
+     * Derivatives of order greater than p are zero. The array is overwritten by the next call.
+     */
+    public double[] basisDerivatives(int span, double u, int p, int n, double[] U) {
+        int w = p + 1;
+        if (ders.length < (n + 1) * w) {
+            ders = new double[(n + 1) * w];
+        }
+        if (ndu.length < w * w) {
+            ndu = new double[w * w];
+            a = new double[2 * w];
+        }
+        if (left.length < w) {
+            left = new double[w];
+            right = new double[w];
+            basis = new double[w];
+        }
+        // ndu[j * w + r]: Basisfunktionen (obere Hälfte) und Knotendifferenzen (untere Hälfte)
+        ndu[0] = 1.0;
+        for (int j = 1; j <= p; j++) {
+            left[j] = u - U[span + 1 - j];
+            right[j] = U[span + j] - u;
+            double saved = 0.0;
+            for (int r = 0; r < j; r++) {
+                ndu[j * w + r] = right[r + 1] + left[j - r];
+                double temp = ndu[r * w + j - 1] / ndu[j * w + r];
+                ndu[r * w + j] = saved + right[r + 1] * temp;
+                saved = left[j - r] * temp;
+            }
+            ndu[j * w + j] = saved;
+        }
+        for (int j = 0; j <= p; j++) {
+            ders[j] = ndu[j * w + p];
+        }
+        for (int k = p + 1; k <= n; k++) {
+            Arrays.fill(ders, k * w, (k + 1) * w, 0.0);
+        }
+        // a[s * w + j] mit zwei abwechselnden Zeilen
+        for (int r = 0; r <= p; r++) {
+            int s1 = 0, s2 = 1;
+            a[0] = 1.0;
+            for (int k = 1; k <= Math.min(n, p); k++) {
+                double d = 0.0;
+                int rk = r - k, pk = p - k;
+                if (r >= k) {
+                    a[s2 * w] = a[s1 * w] / ndu[(pk + 1) * w + rk];
+                    d = a[s2 * w] * ndu[rk * w + pk];
+                }
+                int j1 = rk >= -1 ? 1 : -rk;
+                int j2 = r - 1 <= pk ? k - 1 : p - r;
+                for (int j = j1; j <= j2; j++) {
+                    a[s2 * w + j] = (a[s1 * w + j] - a[s1 * w + j - 1]) / ndu[(pk + 1) * w + rk + j];
+                    d += a[s2 * w + j] * ndu[(rk + j) * w + pk];
+                }
+                if (r <= pk) {
+                    a[s2 * w + k] = -a[s1 * w + k - 1] / ndu[(pk + 1) * w + r];
+                    d += a[s2 * w + k] * ndu[r * w + pk];
+                }
+                ders[k * w + r] = d;
+                int t = s1;
+                s1 = s2;
+                s2 = t;
+            }
+        }
+        int factor = p;
+        for (int k = 1; k <= Math.min(n, p); k++) {
+            for (int j = 0; j <= p; j++) {
+                ders[k * w + j] *= factor;
+            }
+            factor *= p - k;
+        }
+        return ders;
+    }
+
+    /**
+     * Evaluates the curve point and its first derivative C'(u) at u in the given span.
+     * @param out receives x, y, z at indices 0..2 and dx/du, dy/du, dz/du at indices 3..5
+     */
+    public void derivative(NURBSSnapshot s, int span, double u, double[] out) {
+        int p = s.getDegree();
+        double[] D = basisDerivatives(span, u, p, 1, s.knots());
+        double x = 0.0, y = 0.0, z = 0.0, w = 0.0;
+        double dx = 0.0, dy = 0.0, dz = 0.0, dw = 0.0;
+        for (int j = 0; j <= p; j++) {
+            int i = span - p + j;
+            double px = s.getX(i), py = s.getY(i), pz = s.getZ(i), pw = s.getWeight(i);
+            double wN = pw * D[j];
+            double wD = pw * D[p + 1 + j];
+            x += px * wN;
+            y += py * wN;
+            z += pz * wN;
+            w += wN;
+            dx += px * wD;
+            dy += py * wD;
+            dz += pz * wD;
+            dw += wD;
+        }
+        // C = A / w, C' = (A' - w' C) / w
+        x /= w;
+        y /= w;
+        z /= w;
+        out[0] = x;
+        out[1] = y;
+        out[2] = z;
+        out[3] = (dx - dw * x) / w;
+        out[4] = (dy - dw * y) / w;
+        out[5] = (dz - dw * z) / w;
+    }
+}
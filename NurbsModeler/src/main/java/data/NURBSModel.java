@@ -1,46 +1,164 @@
 package data;
 
-import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * A 2D NURBS curve. The current state is held as an immutable {@link NURBSSnapshot};
+ * every write builds the next snapshot and publishes it atomically with an incremented version.
+ * Readers that need a consistent view (rendering, export, background work) should take one
+ * {@link #snapshot()} and read everything from it.
+ * <p>
+ * Every write is described by an {@link EditDelta} that is reported to the registered
+ * {@link EditListener}s, so caches and the undo journal can react to exactly what changed.
+ */
 public class NURBSModel {
-    private List<ControlPoint> controlPoints;
-    private int degree;
-    private double[] knots;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id = NEXT_ID.getAndIncrement();
+    private final AtomicReference<NURBSSnapshot> current = new AtomicReference<>(NURBSSnapshot.empty(id));
+    private final List<EditListener> listeners = new CopyOnWriteArrayList<>();
 
     public NURBSModel() {
-        degree = 3;
-        controlPoints = new ArrayList<>();
+        int degree = 3;
+        double[] points = {
+                2.0, -0.5, 1.0, 1.0,
+                1.0, 1.0, 1.0, 1.0,
+                0.0, 0.0, 1.0, 1.0,
+                0.0, -1.0, 1.0, 1.0,
+                -0.5, -0.5, 1.0, 1.0,
+                -0.75, 1.0, 1.0, 1.0,
+        };
+        int count = points.length / NURBSSnapshot.STRIDE;
+        publish(current.get().toBuilder()
+                .degree(degree)
+                .knots(generateUniformKnotVector(count, degree))
+                .points(points, count));
+    }
 
-        controlPoints.add(new ControlPoint(2.0, -0.5, 1.0));
-        controlPoints.add(new ControlPoint(1.0, 1.0, 1.0));
-        controlPoints.add(new ControlPoint(0.0, 0.0, 1.0));
-        controlPoints.add(new ControlPoint(0.0, -1.0, 1.0));
-        controlPoints.add(new ControlPoint(-0.5, -0.5, 1.0));
-        controlPoints.add(new ControlPoint(-0.75, 1.0, 1.0));
+    /**
+     * Creates a curve from packed control points.
+     * @param degree degree of the curve
+     * @param knots  knot vector with count + degree + 1 values; it is copied
+     * @param xyzw   packed x, y, z, weight of the control points; it is copied
+     * @param count  number of control points
+     */
+    public NURBSModel(int degree, double[] knots, double[] xyzw, int count) {
+        if (degree < 1 || count <= degree)
+            throw new IllegalArgumentException("A curve of degree " + degree + " needs more than " + degree + " control points.");
+        if (knots.length != count + degree + 1)
+            throw new IllegalArgumentException("Knot vector must have " + (count + degree + 1) + " values.");
+        if (xyzw.length < count * NURBSSnapshot.STRIDE)
+            throw new IllegalArgumentException("Not enough control point values.");
+        publish(current.get().toBuilder()
+                .degree(degree)
+                .knots(knots.clone())
+                .points(xyzw, count));
+    }
 
+    /**
+     * Creates a curve from a saved state without checking it, since the model also publishes
+     * states in which degree and knot vector do not match yet.
+     * The arrays are taken over by the model.
+     */
+    static NURBSModel restore(int degree, double[] knots, double[] xyzw, int count) {
+        NURBSModel model = new NURBSModel();
+        synchronized (model) {
+            model.publish(model.current.get().toBuilder()
+                    .degree(degree)
+                    .knots(knots)
+                    .points(xyzw, count));
+        }
+        return model;
+    }
 
-        knots = generateUniformKnotVector(controlPoints.size(), degree);
+    /**
+     * @return the id of this model, unique within the running application
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the version of the current snapshot; it increases with every published edit
+     */
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    /**
+     * @return the current immutable state of this model
+     */
+    public NURBSSnapshot snapshot() {
+        return current.get();
     }
 
+    /**
+     * @return detached copies of the current control points; modifying them does not change the model
+     */
     public List<ControlPoint> getControlPoints() {
-        return controlPoints;
+        return current.get().getControlPoints();
+    }
+
+    public int getControlPointCount() {
+        return current.get().size();
     }
 
     public int getDegree() {
-        return degree;
+        return current.get().getDegree();
     }
 
-    public void setDegree(int d) {
-        this.degree = d;
+    public synchronized void setDegree(int d) {
+        NURBSSnapshot s = current.get();
+        applyEdit(SpliceEdit.knotChange(s.knots(), s.knots(), s.getDegree(), d));
     }
 
+    /**
+     * Changes the degree and the knot vector in one version, so readers never see a degree
+     * that does not match the knot vector.
+     */
+    public synchronized void setDegree(int d, double[] knots) {
+        NURBSSnapshot s = current.get();
+        applyEdit(SpliceEdit.knotChange(s.knots(), knots, s.getDegree(), d));
+    }
+
+    /**
+     * @return a copy of the current knot vector
+     */
     public double[] getKnots() {
-        return knots;
+        return current.get().getKnots();
     }
 
-    public void setKnots(double[] knots) {
-        this.knots = knots;
+    public synchronized void setKnots(double[] knots) {
+        NURBSSnapshot s = current.get();
+        applyEdit(SpliceEdit.knotChange(s.knots(), knots, s.getDegree(), s.getDegree()));
+    }
+
+    /**
+     * Moves the knot at the given index. The value must lie between the neighbouring knots.
+     */
+    public synchronized void setKnot(int index, double u) {
+        NURBSSnapshot s = current.get();
+        double[] U = s.knots();
+        SpliceEdit.checkKnotMove(U, index, u);
+        if (u != U[index]) {
+            applyEdit(SpliceEdit.knotMove(index, U[index], u, s.getDegree()));
+        }
+    }
+
+    /**
+     * Sets the coordinates and weight of the control point at the given index.
+     */
+    public synchronized void setControlPoint(int index, double x, double y, double z, double weight) {
+        NURBSSnapshot s = current.get();
+        if (index < 0 || index >= s.size())
+            throw new IndexOutOfBoundsException("Control point index out of range: " + index);
+        applyEdit(new PointEdit(index, s.getX(index), s.getY(index), s.getZ(index), s.getWeight(index),
+                x, y, z, weight));
     }
 
     public double[] generateUniformKnotVector(int numControlPoints, int degree) {
@@ -63,72 +181,94 @@ public class NURBSModel {
      * @param u - the parameter value
      * @throws IndexOutOfBoundsException if the parameter value is out of range
      */
-    public void insertKnot(double u) throws IndexOutOfBoundsException {
-        double[] U = knots;
-        int p = degree;
-        int n = controlPoints.size() - 1;
-        int m = n + p + 1;
+    public synchronized void insertKnot(double u) throws IndexOutOfBoundsException {
+        NURBSSnapshot.Builder b = current.get().toBuilder();
+        applyEdit(b, SpliceEdit.knotInsertion(b, u));
+    }
 
-        // Prüfe, ob u in der gültigen Domäne liegt.
-        if (u < U[p] || u > U[m - p])
-            throw new IllegalArgumentException("Knot value out of range.");
+    /**
+     * Removes the control point and the corresponding knot at the given index.
+     * @param index - the index of the control point to remove
+     */
+    public synchronized void removeControlPoint(int index) throws IndexOutOfBoundsException {
+        NURBSSnapshot.Builder b = current.get().toBuilder();
+        applyEdit(b, SpliceEdit.pointRemoval(b, index));
+    }
 
-        // Finde k, sodass U[k] <= u < U[k+1]
-        int k = p;
-        while (k < m && !(U[k] <= u && u < U[k + 1])) {
-            k++;
-        }
-        // Falls u == U[m-p], setze k = m - p - 1
-        if (k >= m) k = m - p - 1;
-
-        // Erstelle neue Knotensequenz: Länge m+2
-        double[] newKnots = new double[U.length + 1];
-        if (k + 1 >= 0) System.arraycopy(U, 0, newKnots, 0, k + 1);
-        newKnots[k + 1] = u;
-        if (U.length - (k + 1) >= 0) System.arraycopy(U, k + 1, newKnots, k + 1 + 1, U.length - (k + 1));
-
-        // Knoteneinfügealgorithmus: arbeite in homogenen Koordinaten
-        List<ControlPoint> newCP = new ArrayList<>();
-        // Für i = 0 bis k-p: unverändert übernehmen.
-        for (int i = 0; i < k - p + 1; i++) {
-            newCP.add(controlPoints.get(i));
-        }
-        // Berechne neue Kontrollpunkte für i = k-p+1 bis k:
-        for (int i = k - p + 1; i <= k; i++) {
-            double alpha = (u - U[i]) / (U[i + p] - U[i]);
-            // Umrechnung in homogene Koordinaten: H(P) = (w*x, w*y, w)
-            ControlPoint Pi_1 = controlPoints.get(i - 1);
-            ControlPoint Pi = controlPoints.get(i);
-            double X1 = Pi_1.weight * Pi_1.x;
-            double Y1 = Pi_1.weight * Pi_1.y;
-            double W1 = Pi_1.weight;
-            double X2 = Pi.weight * Pi.x;
-            double Y2 = Pi.weight * Pi.y;
-            double W2 = Pi.weight;
-            double X = (1 - alpha) * X1 + alpha * X2;
-            double Y = (1 - alpha) * Y1 + alpha * Y2;
-            double W = (1 - alpha) * W1 + alpha * W2;
-            newCP.add(new ControlPoint(X / W, Y / W, W));
-        }
-        // Für i = k+1 bis n+1: übernehmen (shifted um 1)
-        for (int i = k + 1; i <= n + 1; i++) {
-            newCP.add(controlPoints.get(i - 1));
+    public void addEditListener(EditListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeEditListener(EditListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells the listeners that a continuous edit, such as dragging a control point, has ended.
+     */
+    public synchronized void endGesture() {
+        for (EditListener listener : listeners) {
+            listener.gestureEnded();
         }
+    }
+
+    /**
+     * Starts a transaction on the current state. Its edits are published together by
+     * {@link Transaction#commit()} as one version and one {@link CompoundEdit}.
+     * The transaction is not locked against other writers; if the model is edited before the
+     * commit, the commit fails.
+     */
+    public synchronized Transaction begin() {
+        return new Transaction(this, current.get());
+    }
 
-        // Aktualisiere Modell
-        controlPoints = newCP;
-        knots = newKnots;
+    /**
+     * Runs a block of edits as one transaction while holding the lock of the model and commits it.
+     * If the block throws, none of its edits are published.
+     */
+    public synchronized void edit(Consumer<Transaction> block) {
+        Transaction transaction = begin();
+        block.accept(transaction);
+        transaction.commit();
     }
 
     /**
-     * Removes the control point and the corresponding knot at the given index.
-     * @param index - the index of the control point to remove
+     * Publishes the state a transaction has built from the given base snapshot.
+     * @throws ConcurrentModificationException if the model was edited since the base was taken
+     */
+    synchronized void commit(NURBSSnapshot base, NURBSSnapshot.Builder b, EditDelta delta) {
+        if (current.get() != base)
+            throw new ConcurrentModificationException("The curve was edited during the transaction.");
+        NURBSSnapshot next = publish(b);
+        for (EditListener listener : listeners) {
+            listener.edited(next, delta);
+        }
+    }
+
+    /**
+     * Applies the delta, publishes the resulting snapshot and reports it to the listeners.
+     * Empty splices are ignored.
      */
-    public void removeControlPoint(int index) throws IndexOutOfBoundsException{
-        this.controlPoints.remove(index);
-        double[] newKnots = new double[knots.length - 1];
-        System.arraycopy(knots, 0, newKnots, 0, index);
-        System.arraycopy(knots, index + 1, newKnots, index, newKnots.length - index);
-        knots = newKnots;
+    synchronized void applyEdit(EditDelta delta) {
+        applyEdit(current.get().toBuilder(), delta);
+    }
+
+    // b must be a fresh builder of the current snapshot.
+    private void applyEdit(NURBSSnapshot.Builder b, EditDelta delta) {
+        if (delta instanceof SpliceEdit splice && splice.isEmpty()) {
+            return;
+        }
+        delta.applyTo(b);
+        NURBSSnapshot next = publish(b);
+        for (EditListener listener : listeners) {
+            listener.edited(next, delta);
+        }
+    }
+
+    // Must be called while holding the lock of this model.
+    private NURBSSnapshot publish(NURBSSnapshot.Builder b) {
+        NURBSSnapshot next = b.build(current.get().getVersion() + 1);
+        current.set(next);
+        return next;
     }
 }
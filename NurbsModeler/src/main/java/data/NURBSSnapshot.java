@@ -0,0 +1,277 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable state of a {@link NURBSModel} at one version.
+ * <p>
+ * Control points are stored in fixed-size chunks of packed {@code x, y, z, weight} values.
+ * A new version only copies the chunks it touches and shares all others with its predecessor,
+ * so publishing a single point move costs one chunk plus the chunk table instead of the whole net.
+ * Snapshots are never modified after publication and can be read from any thread without locking.
+ */
+public final class NURBSSnapshot {
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int STRIDE = 4;
+
+    private final long modelId;
+    private final long version;
+    private final int degree;
+    private final double[] knots;
+    private final double[][] chunks;
+    private final int size;
+
+    private NURBSSnapshot(long modelId, long version, int degree, double[] knots, double[][] chunks, int size) {
+        this.modelId = modelId;
+        this.version = version;
+        this.degree = degree;
+        this.knots = knots;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    public long getModelId() {
+        return modelId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * @return the number of control points
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getX(int i) {
+        return chunks[i >>> CHUNK_SHIFT][(i & CHUNK_MASK) * STRIDE];
+    }
+
+    public double getY(int i) {
+        return chunks[i >>> CHUNK_SHIFT][(i & CHUNK_MASK) * STRIDE + 1];
+    }
+
+    public double getZ(int i) {
+        return chunks[i >>> CHUNK_SHIFT][(i & CHUNK_MASK) * STRIDE + 2];
+    }
+
+    public double getWeight(int i) {
+        return chunks[i >>> CHUNK_SHIFT][(i & CHUNK_MASK) * STRIDE + 3];
+    }
+
+    /**
+     * Copies {@code x, y, z, weight} of control point i into out[offset..offset+3].
+     */
+    public void getPoint(int i, double[] out, int offset) {
+        System.arraycopy(chunks[i >>> CHUNK_SHIFT], (i & CHUNK_MASK) * STRIDE, out, offset, STRIDE);
+    }
+
+    public ControlPoint getControlPoint(int i) {
+        return new ControlPoint(getX(i), getY(i), getZ(i), getWeight(i));
+    }
+
+    /**
+     * @return detached copies of all control points
+     */
+    public List<ControlPoint> getControlPoints() {
+        List<ControlPoint> cps = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cps.add(getControlPoint(i));
+        }
+        return cps;
+    }
+
+    public int getKnotCount() {
+        return knots.length;
+    }
+
+    public double getKnot(int i) {
+        return knots[i];
+    }
+
+    /**
+     * @return a copy of the knot vector
+     */
+    public double[] getKnots() {
+        return knots.clone();
+    }
+
+    // Direct access for evaluators in this package; the array must not be modified.
+    double[] knots() {
+        return knots;
+    }
+
+    /**
+     * @return true if the knot vector length matches the number of control points and the degree
+     */
+    public boolean isValid() {
+        return size > degree && knots.length == size + degree + 1;
+    }
+
+    static NURBSSnapshot empty(long modelId) {
+        return new NURBSSnapshot(modelId, 0, 0, new double[0], new double[0][], 0);
+    }
+
+    Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Produces the next version of a snapshot. Chunks are shared until they are written to,
+     * and each chunk is copied at most once per builder.
+     */
+    static final class Builder {
+        private final NURBSSnapshot base;
+        private int degree;
+        private double[] knots;
+        private double[][] chunks;
+        private boolean[] owned;
+        private int size;
+
+        private Builder(NURBSSnapshot base) {
+            this.base = base;
+            this.degree = base.degree;
+            this.knots = base.knots;
+            this.chunks = base.chunks.clone();
+            this.owned = new boolean[chunks.length];
+            this.size = base.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int degree() {
+            return degree;
+        }
+
+        double[] knots() {
+            return knots;
+        }
+
+        double get(int i, int component) {
+            return chunks[i >>> CHUNK_SHIFT][(i & CHUNK_MASK) * STRIDE + component];
+        }
+
+        void getPoint(int i, double[] out, int offset) {
+            System.arraycopy(chunks[i >>> CHUNK_SHIFT], (i & CHUNK_MASK) * STRIDE, out, offset, STRIDE);
+        }
+
+        Builder degree(int degree) {
+            this.degree = degree;
+            return this;
+        }
+
+        // The array is taken over by the snapshot and must not be modified by the caller afterwards.
+        Builder knots(double[] knots) {
+            this.knots = knots;
+            return this;
+        }
+
+        Builder set(int i, double x, double y, double z, double weight) {
+            double[] chunk = writableChunk(i >>> CHUNK_SHIFT);
+            int o = (i & CHUNK_MASK) * STRIDE;
+            chunk[o] = x;
+            chunk[o + 1] = y;
+            chunk[o + 2] = z;
+            chunk[o + 3] = weight;
+            return this;
+        }
+
+        Builder set(int i, double[] xyzw, int offset) {
+            return set(i, xyzw[offset], xyzw[offset + 1], xyzw[offset + 2], xyzw[offset + 3]);
+        }
+
+        /**
+         * Inserts a control point before index i, shifting the following points up by one.
+         * Chunks before the insertion point stay shared.
+         */
+        Builder insert(int i, double x, double y, double z, double weight) {
+            ensureCapacity(size + 1);
+            for (int j = size; j > i; j--) {
+                copyWithin(j - 1, j);
+            }
+            size++;
+            return set(i, x, y, z, weight);
+        }
+
+        /**
+         * Removes the control point at index i, shifting the following points down by one.
+         */
+        Builder remove(int i) {
+            for (int j = i; j < size - 1; j++) {
+                copyWithin(j + 1, j);
+            }
+            size--;
+            int chunkCount = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+            if (chunkCount < chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount);
+                owned = Arrays.copyOf(owned, chunkCount);
+            }
+            return this;
+        }
+
+        /**
+         * Replaces all control points with the packed {@code x, y, z, weight} values.
+         */
+        Builder points(double[] xyzw, int count) {
+            int chunkCount = (count + CHUNK_MASK) >>> CHUNK_SHIFT;
+            chunks = new double[chunkCount][];
+            owned = new boolean[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                chunks[c] = new double[CHUNK_SIZE * STRIDE];
+                owned[c] = true;
+                int from = c << CHUNK_SHIFT;
+                int n = Math.min(CHUNK_SIZE, count - from);
+                System.arraycopy(xyzw, from * STRIDE, chunks[c], 0, n * STRIDE);
+            }
+            size = count;
+            return this;
+        }
+
+        NURBSSnapshot build(long version) {
+            NURBSSnapshot s = new NURBSSnapshot(base.modelId, version, degree, knots, chunks, size);
+            // The builder must not write into chunks that now belong to a published snapshot.
+            Arrays.fill(owned, false);
+            chunks = chunks.clone();
+            return s;
+        }
+
+        private void copyWithin(int from, int to) {
+            double[] src = chunks[from >>> CHUNK_SHIFT];
+            double[] dst = writableChunk(to >>> CHUNK_SHIFT);
+            System.arraycopy(src, (from & CHUNK_MASK) * STRIDE, dst, (to & CHUNK_MASK) * STRIDE, STRIDE);
+        }
+
+        private void ensureCapacity(int count) {
+            int chunkCount = (count + CHUNK_MASK) >>> CHUNK_SHIFT;
+            if (chunkCount > chunks.length) {
+                int old = chunks.length;
+                chunks = Arrays.copyOf(chunks, chunkCount);
+                owned = Arrays.copyOf(owned, chunkCount);
+                for (int c = old; c < chunkCount; c++) {
+                    chunks[c] = new double[CHUNK_SIZE * STRIDE];
+                    owned[c] = true;
+                }
+            }
+        }
+
+        private double[] writableChunk(int c) {
+            if (!owned[c]) {
+                chunks[c] = chunks[c].clone();
+                owned[c] = true;
+            }
+            return chunks[c];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package data;
+
+/**
+ * Assigns parameter values in [0, 1] to a sequence of data points for fitting and interpolation.
+ */
+public enum Parameterization {
+    /**
+     * Parameter steps proportional to the distance between neighbouring points.
+     */
+    CHORD_LENGTH(1.0),
+    /**
+     * Parameter steps proportional to the square root of the distance; follows sharp turns
+     * more closely than chord length.
+     */
+    CENTRIPETAL(0.5);
+
+    private final double exponent;
+
+    Parameterization(double exponent) {
+        this.exponent = exponent;
+    }
+
+    /**
+     * @param xyz   packed x, y, z of the data points
+     * @param count number of data points, at least 2
+     * @return increasing parameters with the first at 0 and the last at 1
+     */
+    public double[] compute(double[] xyz, int count) {
+        double[] u = new double[count];
+        double total = 0;
+        for (int k = 1; k < count; k++) {
+            double dx = xyz[3 * k] - xyz[3 * k - 3];
+            double dy = xyz[3 * k + 1] - xyz[3 * k - 2];
+            double dz = xyz[3 * k + 2] - xyz[3 * k - 1];
+            double d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            total += exponent == 1.0 ? d : Math.pow(d, exponent);
+            u[k] = total;
+        }
+        if (total == 0) {
+            // Alle Punkte fallen zusammen: gleichmäßig verteilen
+            for (int k = 0; k < count; k++) {
+                u[k] = (double) k / (count - 1);
+            }
+            return u;
+        }
+        for (int k = 1; k < count - 1; k++) {
+            u[k] /= total;
+        }
+        u[count - 1] = 1.0;
+        return u;
+    }
+}
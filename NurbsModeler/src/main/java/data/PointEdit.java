@@ -0,0 +1,90 @@
+package data;
+
+/**
+ * Change of the coordinates and weight of a single control point.
+ */
+public final class PointEdit extends EditDelta {
+    private final int index;
+    private final double oldX, oldY, oldZ, oldWeight;
+    private final double newX, newY, newZ, newWeight;
+
+    public PointEdit(int index, double[] oldValues, double[] newValues) {
+        this(index, oldValues[0], oldValues[1], oldValues[2], oldValues[3],
+                newValues[0], newValues[1], newValues[2], newValues[3]);
+    }
+
+    PointEdit(int index, double oldX, double oldY, double oldZ, double oldWeight,
+              double newX, double newY, double newZ, double newWeight) {
+        this.index = index;
+        this.oldX = oldX;
+        this.oldY = oldY;
+        this.oldZ = oldZ;
+        this.oldWeight = oldWeight;
+        this.newX = newX;
+        this.newY = newY;
+        this.newZ = newZ;
+        this.newWeight = newWeight;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // x, y, z, weight before the edit
+    public double[] getOldValues() {
+        return new double[]{oldX, oldY, oldZ, oldWeight};
+    }
+
+    // x, y, z, weight after the edit
+    public double[] getNewValues() {
+        return new double[]{newX, newY, newZ, newWeight};
+    }
+
+    /**
+     * @return a delta going from the old values of this edit to the new values of the later one
+     */
+    PointEdit mergeWith(PointEdit later) {
+        return new PointEdit(index, oldX, oldY, oldZ, oldWeight,
+                later.newX, later.newY, later.newZ, later.newWeight);
+    }
+
+    @Override
+    void applyTo(NURBSSnapshot.Builder b) {
+        b.set(index, newX, newY, newZ, newWeight);
+    }
+
+    @Override
+    public PointEdit inverse() {
+        return new PointEdit(index, newX, newY, newZ, newWeight, oldX, oldY, oldZ, oldWeight);
+    }
+
+    @Override
+    public boolean isStructural() {
+        return false;
+    }
+
+    @Override
+    public int getFirstPoint() {
+        return index;
+    }
+
+    @Override
+    public int getLastPoint() {
+        return index;
+    }
+
+    @Override
+    public int getFirstKnot() {
+        return -1;
+    }
+
+    @Override
+    public int getLastKnot() {
+        return -1;
+    }
+
+    @Override
+    public long estimateSize() {
+        return 96;
+    }
+}
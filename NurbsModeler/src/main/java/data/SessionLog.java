@@ -0,0 +1,702 @@
+package data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Crash-safe, append-only journal of the edits of a {@link NURBSModel}.
+ * <p>
+ * Every published {@link EditDelta} is appended as fixed-size binary records to a memory-mapped
+ * file, so an edit costs a few stores into the page cache and no system call; the operating system
+ * writes the pages back even if the application dies. A record becomes valid by writing its
+ * sequence number last, and carries a checksum, so a torn or half-written tail is detected and
+ * dropped on {@link #recover(Path) recovery}. The parts of a {@link CompoundEdit} follow a header
+ * record and are recovered all together or not at all.
+ * <p>
+ * A directory holds generations: {@code snapshot-<g>.bin} is the whole curve at the start of
+ * generation g, {@code log-<g>.bin} the edits made after it. The file of the next generation is
+ * created and mapped ahead of time on a background thread. After
+ * {@link #DEFAULT_COMPACTION_THRESHOLD} records the editing thread only switches to that file; forcing
+ * and closing the old log, writing the current snapshot and preparing the following file happen in
+ * the background, so compaction never pauses editing. Older generations are deleted once the new
+ * snapshot is safely on disk. The prepared file of the next generation stays behind as an empty log.
+ */
+public class SessionLog implements EditListener, Closeable {
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1 << 16;
+
+    static final int RECORD_SIZE = 48;
+    private static final int LOG_MAGIC = 0x4E4C4F47;
+    private static final int SNAPSHOT_MAGIC = 0x4E534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_CAPACITY = 1 << 20;
+
+    // Aufbau eines Datensatzes: int seq, short type, short frei, int index, int checksum, 4 double Nutzdaten
+    private static final int SEQ = 0, TYPE = 4, INDEX = 8, CHECKSUM = 12, PAYLOAD = 16;
+    // index = Punktindex, Nutzdaten = neues x, y, z, Gewicht
+    private static final short POINT = 1;
+    // index = Anzahl folgender DATA-Sätze, Nutzdaten = 8 int: pointIndex, alte/neue Punktanzahl,
+    // knotIndex, alte/neue Knotenanzahl, alter/neuer Grad
+    private static final short SPLICE = 2;
+    // Je ein neuer Punkt, danach die neuen Knoten zu viert
+    private static final short DATA = 3;
+    // index = Anzahl der folgenden Datensätze einer Transaktion; sie gelten nur vollständig
+    private static final short COMPOUND = 4;
+
+    private static final Pattern LOG_NAME = Pattern.compile("log-(\\d+)\\.bin");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final NURBSModel model;
+    private final Path directory;
+    private final int compactionThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "SessionLog compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long generation;
+    private int position;
+    private int sequence;
+    private int records;
+    // Im Hintergrund vorbereitete Datei der nächsten Generation, null solange sie noch entsteht
+    private LogFile next;
+    // Läuft eine Aufgabe des Hintergrund-Threads (Vorbereiten oder Verdichten)?
+    private boolean compacting;
+    private boolean closed;
+    private IOException failure;
+
+    private SessionLog(NURBSModel model, Path directory, int compactionThreshold) {
+        this.model = model;
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Starts journaling a model into a directory, with the default compaction threshold.
+     * @see #start(NURBSModel, Path, int)
+     */
+    public static SessionLog start(NURBSModel model, Path directory) throws IOException {
+        return start(model, directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Starts journaling a model into a directory. The current state of the model is written as the
+     * snapshot of a new generation and older generations in the directory are deleted, so recover
+     * an earlier session from the directory before starting a new one.
+     * @param compactionThreshold number of records after which the log is compacted into a snapshot
+     */
+    public static SessionLog start(NURBSModel model, Path directory, int compactionThreshold) throws IOException {
+        if (compactionThreshold < 1)
+            throw new IllegalArgumentException("Compaction threshold must be positive.");
+        Files.createDirectories(directory);
+        long gen = 0;
+        for (Path file : list(directory)) {
+            gen = Math.max(gen, generationOf(file) + 1);
+        }
+        SessionLog log = new SessionLog(model, directory, compactionThreshold);
+        synchronized (model) {
+            // Unter der Sperre des Modells geht zwischen Snapshot und erstem Datensatz keine Änderung verloren
+            writeSnapshot(directory, model.snapshot(), gen);
+            log.use(createLog(directory, gen, log.capacity()));
+            synchronized (log) {
+                log.prepare(gen + 1);
+            }
+            model.addEditListener(log);
+        }
+        deleteBefore(directory, gen);
+        return log;
+    }
+
+    /**
+     * Rebuilds the curve from the newest complete snapshot of a directory and the logs written
+     * after it. Records after the first damaged or incomplete one are ignored.
+     * @return the recovered curve, or null if the directory holds no snapshot
+     */
+    public static NURBSModel recover(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        List<Path> files = list(directory);
+        NURBSSnapshot.Builder b = null;
+        long gen = -1;
+        for (Path file : files) {
+            long g = generationOf(file);
+            if (g > gen && SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches()) {
+                NURBSSnapshot.Builder candidate = readSnapshot(file, g);
+                if (candidate != null) {
+                    b = candidate;
+                    gen = g;
+                }
+            }
+        }
+        if (b == null) {
+            return null;
+        }
+        // Logs der Generation des Snapshots und aller folgenden, lückenlos
+        for (long g = gen; ; g++) {
+            Path file = directory.resolve("log-" + g + ".bin");
+            if (!Files.exists(file) || !replay(file, g, b)) {
+                break;
+            }
+        }
+        int count = b.size();
+        double[] xyzw = new double[count * NURBSSnapshot.STRIDE];
+        for (int i = 0; i < count; i++) {
+            b.getPoint(i, xyzw, i * NURBSSnapshot.STRIDE);
+        }
+        return NURBSModel.restore(b.degree(), b.knots(), xyzw, count);
+    }
+
+    @Override
+    public synchronized void edited(NURBSSnapshot snapshot, EditDelta delta) {
+        if (closed || failure != null) {
+            return;
+        }
+        try {
+            if (delta instanceof CompoundEdit compound) {
+                int count = recordCount(compound);
+                ensureCapacity(1 + count);
+                put(COMPOUND, count, 0.0, 0.0, 0.0, 0.0);
+                records++;
+            }
+            append(delta);
+            if (records >= compactionThreshold && !compacting) {
+                if (next != null) {
+                    compact(snapshot);
+                } else {
+                    // Die Vorbereitung ist gescheitert; beim nächsten Mal wieder versuchen
+                    prepare(generation + 1);
+                }
+            }
+        } catch (IOException e) {
+            // Das Bearbeiten darf am Journal nicht scheitern; ab hier wird nur nicht mehr protokolliert
+            failure = e;
+            System.err.println("Session log disabled: " + e);
+        }
+    }
+
+    /**
+     * Forces the records written so far to the storage device, including a previous generation whose
+     * log is still being forced in the background.
+     */
+    public void sync() throws IOException {
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (closed) {
+                return;
+            }
+            buffer.force();
+        }
+        // Der Hintergrund-Thread arbeitet der Reihe nach; ist eine leere Aufgabe dran, ist das alte Log erzwungen
+        try {
+            compactor.submit(() -> { }).get();
+        } catch (RejectedExecutionException e) {
+            // Inzwischen geschlossen; close() hat alles erzwungen
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the directory the log writes to
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops journaling, waits for a running compaction and forces the log to the storage device.
+     * The directory keeps everything needed to {@link #recover(Path) recover} the curve.
+     */
+    @Override
+    public void close() throws IOException {
+        model.removeEditListener(this);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            channel.close();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (next != null) {
+                next.channel.close();
+                next = null;
+            }
+        }
+    }
+
+    private void append(EditDelta delta) throws IOException {
+        if (delta instanceof PointEdit edit) {
+            ensureCapacity(1);
+            double[] v = edit.getNewValues();
+            put(POINT, edit.getIndex(), v[0], v[1], v[2], v[3]);
+            records++;
+        } else if (delta instanceof SpliceEdit edit) {
+            appendSplice(edit);
+        } else if (delta instanceof CompoundEdit compound) {
+            for (int i = 0; i < compound.getEditCount(); i++) {
+                append(compound.getEdit(i));
+            }
+        }
+    }
+
+    // Anzahl der Datensätze der Teile, ohne den Kopfsatz der Transaktion
+    private static int recordCount(EditDelta delta) {
+        if (delta instanceof SpliceEdit edit) {
+            return 1 + edit.getNewPointCount() + (edit.getNewKnotCount() + 3) / 4;
+        } else if (delta instanceof CompoundEdit compound) {
+            int count = 0;
+            for (int i = 0; i < compound.getEditCount(); i++) {
+                count += recordCount(compound.getEdit(i));
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    private void appendSplice(SpliceEdit edit) throws IOException {
+        double[] points = edit.getNewPoints();
+        double[] knots = edit.getNewKnots();
+        int pointCount = edit.getNewPointCount();
+        int data = pointCount + (knots.length + 3) / 4;
+        ensureCapacity(1 + data);
+        int o = position;
+        buffer.putShort(o + TYPE, SPLICE);
+        buffer.putInt(o + INDEX, data);
+        buffer.putInt(o + PAYLOAD, edit.getPointIndex());
+        buffer.putInt(o + PAYLOAD + 4, edit.getOldPointCount());
+        buffer.putInt(o + PAYLOAD + 8, pointCount);
+        buffer.putInt(o + PAYLOAD + 12, edit.getKnotIndex());
+        buffer.putInt(o + PAYLOAD + 16, edit.getOldKnotCount());
+        buffer.putInt(o + PAYLOAD + 20, knots.length);
+        buffer.putInt(o + PAYLOAD + 24, edit.getOldDegree());
+        buffer.putInt(o + PAYLOAD + 28, edit.getNewDegree());
+        seal(o);
+        for (int i = 0; i < pointCount; i++) {
+            int p = i * NURBSSnapshot.STRIDE;
+            put(DATA, i, points[p], points[p + 1], points[p + 2], points[p + 3]);
+        }
+        for (int i = 0; i < knots.length; i += 4) {
+            put(DATA, pointCount + i / 4, knots[i], value(knots, i + 1), value(knots, i + 2), value(knots, i + 3));
+        }
+        records += 1 + data;
+    }
+
+    private static double value(double[] values, int i) {
+        return i < values.length ? values[i] : 0.0;
+    }
+
+    private void put(short type, int index, double a, double b, double c, double d) {
+        int o = position;
+        buffer.putShort(o + TYPE, type);
+        buffer.putInt(o + INDEX, index);
+        buffer.putDouble(o + PAYLOAD, a);
+        buffer.putDouble(o + PAYLOAD + 8, b);
+        buffer.putDouble(o + PAYLOAD + 16, c);
+        buffer.putDouble(o + PAYLOAD + 24, d);
+        seal(o);
+    }
+
+    // Prüfsumme und zuletzt die Sequenznummer schreiben: erst danach gilt der Datensatz als vorhanden
+    private void seal(int o) {
+        int seq = ++sequence;
+        buffer.putInt(o + CHECKSUM, checksum(buffer, o, seq));
+        buffer.putInt(o + SEQ, seq);
+        position = o + RECORD_SIZE;
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int o, int seq) {
+        long h = (seq * 0x9E3779B97F4A7C15L) ^ buffer.getShort(o + TYPE) ^ ((long) buffer.getInt(o + INDEX) << 16);
+        for (int i = 0; i < 4; i++) {
+            h = (h ^ buffer.getLong(o + PAYLOAD + 8 * i)) * 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+        }
+        return (int) h ^ (int) (h >>> 32);
+    }
+
+    private void ensureCapacity(int count) throws IOException {
+        long needed = (long) position + (long) count * RECORD_SIZE;
+        if (needed <= buffer.capacity()) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < needed) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE)
+            throw new IOException("Session log " + generation + " would exceed 2 GB.");
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    // Geöffnete und gemappte Logdatei einer Generation, deren Kopfsatz schon geschrieben ist
+    private static final class LogFile {
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final long generation;
+
+        LogFile(FileChannel channel, MappedByteBuffer buffer, long generation) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.generation = generation;
+        }
+    }
+
+    // Groß genug, dass bis zur Verdichtung meist nicht neu gemappt werden muss
+    private int capacity() {
+        long needed = (compactionThreshold + 2L) * RECORD_SIZE;
+        return (int) Math.min(1 << 30, Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1));
+    }
+
+    private static LogFile createLog(Path directory, long gen, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve("log-" + gen + ".bin"),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(INDEX, FORMAT_VERSION);
+            buffer.putLong(PAYLOAD, gen);
+            buffer.putInt(SEQ, LOG_MAGIC);
+            return new LogFile(channel, buffer, gen);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void use(LogFile log) {
+        channel = log.channel;
+        buffer = log.buffer;
+        generation = log.generation;
+        position = RECORD_SIZE;
+        sequence = 0;
+        records = 0;
+    }
+
+    // Legt die Datei der Generation gen im Hintergrund an; nur unter der Sperre aufrufen.
+    private void prepare(long gen) {
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                prepareInBackground(gen);
+            } finally {
+                synchronized (SessionLog.this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    private void prepareInBackground(long gen) {
+        try {
+            // Eine übrig gebliebene Datei dieser Generation enthält nichts, was noch gebraucht wird
+            Files.deleteIfExists(directory.resolve("log-" + gen + ".bin"));
+            LogFile log = createLog(directory, gen, capacity());
+            synchronized (this) {
+                if (closed) {
+                    log.channel.close();
+                } else {
+                    next = log;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Session log could not prepare generation " + gen + ": " + e);
+        }
+    }
+
+    /**
+     * Switches to the prepared next generation. Forcing and closing the old log, writing the
+     * snapshot and preparing the following generation happen on the background thread.
+     * @param snapshot the state after the last record of the current log
+     */
+    private void compact(NURBSSnapshot snapshot) {
+        FileChannel oldChannel = channel;
+        MappedByteBuffer oldBuffer = buffer;
+        long gen = next.generation;
+        use(next);
+        next = null;
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                try {
+                    oldBuffer.force();
+                    oldChannel.close();
+                    writeSnapshot(directory, snapshot, gen);
+                    deleteBefore(directory, gen);
+                } catch (IOException e) {
+                    // Die alten Generationen bleiben erhalten und reichen für die Wiederherstellung
+                    System.err.println("Session log compaction failed: " + e);
+                }
+                prepareInBackground(gen + 1);
+            } finally {
+                synchronized (SessionLog.this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    private static void writeSnapshot(Path directory, NURBSSnapshot s, long gen) throws IOException {
+        Path temp = directory.resolve("snapshot-" + gen + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            int count = s.size();
+            double[] knots = s.knots();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(gen);
+            out.writeInt(s.getDegree());
+            out.writeInt(knots.length);
+            out.writeInt(count);
+            long h = gen;
+            for (double u : knots) {
+                long bits = Double.doubleToRawLongBits(u);
+                out.writeLong(bits);
+                h = mix(h, bits);
+            }
+            double[] point = new double[NURBSSnapshot.STRIDE];
+            for (int i = 0; i < count; i++) {
+                s.getPoint(i, point, 0);
+                for (double v : point) {
+                    long bits = Double.doubleToRawLongBits(v);
+                    out.writeLong(bits);
+                    h = mix(h, bits);
+                }
+            }
+            out.writeLong(h);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, directory.resolve("snapshot-" + gen + ".bin"), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long mix(long h, long bits) {
+        h = (h ^ bits) * 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    // Liefert null, wenn der Snapshot unvollständig oder beschädigt ist.
+    private static NURBSSnapshot.Builder readSnapshot(Path file, long gen) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != gen) {
+                return null;
+            }
+            int degree = in.readInt();
+            int knotCount = in.readInt();
+            int count = in.readInt();
+            if (degree < 0 || count < 0 || knotCount < 0) {
+                return null;
+            }
+            long h = gen;
+            double[] knots = new double[knotCount];
+            for (int i = 0; i < knotCount; i++) {
+                long bits = in.readLong();
+                knots[i] = Double.longBitsToDouble(bits);
+                h = mix(h, bits);
+            }
+            double[] xyzw = new double[count * NURBSSnapshot.STRIDE];
+            for (int i = 0; i < xyzw.length; i++) {
+                long bits = in.readLong();
+                xyzw[i] = Double.longBitsToDouble(bits);
+                h = mix(h, bits);
+            }
+            if (in.readLong() != h) {
+                return null;
+            }
+            return NURBSSnapshot.empty(0).toBuilder().degree(degree).knots(knots).points(xyzw, count);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Applies the valid records of a log to the builder.
+     * @return true if the log ended cleanly, false if it was damaged and later logs must be ignored
+     */
+    private static boolean replay(Path file, long gen, NURBSSnapshot.Builder b) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int limit = buffer.capacity() - RECORD_SIZE;
+        if (limit < 0 || buffer.getInt(SEQ) != LOG_MAGIC || buffer.getInt(INDEX) != FORMAT_VERSION
+                || buffer.getLong(PAYLOAD) != gen) {
+            return false;
+        }
+        int seq = 1;
+        int o = RECORD_SIZE;
+        while (o <= limit) {
+            int found = buffer.getInt(o + SEQ);
+            if (found == 0) {
+                // Ende des geschriebenen Bereichs; alles dahinter muss leer sein
+                return true;
+            }
+            if (!isValid(buffer, o, seq)) {
+                return false;
+            }
+            short type = buffer.getShort(o + TYPE);
+            int index = buffer.getInt(o + INDEX);
+            if (type == POINT) {
+                if (index < 0 || index >= b.size()) {
+                    return false;
+                }
+                b.set(index, buffer.getDouble(o + PAYLOAD), buffer.getDouble(o + PAYLOAD + 8),
+                        buffer.getDouble(o + PAYLOAD + 16), buffer.getDouble(o + PAYLOAD + 24));
+                o += RECORD_SIZE;
+                seq++;
+            } else if (type == COMPOUND) {
+                // Eine Transaktion wird nur übernommen, wenn alle ihre Datensätze vorhanden sind
+                if (index < 0 || (long) o + (long) (index + 1) * RECORD_SIZE > buffer.capacity()) {
+                    return false;
+                }
+                for (int i = 1; i <= index; i++) {
+                    if (!isValid(buffer, o + i * RECORD_SIZE, seq + i)) {
+                        return false;
+                    }
+                }
+                o += RECORD_SIZE;
+                seq++;
+            } else if (type == SPLICE) {
+                // Ein Splice zählt nur, wenn alle seine Datensätze vollständig sind
+                if (index < 0 || (long) o + (long) (index + 1) * RECORD_SIZE > buffer.capacity()) {
+                    return false;
+                }
+                for (int i = 1; i <= index; i++) {
+                    int d = o + i * RECORD_SIZE;
+                    if (!isValid(buffer, d, seq + i) || buffer.getShort(d + TYPE) != DATA) {
+                        return false;
+                    }
+                }
+                SpliceEdit edit = readSplice(buffer, o, b);
+                if (edit == null) {
+                    return false;
+                }
+                edit.applyTo(b);
+                o += (index + 1) * RECORD_SIZE;
+                seq += index + 1;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValid(MappedByteBuffer buffer, int o, int seq) {
+        return buffer.getInt(o + SEQ) == seq && buffer.getInt(o + CHECKSUM) == checksum(buffer, o, seq);
+    }
+
+    // Setzt aus dem Kopfsatz und den Datensätzen den Splice zusammen; die alten Werte stammen aus dem Builder.
+    private static SpliceEdit readSplice(MappedByteBuffer buffer, int o, NURBSSnapshot.Builder b) {
+        int data = buffer.getInt(o + INDEX);
+        int pointIndex = buffer.getInt(o + PAYLOAD);
+        int oldPointCount = buffer.getInt(o + PAYLOAD + 4);
+        int newPointCount = buffer.getInt(o + PAYLOAD + 8);
+        int knotIndex = buffer.getInt(o + PAYLOAD + 12);
+        int oldKnotCount = buffer.getInt(o + PAYLOAD + 16);
+        int newKnotCount = buffer.getInt(o + PAYLOAD + 20);
+        int oldDegree = buffer.getInt(o + PAYLOAD + 24);
+        int newDegree = buffer.getInt(o + PAYLOAD + 28);
+        double[] U = b.knots();
+        if (pointIndex < 0 || oldPointCount < 0 || newPointCount < 0 || pointIndex + oldPointCount > b.size()
+                || knotIndex < 0 || oldKnotCount < 0 || newKnotCount < 0 || knotIndex + oldKnotCount > U.length
+                || oldDegree != b.degree() || newDegree < 0
+                || data != newPointCount + (newKnotCount + 3) / 4) {
+            return null;
+        }
+        int stride = NURBSSnapshot.STRIDE;
+        double[] oldPoints = new double[oldPointCount * stride];
+        for (int i = 0; i < oldPointCount; i++) {
+            b.getPoint(pointIndex + i, oldPoints, i * stride);
+        }
+        double[] newPoints = new double[newPointCount * stride];
+        for (int i = 0; i < newPointCount; i++) {
+            int d = o + (1 + i) * RECORD_SIZE + PAYLOAD;
+            for (int c = 0; c < stride; c++) {
+                newPoints[i * stride + c] = buffer.getDouble(d + 8 * c);
+            }
+        }
+        double[] oldKnots = new double[oldKnotCount];
+        System.arraycopy(U, knotIndex, oldKnots, 0, oldKnotCount);
+        double[] newKnots = new double[newKnotCount];
+        for (int i = 0; i < newKnotCount; i++) {
+            int d = o + (1 + newPointCount + i / 4) * RECORD_SIZE + PAYLOAD;
+            newKnots[i] = buffer.getDouble(d + 8 * (i % 4));
+        }
+        return new SpliceEdit(pointIndex, oldPoints, newPoints, knotIndex, oldKnots, newKnots, oldDegree, newDegree);
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (generationOf(file) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    // Generation eines Log- oder Snapshot-Namens, -1 für andere Dateien
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        Matcher m = LOG_NAME.matcher(name);
+        if (!m.matches()) {
+            m = SNAPSHOT_NAME.matcher(name);
+            if (!m.matches()) {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(m.group(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteBefore(Path directory, long gen) throws IOException {
+        for (Path file : list(directory)) {
+            if (generationOf(file) < gen) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory.resolve("snapshot-" + (gen - 1) + ".tmp"));
+    }
+}
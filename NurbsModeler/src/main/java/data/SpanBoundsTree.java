@@ -0,0 +1,140 @@
+package data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Bounding-box hierarchy over the knot spans of a {@link NURBSModel} in the x/y plane.
+ * <p>
+ * By the convex hull property, span k lies inside the hull of its control points k-p..k, so the
+ * box around those points bounds the curve piece and the control polygon edges between them.
+ * The boxes are kept in a complete binary tree over consecutive spans; a region query visits
+ * O(log n + visible) nodes, and a point edit refits only the p+1 affected leaves and their ancestors.
+ */
+public class SpanBoundsTree extends SpanCache {
+    private int firstSpan;
+    private int leafCount;
+    // Number of leaf slots, a power of two. Node 1 is the root, the leaves are at size..size+leafCount-1.
+    private int size;
+    // minX, minY, maxX, maxY per node
+    private double[] bounds = new double[0];
+    private final BitSet changedLeaves = new BitSet();
+    private boolean rebuilt;
+    private final int[] stack = new int[64];
+
+    public SpanBoundsTree(NURBSModel model) {
+        super(model);
+    }
+
+    /**
+     * Reports every non-empty span whose box intersects the given rectangle, in ascending order.
+     * Call {@link #update()} first.
+     */
+    public synchronized void query(double minX, double minY, double maxX, double maxY, IntConsumer spans) {
+        if (leafCount == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 1;
+        while (top > 0) {
+            int node = stack[--top];
+            int o = node * 4;
+            if (bounds[o] > maxX || bounds[o + 1] > maxY || bounds[o + 2] < minX || bounds[o + 3] < minY) {
+                continue;
+            }
+            if (node >= size) {
+                spans.accept(firstSpan + node - size);
+            } else {
+                // Right child first, so the left one is popped first.
+                stack[top++] = 2 * node + 1;
+                stack[top++] = 2 * node;
+            }
+        }
+    }
+
+    /**
+     * Writes the box around the whole curve as minX, minY, maxX, maxY.
+     * The box is empty (min > max) if the curve has no non-empty span.
+     */
+    public synchronized void getBounds(double[] out) {
+        if (leafCount == 0) {
+            out[0] = out[1] = Double.POSITIVE_INFINITY;
+            out[2] = out[3] = Double.NEGATIVE_INFINITY;
+        } else {
+            System.arraycopy(bounds, 4, out, 0, 4);
+        }
+    }
+
+    @Override
+    protected void reset(NURBSSnapshot s) {
+        firstSpan = s.getDegree();
+        leafCount = s.size() - s.getDegree();
+        size = leafCount <= 1 ? 1 : Integer.highestOneBit(leafCount - 1) << 1;
+        if (bounds.length < 8 * size) {
+            bounds = new double[8 * size];
+        }
+        for (int node = 0; node < 2 * size; node++) {
+            setEmpty(node);
+        }
+        changedLeaves.clear();
+        rebuilt = true;
+    }
+
+    @Override
+    protected void computeSpan(NURBSSnapshot s, int k) {
+        int leaf = size + k - firstSpan;
+        int o = leaf * 4;
+        if (s.getKnot(k) == s.getKnot(k + 1)) {
+            setEmpty(leaf);
+        } else {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = k - s.getDegree(); i <= k; i++) {
+                double x = s.getX(i), y = s.getY(i);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+            bounds[o] = minX;
+            bounds[o + 1] = minY;
+            bounds[o + 2] = maxX;
+            bounds[o + 3] = maxY;
+        }
+        if (!rebuilt) {
+            changedLeaves.set(leaf);
+        }
+    }
+
+    @Override
+    protected void finishUpdate(NURBSSnapshot s) {
+        if (rebuilt) {
+            for (int node = size - 1; node >= 1; node--) {
+                refit(node);
+            }
+            rebuilt = false;
+            return;
+        }
+        for (int leaf = changedLeaves.nextSetBit(0); leaf >= 0; leaf = changedLeaves.nextSetBit(leaf + 1)) {
+            for (int node = leaf >> 1; node >= 1; node >>= 1) {
+                refit(node);
+            }
+        }
+        changedLeaves.clear();
+    }
+
+    private void refit(int node) {
+        int o = node * 4, l = 8 * node, r = l + 4;
+        bounds[o] = Math.min(bounds[l], bounds[r]);
+        bounds[o + 1] = Math.min(bounds[l + 1], bounds[r + 1]);
+        bounds[o + 2] = Math.max(bounds[l + 2], bounds[r + 2]);
+        bounds[o + 3] = Math.max(bounds[l + 3], bounds[r + 3]);
+    }
+
+    private void setEmpty(int node) {
+        int o = node * 4;
+        Arrays.fill(bounds, o, o + 2, Double.POSITIVE_INFINITY);
+        Arrays.fill(bounds, o + 2, o + 4, Double.NEGATIVE_INFINITY);
+    }
+}
@@ -0,0 +1,135 @@
+package data;
+
+import java.util.BitSet;
+
+/**
+ * Base class for data derived per knot span of a {@link NURBSModel}.
+ * <p>
+ * Span k covers [U_k, U_{k+1}) for k = p..n and depends on the control points k-p..k and the
+ * knots k-p+1..k+p. Edits only mark the spans they touch as dirty, and {@link #update()}
+ * recomputes exactly those. Structural edits (changed point count, knot count or degree)
+ * shift all span indices and cause a full rebuild.
+ * <p>
+ * The model publishes a snapshot before it reports the edit, so {@link #update()} works on the
+ * last snapshot reported to the cache, never on a newer one whose edit has not been marked yet.
+ */
+public abstract class SpanCache implements EditListener {
+    protected NURBSModel model;
+    private final BitSet dirty = new BitSet();
+    private boolean rebuild = true;
+    // Letzter gemeldeter Stand; dirty und rebuild beziehen sich genau auf ihn
+    private NURBSSnapshot reported;
+
+    protected SpanCache(NURBSModel model) {
+        this.model = model;
+        synchronized (model) {
+            // Unter der Sperre des Modells wird zwischen Snapshot und Anmeldung nichts veröffentlicht
+            model.addEditListener(this);
+            reported = model.snapshot();
+        }
+    }
+
+    @Override
+    public synchronized void edited(NURBSSnapshot snapshot, EditDelta delta) {
+        reported = snapshot;
+        if (rebuild) {
+            return;
+        }
+        if (delta.isStructural()) {
+            rebuild = true;
+            return;
+        }
+        int p = snapshot.getDegree();
+        if (delta instanceof CompoundEdit compound) {
+            // Teile einzeln markieren, damit verstreute Änderungen nicht den ganzen Bereich dazwischen treffen
+            for (int i = 0; i < compound.getEditCount(); i++) {
+                mark(compound.getEdit(i), p, snapshot.size() - 1);
+            }
+        } else {
+            mark(delta, p, snapshot.size() - 1);
+        }
+    }
+
+    private void mark(EditDelta delta, int p, int n) {
+        if (delta.getFirstPoint() >= 0) {
+            markSpans(delta.getFirstPoint(), delta.getLastPoint() + p, p, n);
+        }
+        if (delta.getFirstKnot() >= 0) {
+            markSpans(delta.getFirstKnot() - p, delta.getLastKnot() + p - 1, p, n);
+        }
+    }
+
+    /**
+     * Moves the cache from its model to another one; the next update rebuilds all spans. Subclasses
+     * keep their storage where the new curve fits into it, so one cache can serve many curves in turn.
+     * Call it on the thread that uses the cache.
+     */
+    public void rebind(NURBSModel next) {
+        model.removeEditListener(this);
+        synchronized (next) {
+            next.addEditListener(this);
+            synchronized (this) {
+                model = next;
+                reported = next.snapshot();
+                rebuild = true;
+            }
+        }
+    }
+
+    /**
+     * Forces all spans to be recomputed on the next update.
+     */
+    public synchronized void invalidateAll() {
+        rebuild = true;
+    }
+
+    /**
+     * Brings the cache up to date with the last state reported to it. On the thread that edits the
+     * model this is the current state.
+     * @return the snapshot the cache now reflects
+     */
+    public synchronized NURBSSnapshot update() {
+        NURBSSnapshot s = reported;
+        if (!s.isValid()) {
+            return s;
+        }
+        int p = s.getDegree();
+        int n = s.size() - 1;
+        if (rebuild) {
+            rebuild = false;
+            reset(s);
+            dirty.clear();
+            dirty.set(p, n + 1);
+        }
+        for (int k = dirty.nextSetBit(0); k >= 0; k = dirty.nextSetBit(k + 1)) {
+            computeSpan(s, k);
+        }
+        dirty.clear();
+        finishUpdate(s);
+        return s;
+    }
+
+    /**
+     * Discards all cached data and prepares storage for the spans of the given snapshot.
+     */
+    protected abstract void reset(NURBSSnapshot s);
+
+    /**
+     * Recomputes the cached data of span k. Empty spans (U_k == U_{k+1}) are passed as well.
+     */
+    protected abstract void computeSpan(NURBSSnapshot s, int k);
+
+    /**
+     * Called at the end of every update, after all dirty spans were recomputed.
+     */
+    protected void finishUpdate(NURBSSnapshot s) {
+    }
+
+    private void markSpans(int from, int to, int p, int n) {
+        from = Math.max(from, p);
+        to = Math.min(to, n);
+        if (from <= to) {
+            dirty.set(from, to + 1);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package data;
+
+/**
+ * Finds the knot span k with U[k] <= u < U[k+1] for parameters of a curve of degree p
+ * (Piegl/Tiller, "The NURBS Book", A2.1).
+ * <p>
+ * {@link #findSpan(double[], int, double)} is a plain binary search for random access.
+ * An instance additionally remembers the last span it returned: a query in the same span
+ * costs one comparison, and a monotonically increasing sweep advances the cursor step by step,
+ * so N ordered samples over n spans cost O(N + n) instead of O(N log n).
+ * Queries that move backwards fall back to binary search.
+ * <p>
+ * The domain end u == U[m-p] belongs to the last span n; parameters outside the domain are
+ * clamped to the first or last span. Instances are not thread-safe.
+ */
+public final class SpanLocator {
+    private double[] knots = new double[0];
+    private int degree;
+    // Index of the last span, n = number of control points - 1
+    private int last;
+    private int cursor;
+
+    public SpanLocator() {
+    }
+
+    public SpanLocator(double[] knots, int degree) {
+        reset(knots, degree);
+    }
+
+    public SpanLocator(NURBSSnapshot s) {
+        reset(s.knots(), s.getDegree());
+    }
+
+    /**
+     * Binds the locator to another knot vector. The array is not copied and must not shrink
+     * while the locator uses it.
+     */
+    public void reset(double[] knots, int degree) {
+        this.knots = knots;
+        this.degree = degree;
+        this.last = knots.length - degree - 2;
+        this.cursor = degree;
+    }
+
+    public double[] getKnots() {
+        return knots;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * @return the span of u, starting the search at the span of the previous query
+     */
+    public int find(double u) {
+        double[] U = knots;
+        int k = cursor;
+        if (u >= U[k]) {
+            if (u < U[k + 1]) {
+                return k;
+            }
+            if (u >= U[last + 1]) {
+                return cursor = last;
+            }
+            // Vorwärts laufen; über einen ganzen Sweep höchstens n Schritte
+            do {
+                k++;
+            } while (u >= U[k + 1]);
+            return cursor = k;
+        }
+        return cursor = findSpan(U, degree, u);
+    }
+
+    /**
+     * Binary search for the span of u in the knot vector U of a curve with degree p.
+     */
+    public static int findSpan(double[] U, int p, double u) {
+        int n = U.length - p - 2;
+        if (u >= U[n + 1]) {
+            return n;
+        }
+        if (u <= U[p]) {
+            // Bei mehrfachen Knoten an U[p] die erste nichtleere Spanne wählen
+            int k = p;
+            while (u >= U[k + 1]) {
+                k++;
+            }
+            return k;
+        }
+        int low = p, high = n + 1;
+        // Invariante: U[low] <= u < U[high]
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (u < U[mid]) {
+                high = mid;
+            } else {
+                low = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,268 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Replaces a run of control points and a run of knots, and optionally changes the degree.
+ * Knot insertion, control point removal, knot vector edits and degree changes are all
+ * expressed as splices that only hold the replaced and the replacing values.
+ */
+public final class SpliceEdit extends EditDelta {
+    private static final double[] NONE = new double[0];
+
+    private final int pointIndex;
+    private final double[] oldPoints;
+    private final double[] newPoints;
+    private final int knotIndex;
+    private final double[] oldKnots;
+    private final double[] newKnots;
+    private final int oldDegree;
+    private final int newDegree;
+
+    /**
+     * @param pointIndex first control point index of the replaced run
+     * @param oldPoints  packed x, y, z, weight of the replaced points
+     * @param newPoints  packed x, y, z, weight of the replacing points
+     * @param knotIndex  first knot index of the replaced run
+     * @param oldKnots   replaced knot values
+     * @param newKnots   replacing knot values
+     */
+    public SpliceEdit(int pointIndex, double[] oldPoints, double[] newPoints,
+                      int knotIndex, double[] oldKnots, double[] newKnots,
+                      int oldDegree, int newDegree) {
+        this.pointIndex = pointIndex;
+        this.oldPoints = oldPoints;
+        this.newPoints = newPoints;
+        this.knotIndex = knotIndex;
+        this.oldKnots = oldKnots;
+        this.newKnots = newKnots;
+        this.oldDegree = oldDegree;
+        this.newDegree = newDegree;
+    }
+
+    /**
+     * Describes moving the single knot at the given index.
+     */
+    static SpliceEdit knotMove(int index, double oldValue, double newValue, int degree) {
+        return new SpliceEdit(0, NONE, NONE, index, new double[]{oldValue}, new double[]{newValue}, degree, degree);
+    }
+
+    /**
+     * Checks that the knot at the given index may move to u without passing its neighbours.
+     */
+    static void checkKnotMove(double[] U, int index, double u) {
+        if (index < 0 || index >= U.length)
+            throw new IndexOutOfBoundsException("Knot index out of range: " + index);
+        if ((index > 0 && u < U[index - 1]) || (index < U.length - 1 && u > U[index + 1]))
+            throw new IllegalArgumentException("Knot value must lie between its neighbours.");
+    }
+
+    /**
+     * Describes inserting the knot u once into the state of a builder (Boehm's algorithm).
+     * @throws IllegalArgumentException if u lies outside the domain of the curve
+     */
+    static SpliceEdit knotInsertion(NURBSSnapshot.Builder b, double u) {
+        double[] U = b.knots();
+        int p = b.degree();
+        int n = b.size() - 1;
+        int m = n + p + 1;
+
+        // Prüfe, ob u in der gültigen Domäne liegt.
+        if (u < U[p] || u > U[m - p])
+            throw new IllegalArgumentException("Knot value out of range.");
+
+        // Finde k, sodass U[k] <= u < U[k+1]; für u == U[m-p] ist k = m - p - 1
+        int k = SpanLocator.findSpan(U, p, u);
+
+        // Knoteneinfügealgorithmus: arbeite in homogenen Koordinaten.
+        // Punkte 0 bis k-p bleiben unverändert, die p-1 Punkte k-p+1 bis k-1 werden
+        // durch p neue ersetzt, ab k wird um eins verschoben.
+        double[] oldPoints = new double[(p - 1) * 4];
+        for (int i = k - p + 1; i < k; i++) {
+            b.getPoint(i, oldPoints, (i - (k - p + 1)) * 4);
+        }
+        double[] newPoints = new double[p * 4];
+        double[] Pi_1 = new double[4];
+        double[] Pi = new double[4];
+        // Berechne neue Kontrollpunkte für i = k-p+1 bis k:
+        for (int i = k - p + 1; i <= k; i++) {
+            double alpha = (u - U[i]) / (U[i + p] - U[i]);
+            // Umrechnung in homogene Koordinaten: H(P) = (w*x, w*y, w*z, w)
+            b.getPoint(i - 1, Pi_1, 0);
+            b.getPoint(i, Pi, 0);
+            double W1 = Pi_1[3];
+            double W2 = Pi[3];
+            double X = (1 - alpha) * W1 * Pi_1[0] + alpha * W2 * Pi[0];
+            double Y = (1 - alpha) * W1 * Pi_1[1] + alpha * W2 * Pi[1];
+            double Z = (1 - alpha) * W1 * Pi_1[2] + alpha * W2 * Pi[2];
+            double W = (1 - alpha) * W1 + alpha * W2;
+            int o = (i - (k - p + 1)) * 4;
+            newPoints[o] = X / W;
+            newPoints[o + 1] = Y / W;
+            newPoints[o + 2] = Z / W;
+            newPoints[o + 3] = W;
+        }
+
+        // Neue Knotensequenz der Länge m+2 mit u an Position k+1
+        return new SpliceEdit(k - p + 1, oldPoints, newPoints, k + 1, NONE, new double[]{u}, p, p);
+    }
+
+    /**
+     * Describes removing the control point at the given index together with the knot of the same index.
+     */
+    static SpliceEdit pointRemoval(NURBSSnapshot.Builder b, int index) {
+        if (index < 0 || index >= b.size())
+            throw new IndexOutOfBoundsException("Control point index out of range: " + index);
+        double[] removed = new double[NURBSSnapshot.STRIDE];
+        b.getPoint(index, removed, 0);
+        return new SpliceEdit(index, removed, NONE, index, new double[]{b.knots()[index]}, NONE, b.degree(), b.degree());
+    }
+
+    /**
+     * Describes the change from one knot vector to another by its differing middle part.
+     */
+    static SpliceEdit knotChange(double[] oldKnots, double[] newKnots, int oldDegree, int newDegree) {
+        int prefix = 0;
+        int max = Math.min(oldKnots.length, newKnots.length);
+        while (prefix < max && Double.compare(oldKnots[prefix], newKnots[prefix]) == 0) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && Double.compare(oldKnots[oldKnots.length - 1 - suffix], newKnots[newKnots.length - 1 - suffix]) == 0) {
+            suffix++;
+        }
+        double[] removed = Arrays.copyOfRange(oldKnots, prefix, oldKnots.length - suffix);
+        double[] added = Arrays.copyOfRange(newKnots, prefix, newKnots.length - suffix);
+        return new SpliceEdit(0, NONE, NONE, prefix, removed, added, oldDegree, newDegree);
+    }
+
+    public int getPointIndex() {
+        return pointIndex;
+    }
+
+    public int getOldPointCount() {
+        return oldPoints.length / NURBSSnapshot.STRIDE;
+    }
+
+    public int getNewPointCount() {
+        return newPoints.length / NURBSSnapshot.STRIDE;
+    }
+
+    // packed x, y, z, weight of the points inserted by this edit
+    public double[] getNewPoints() {
+        return newPoints.clone();
+    }
+
+    public int getKnotIndex() {
+        return knotIndex;
+    }
+
+    public int getOldKnotCount() {
+        return oldKnots.length;
+    }
+
+    public int getNewKnotCount() {
+        return newKnots.length;
+    }
+
+    public double[] getNewKnots() {
+        return newKnots.clone();
+    }
+
+    public int getOldDegree() {
+        return oldDegree;
+    }
+
+    public int getNewDegree() {
+        return newDegree;
+    }
+
+    /**
+     * @return true if this edit changes nothing
+     */
+    public boolean isEmpty() {
+        return oldPoints.length == 0 && newPoints.length == 0
+                && oldKnots.length == 0 && newKnots.length == 0 && oldDegree == newDegree;
+    }
+
+    /**
+     * @return true if both edits only move the same single knot, so that they can be merged
+     */
+    boolean canMergeWith(SpliceEdit later) {
+        return isKnotMove() && later.isKnotMove() && knotIndex == later.knotIndex;
+    }
+
+    // Combines this edit with a later move of the same knot into one that spans both.
+    SpliceEdit mergeWith(SpliceEdit later) {
+        return new SpliceEdit(pointIndex, NONE, NONE, knotIndex, oldKnots, later.newKnots, oldDegree, later.newDegree);
+    }
+
+    private boolean isKnotMove() {
+        return oldPoints.length == 0 && newPoints.length == 0
+                && oldKnots.length == 1 && newKnots.length == 1 && oldDegree == newDegree;
+    }
+
+    @Override
+    void applyTo(NURBSSnapshot.Builder b) {
+        int removed = getOldPointCount();
+        int added = getNewPointCount();
+        int common = Math.min(removed, added);
+        for (int i = 0; i < common; i++) {
+            b.set(pointIndex + i, newPoints, i * NURBSSnapshot.STRIDE);
+        }
+        for (int i = common; i < added; i++) {
+            int o = i * NURBSSnapshot.STRIDE;
+            b.insert(pointIndex + i, newPoints[o], newPoints[o + 1], newPoints[o + 2], newPoints[o + 3]);
+        }
+        for (int i = common; i < removed; i++) {
+            b.remove(pointIndex + common);
+        }
+
+        if (oldKnots.length != 0 || newKnots.length != 0) {
+            double[] U = b.knots();
+            double[] knots = new double[U.length - oldKnots.length + newKnots.length];
+            System.arraycopy(U, 0, knots, 0, knotIndex);
+            System.arraycopy(newKnots, 0, knots, knotIndex, newKnots.length);
+            int tail = knotIndex + oldKnots.length;
+            System.arraycopy(U, tail, knots, knotIndex + newKnots.length, U.length - tail);
+            b.knots(knots);
+        }
+        b.degree(newDegree);
+    }
+
+    @Override
+    public SpliceEdit inverse() {
+        return new SpliceEdit(pointIndex, newPoints, oldPoints, knotIndex, newKnots, oldKnots, newDegree, oldDegree);
+    }
+
+    @Override
+    public boolean isStructural() {
+        return oldPoints.length != newPoints.length || oldKnots.length != newKnots.length || oldDegree != newDegree;
+    }
+
+    @Override
+    public int getFirstPoint() {
+        return newPoints.length == 0 ? -1 : pointIndex;
+    }
+
+    @Override
+    public int getLastPoint() {
+        return newPoints.length == 0 ? -1 : pointIndex + getNewPointCount() - 1;
+    }
+
+    @Override
+    public int getFirstKnot() {
+        return newKnots.length == 0 ? -1 : knotIndex;
+    }
+
+    @Override
+    public int getLastKnot() {
+        return newKnots.length == 0 ? -1 : knotIndex + newKnots.length - 1;
+    }
+
+    @Override
+    public long estimateSize() {
+        return 96 + 8L * (oldPoints.length + newPoints.length + oldKnots.length + newKnots.length);
+    }
+}
@@ -0,0 +1,182 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of edits of a {@link NURBSModel} that is published as a whole.
+ * <p>
+ * Every edit is applied right away to a private builder, so the getters see the pending state and
+ * later edits build on earlier ones, but nothing is visible to readers or listeners until
+ * {@link #commit()}. The commit publishes one snapshot and reports one {@link CompoundEdit}, so a
+ * batch of n edits costs O(n) plus a single round of listener work instead of n rounds.
+ * Repeated moves of the same control point are merged into one part.
+ * <p>
+ * Obtain one with {@link NURBSModel#begin()} or {@link NURBSModel#edit(java.util.function.Consumer)}.
+ * A transaction is not thread-safe and can be committed once.
+ */
+public final class Transaction {
+    private final NURBSModel model;
+    private final NURBSSnapshot base;
+    private final NURBSSnapshot.Builder builder;
+    private final List<EditDelta> edits = new ArrayList<>();
+    // Position des letzten Punktverschiebens je Index seit dem letzten Splice, zum Zusammenfassen
+    private final Map<Integer, Integer> pointEdits = new HashMap<>();
+    private boolean done;
+
+    Transaction(NURBSModel model, NURBSSnapshot base) {
+        this.model = model;
+        this.base = base;
+        this.builder = base.toBuilder();
+    }
+
+    public int size() {
+        return builder.size();
+    }
+
+    public int getDegree() {
+        return builder.degree();
+    }
+
+    public int getKnotCount() {
+        return builder.knots().length;
+    }
+
+    public double getKnot(int i) {
+        return builder.knots()[i];
+    }
+
+    /**
+     * @return a copy of the pending knot vector
+     */
+    public double[] getKnots() {
+        return builder.knots().clone();
+    }
+
+    /**
+     * Copies x, y, z and weight of the pending control point i to out[offset..offset+3].
+     */
+    public void getPoint(int i, double[] out, int offset) {
+        if (i < 0 || i >= builder.size())
+            throw new IndexOutOfBoundsException("Control point index out of range: " + i);
+        builder.getPoint(i, out, offset);
+    }
+
+    /**
+     * @return the number of parts recorded so far
+     */
+    public int getEditCount() {
+        return edits.size();
+    }
+
+    public Transaction setControlPoint(int index, double x, double y, double z, double weight) {
+        checkOpen();
+        if (index < 0 || index >= builder.size())
+            throw new IndexOutOfBoundsException("Control point index out of range: " + index);
+        NURBSSnapshot.Builder b = builder;
+        record(new PointEdit(index, b.get(index, 0), b.get(index, 1), b.get(index, 2), b.get(index, 3),
+                x, y, z, weight));
+        return this;
+    }
+
+    /**
+     * @see NURBSModel#insertKnot(double)
+     */
+    public Transaction insertKnot(double u) {
+        checkOpen();
+        record(SpliceEdit.knotInsertion(builder, u));
+        return this;
+    }
+
+    /**
+     * @see NURBSModel#removeControlPoint(int)
+     */
+    public Transaction removeControlPoint(int index) {
+        checkOpen();
+        record(SpliceEdit.pointRemoval(builder, index));
+        return this;
+    }
+
+    public Transaction setDegree(int d) {
+        checkOpen();
+        record(SpliceEdit.knotChange(builder.knots(), builder.knots(), builder.degree(), d));
+        return this;
+    }
+
+    public Transaction setDegree(int d, double[] knots) {
+        checkOpen();
+        record(SpliceEdit.knotChange(builder.knots(), knots, builder.degree(), d));
+        return this;
+    }
+
+    public Transaction setKnots(double[] knots) {
+        checkOpen();
+        record(SpliceEdit.knotChange(builder.knots(), knots, builder.degree(), builder.degree()));
+        return this;
+    }
+
+    /**
+     * @see NURBSModel#setKnot(int, double)
+     */
+    public Transaction setKnot(int index, double u) {
+        checkOpen();
+        double[] U = builder.knots();
+        SpliceEdit.checkKnotMove(U, index, u);
+        if (u != U[index]) {
+            record(SpliceEdit.knotMove(index, U[index], u, builder.degree()));
+        }
+        return this;
+    }
+
+    /**
+     * Publishes all edits as one version of the model. A single edit is reported as itself,
+     * several as one {@link CompoundEdit}; without edits nothing is published.
+     * @return the reported delta, or null if there was nothing to publish
+     * @throws java.util.ConcurrentModificationException if the model was edited after {@link NURBSModel#begin()}
+     */
+    public EditDelta commit() {
+        checkOpen();
+        done = true;
+        if (edits.isEmpty()) {
+            return null;
+        }
+        EditDelta delta = edits.size() == 1 ? edits.get(0)
+                : new CompoundEdit(edits, base.size(), base.getKnotCount(), builder.size(), builder.knots().length);
+        model.commit(base, builder, delta);
+        return delta;
+    }
+
+    /**
+     * Discards all edits of this transaction.
+     */
+    public void rollback() {
+        done = true;
+        edits.clear();
+    }
+
+    private void record(EditDelta delta) {
+        if (delta instanceof SpliceEdit splice && splice.isEmpty()) {
+            return;
+        }
+        delta.applyTo(builder);
+        if (delta instanceof PointEdit move) {
+            Integer last = pointEdits.get(move.getIndex());
+            if (last != null) {
+                edits.set(last, ((PointEdit) edits.get(last)).mergeWith(move));
+                return;
+            }
+            pointEdits.put(move.getIndex(), edits.size());
+        } else {
+            // Nach einem Splice können sich die Indizes verschoben haben
+            pointEdits.clear();
+        }
+        edits.add(delta);
+    }
+
+    private void checkOpen() {
+        if (done)
+            throw new IllegalStateException("Transaction has already been committed or rolled back.");
+    }
+}
@@ -1,24 +1,34 @@
 package gui;
 
+import data.EditDelta;
+import data.EditJournal;
 import data.NURBSModel;
+import data.PointEdit;
 import gui.events.ControlPointMovedEvent;
+import gui.events.DefaultEventListener;
 import gui.events.EventSystem;
 import gui.events.KnotVectorChangedEvent;
-import gui.events.NURBSResolutionChangedEvent;
 
 import javax.swing.*;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 
+// Bedienelemente einer Kurve. Ansichtseinstellungen, die für alle Kurven gelten, liegen im ViewSettingsPanel.
 public class ControlPanel extends JPanel {
     private final JTextField insertKnotField;
     private final EventSystem eventSystem = EventSystem.getInstance();
+    private final EditJournal journal;
+    private final JSpinner degreeSpinner;
+    private final DefaultEventListener<KnotVectorChangedEvent> knotVectorListener;
 
     public ControlPanel(NURBSModel model, NURBSPanel drawingPanel) {
         setLayout(new GridBagLayout());
+        journal = new EditJournal(model);
 
         // Tabelle für Kontrollpunkte:
         JScrollPane controlPointsTable = getControlPointsTable(model, drawingPanel);
@@ -41,19 +51,41 @@ public class ControlPanel extends JPanel {
         // Panel for other stuff:
         JPanel paramPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         paramPanel.add(new JLabel("Degree:"));
-        var degreeSpinner = new JSpinner(new SpinnerNumberModel(model.getDegree(), 1, 10, 1));
+        degreeSpinner = new JSpinner(new SpinnerNumberModel(model.getDegree(), 1, 10, 1));
         degreeSpinner.addChangeListener(e -> {
             int newDegree = (Integer) degreeSpinner.getValue();
-            model.setDegree(newDegree);
-            double[] newKnots = model.generateUniformKnotVector(model.getControlPoints().size(), newDegree);
-            model.setKnots(newKnots);
+            if (newDegree == model.getDegree()) {
+                return;
+            }
+            double[] newKnots = model.generateUniformKnotVector(model.getControlPointCount(), newDegree);
+            model.setDegree(newDegree, newKnots);
             eventSystem.dispatch(new KnotVectorChangedEvent(this, newKnots));
         });
         paramPanel.add(degreeSpinner);
-        var resolutionSpinner = new JSpinner(new SpinnerNumberModel(200, 100, 1000, 100));
-        resolutionSpinner.addChangeListener(e -> eventSystem.dispatch(new NURBSResolutionChangedEvent(this, (Integer) resolutionSpinner.getValue())));
-        paramPanel.add(new JLabel("Resolution:"));
-        paramPanel.add(resolutionSpinner);
+        knotVectorListener = e -> degreeSpinner.setValue(model.getDegree());
+
+        // Rückgängig / Wiederholen:
+        JPanel historyPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        Action undoAction = new AbstractAction("Undo") {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                publishHistoryEdit(model, journal.undo());
+                drawingPanel.repaint();
+            }
+        };
+        Action redoAction = new AbstractAction("Redo") {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                publishHistoryEdit(model, journal.redo());
+                drawingPanel.repaint();
+            }
+        };
+        historyPanel.add(new JButton(undoAction));
+        historyPanel.add(new JButton(redoAction));
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        getActionMap().put("undo", undoAction);
+        getActionMap().put("redo", redoAction);
 
         var knotPanel = new KnotPanel(model);
 
@@ -67,11 +99,13 @@ public class ControlPanel extends JPanel {
 
         add(paramPanel, gbc);
         gbc.gridy = 1;
-        add(knotControl, gbc);
+        add(historyPanel, gbc);
         gbc.gridy = 2;
+        add(knotControl, gbc);
+        gbc.gridy = 3;
 
         add(knotPanel, gbc);
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         gbc.weighty = 1;
         gbc.fill = GridBagConstraints.BOTH;
         add(controlPointsTable, gbc);
@@ -79,9 +113,9 @@ public class ControlPanel extends JPanel {
     }
 
     private JScrollPane getControlPointsTable(NURBSModel model, NURBSPanel drawingPanel) {
-        var controlPointsTableModel = new ControlPointTableModel(model.getControlPoints());
+        var controlPointsTableModel = new ControlPointTableModel(model);
         controlPointsTableModel.addTableModelListener(e -> drawingPanel.repaint());
-        JTable table = new JTable(controlPointsTableModel);
+        JTable table = new ControlPointTable(controlPointsTableModel);
         JPopupMenu popupMenu = new JPopupMenu();
         popupMenu.addPopupMenuListener(new PopupMenuListener() {
             @Override
@@ -113,21 +147,42 @@ public class ControlPanel extends JPanel {
                     return;
                 }
                 model.removeControlPoint(row);
+                eventSystem.dispatch(new KnotVectorChangedEvent(this, model.getKnots()));
                 drawingPanel.repaint();
-                this.repaint();
             }
         });
         table.setComponentPopupMenu(popupMenu);
 
-        var controlPointsTable = new JScrollPane(table);
+        // Die Tabelle meldet ihre Änderungen selbst zeilengenau über das Modell.
+        return new JScrollPane(table);
+    }
 
-        eventSystem.subscribe(KnotVectorChangedEvent.class, e -> {
-            controlPointsTableModel.setControlPoints(model.getControlPoints());
-            controlPointsTableModel.fireTableDataChanged();
-        });
-        eventSystem.subscribe(ControlPointMovedEvent.class, e -> controlPointsTable.repaint());
+    // Nur ein angezeigtes Panel hört auf Ereignisse; ausgeblendete Panels kosten beim Verteilen nichts
+    // und halten keine Anmeldung fest.
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        eventSystem.subscribe(KnotVectorChangedEvent.class, knotVectorListener);
+        knotVectorListener.handle(null);
+    }
+
+    @Override
+    public void removeNotify() {
+        eventSystem.unsubscribe(KnotVectorChangedEvent.class, knotVectorListener);
+        super.removeNotify();
+    }
+
+    public EditJournal getJournal() {
+        return journal;
+    }
 
-        return controlPointsTable;
+    // Informiert die Oberfläche über eine durch Undo/Redo angewendete Änderung.
+    private void publishHistoryEdit(NURBSModel model, EditDelta delta) {
+        if (delta instanceof PointEdit move) {
+            eventSystem.dispatch(new ControlPointMovedEvent(model, move.getIndex(), move.getOldValues(), move.getNewValues()));
+        } else if (delta != null) {
+            eventSystem.dispatch(new KnotVectorChangedEvent(this, model.getKnots()));
+        }
     }
 
     private JButton getInsertKnotButton(NURBSModel model) {
@@ -0,0 +1,51 @@
+package gui;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+// Tabelle der Kontrollpunkte. JTable zeichnet nur die sichtbaren Zeilen; beim Zeichnen werden die
+// Werte über getDouble() ohne Boxing gelesen, statt für jede Zelle ein Double zu erzeugen.
+class ControlPointTable extends JTable {
+    private final ControlPointTableModel tableModel;
+    private final DoubleRenderer doubleRenderer = new DoubleRenderer();
+
+    ControlPointTable(ControlPointTableModel tableModel) {
+        super(tableModel);
+        this.tableModel = tableModel;
+    }
+
+    @Override
+    public TableCellRenderer getCellRenderer(int row, int column) {
+        return doubleRenderer;
+    }
+
+    @Override
+    public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+        if (renderer != doubleRenderer) {
+            return super.prepareRenderer(renderer, row, column);
+        }
+        boolean isSelected = false;
+        boolean hasFocus = false;
+        if (!isPaintingForPrint()) {
+            isSelected = isCellSelected(row, column);
+            hasFocus = getSelectionModel().getLeadSelectionIndex() == row
+                    && getColumnModel().getSelectionModel().getLeadSelectionIndex() == column
+                    && isFocusOwner();
+        }
+        doubleRenderer.getTableCellRendererComponent(this, null, isSelected, hasFocus, row, column);
+        doubleRenderer.setValue(tableModel.getDouble(convertRowIndexToModel(row), convertColumnIndexToModel(column)));
+        return doubleRenderer;
+    }
+
+    private static class DoubleRenderer extends DefaultTableCellRenderer {
+        DoubleRenderer() {
+            setHorizontalAlignment(RIGHT);
+        }
+
+        void setValue(double value) {
+            setText(Double.toString(value));
+        }
+    }
+}
@@ -1,28 +1,65 @@
 package gui;
 
-import data.ControlPoint;
+import data.EditDelta;
+import data.EditListener;
 import data.NURBSModel;
-import gui.events.EventSystem;
+import data.NURBSSnapshot;
+import data.SpliceEdit;
 
+import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
-import java.util.List;
 
 // TableModel zur Darstellung und Bearbeitung der Kontrollpunkte.
-public class ControlPointTableModel extends AbstractTableModel {
-    private List<ControlPoint> controlPoints;
+// Die Tabelle zeigt immer den zuletzt gemeldeten Snapshot; jede Änderung am Modell wird als
+// genau begrenzter Zeilenbereich gemeldet, damit auch sehr große Tabellen flüssig bleiben.
+public class ControlPointTableModel extends AbstractTableModel implements EditListener {
+    private final NURBSModel model;
+    private NURBSSnapshot shown;
     private int currentDimension = 2;
 
-    public ControlPointTableModel(List<ControlPoint> controlPoints) {
-        this.controlPoints = controlPoints;
+    public ControlPointTableModel(NURBSModel model) {
+        this.model = model;
+        model.addEditListener(this);
+        this.shown = model.snapshot();
     }
 
-    public void setControlPoints(List<ControlPoint> cps) {
-        this.controlPoints = cps;
+    @Override
+    public void edited(NURBSSnapshot snapshot, EditDelta delta) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            show(snapshot, delta);
+        } else {
+            SwingUtilities.invokeLater(() -> show(snapshot, delta));
+        }
+    }
+
+    // Übernimmt den neuen Snapshot und meldet nur die betroffenen Zeilen.
+    private void show(NURBSSnapshot snapshot, EditDelta delta) {
+        shown = snapshot;
+        if (delta instanceof SpliceEdit splice) {
+            int first = splice.getPointIndex();
+            int oldCount = splice.getOldPointCount();
+            int newCount = splice.getNewPointCount();
+            int common = Math.min(oldCount, newCount);
+            if (common > 0) {
+                fireTableRowsUpdated(first, first + common - 1);
+            }
+            if (newCount > oldCount) {
+                fireTableRowsInserted(first + common, first + newCount - 1);
+            } else if (oldCount > newCount) {
+                fireTableRowsDeleted(first + common, first + oldCount - 1);
+            }
+        } else if (!delta.isStructural()) {
+            if (delta.getFirstPoint() >= 0) {
+                fireTableRowsUpdated(delta.getFirstPoint(), delta.getLastPoint());
+            }
+        } else {
+            fireTableDataChanged();
+        }
     }
 
     @Override
     public int getRowCount() {
-        return controlPoints.size();
+        return shown.size();
     }
 
     @Override
@@ -32,13 +69,20 @@ public class ControlPointTableModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        ControlPoint cp = controlPoints.get(rowIndex);
+        if (rowIndex >= shown.size()) {
+            return null;
+        }
+        return getDouble(rowIndex, columnIndex);
+    }
+
+    // Liest den Zellwert ohne Boxing direkt aus dem Snapshot; wird beim Zeichnen verwendet.
+    double getDouble(int rowIndex, int columnIndex) {
+        NURBSSnapshot cps = shown;
         return switch (columnIndex) {
-            case 0 -> cp.x;
-            case 1 -> cp.y;
-            case 2 -> currentDimension == 2 ? cp.weight : cp.z;
-            case 3 -> cp.weight;
-            default -> null;
+            case 0 -> cps.getX(rowIndex);
+            case 1 -> cps.getY(rowIndex);
+            case 2 -> currentDimension == 2 ? cps.getWeight(rowIndex) : cps.getZ(rowIndex);
+            default -> cps.getWeight(rowIndex);
         };
     }
 
@@ -51,25 +95,28 @@ public class ControlPointTableModel extends AbstractTableModel {
     public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
         try {
             double val = Double.parseDouble(aValue.toString());
-            ControlPoint cp = controlPoints.get(rowIndex);
+            double[] cp = new double[4];
+            shown.getPoint(rowIndex, cp, 0);
             switch (columnIndex) {
                 case 0:
-                    cp.x = val;
+                    cp[0] = val;
                     break;
                 case 1:
-                    cp.y = val;
+                    cp[1] = val;
                     break;
                 case 2:
                     if (currentDimension == 2)
-                        cp.weight = val;
+                        cp[3] = val;
                     else
-                        cp.z = val;
+                        cp[2] = val;
                     break;
                 case 3:
-                    cp.weight = val;
+                    cp[3] = val;
                     break;
             }
-            fireTableCellUpdated(rowIndex, columnIndex);
+            model.setControlPoint(rowIndex, cp[0], cp[1], cp[2], cp[3]);
+            // Jede Zelleneingabe ist ein eigener Undo-Schritt. Die Zeile wird über edited() gemeldet.
+            model.endGesture();
         } catch (NumberFormatException e) {
             // Ungültige Eingabe ignorieren.
             System.err.println("Invalid input: " + aValue);
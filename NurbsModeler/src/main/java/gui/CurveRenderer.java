@@ -0,0 +1,196 @@
+package gui;
+
+import data.ArcLengthTable;
+import data.FloatCurve;
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanBoundsTree;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Zeichenlogik für Kurven in einem Viewport, gemeinsam genutzt vom NURBSPanel und vom ThumbnailService.
+// Hält pro Kurve die Auswertungs-Zwischenspeicher; nicht thread-sicher, ein Renderer pro Thread.
+class CurveRenderer {
+    private final Viewport viewport;
+    private int resolution = 100;
+    private boolean equalArcLength;
+    private boolean singlePrecision;
+    // Auswertungs-Zwischenspeicher jeder gezeichneten Kurve
+    private final Map<NURBSModel, CurveView> views = new IdentityHashMap<>();
+    private int[] xs = new int[0], ys = new int[0];
+    // Spannen der letzten Abfrage, aufsteigend sortiert
+    private int[] spans = new int[0];
+    private int spanCount;
+    // Sichtbarer Bereich in Modellkoordinaten: minX, minY, maxX, maxY
+    private final double[] visible = new double[4];
+
+    private class CurveView {
+        final CurveSampleCache sampleCache;
+        final ArcLengthTable arcLength;
+
+        CurveView(NURBSModel model) {
+            sampleCache = new CurveSampleCache(model, resolution);
+            arcLength = new ArcLengthTable(model);
+            sampleCache.setArcLengthTable(equalArcLength ? arcLength : null);
+            sampleCache.setSinglePrecision(singlePrecision);
+        }
+    }
+
+    CurveRenderer(Viewport viewport) {
+        this.viewport = viewport;
+    }
+
+    Viewport getViewport() {
+        return viewport;
+    }
+
+    void setResolution(int resolution) {
+        this.resolution = resolution;
+        views.values().forEach(v -> v.sampleCache.setResolution(resolution));
+    }
+
+    int getResolution() {
+        return resolution;
+    }
+
+    // Kurvenpunkte in float statt double auswerten und speichern; nur für die Anzeige
+    void setSinglePrecision(boolean singlePrecision) {
+        this.singlePrecision = singlePrecision;
+        views.values().forEach(v -> v.sampleCache.setSinglePrecision(singlePrecision));
+    }
+
+    void setEqualArcLength(boolean equalArcLength) {
+        this.equalArcLength = equalArcLength;
+        views.values().forEach(v -> v.sampleCache.setArcLengthTable(equalArcLength ? v.arcLength : null));
+    }
+
+    // Legt den sichtbaren Bereich für die folgenden drawCurve-Aufrufe fest, um margin Pixel erweitert.
+    // Liefert ihn in Modellkoordinaten (minX, minY, maxX, maxY); das Feld wird wiederverwendet.
+    double[] setVisibleArea(int width, int height, int margin) {
+        viewport.getVisibleBounds(width, height, margin, visible);
+        return visible;
+    }
+
+    // Vergisst die Zwischenspeicher einer Kurve und meldet sie beim Modell ab.
+    void release(NURBSModel curve) {
+        CurveView view = views.remove(curve);
+        if (view != null) {
+            curve.removeEditListener(view.sampleCache);
+            curve.removeEditListener(view.arcLength);
+        }
+    }
+
+    // Übergibt die Zwischenspeicher einer Kurve an eine andere, die statt ihrer gezeichnet wird.
+    // Der Speicher der Spannen wird weiterverwendet.
+    void rebind(NURBSModel from, NURBSModel to) {
+        CurveView view = views.remove(from);
+        if (view != null) {
+            view.sampleCache.rebind(to);
+            view.arcLength.rebind(to);
+            views.put(to, view);
+        }
+    }
+
+    void drawCurve(Graphics2D g2, NURBSModel curve, SpanBoundsTree spanBounds, boolean isActive) {
+        CurveView view = views.computeIfAbsent(curve, CurveView::new);
+        // Ein Snapshot für die ganze Kurve, damit alles aus demselben Zustand stammt.
+        NURBSSnapshot cps = view.sampleCache.update();
+        if (equalArcLength) {
+            // Nur die geänderten Spannen werden neu integriert
+            view.arcLength.update();
+        }
+
+        // Nur Spannen, deren Kontrollpunkt-Box den sichtbaren Bereich schneidet, werden gezeichnet.
+        // Die Kurve liegt in der konvexen Hülle dieser Punkte, alle anderen sind sicher unsichtbar.
+        collectSpans(spanBounds, visible[0], visible[1], visible[2], visible[3]);
+        int p = cps.getDegree();
+
+        // Zeichne das Kontrollpolygon (Grau) und die Kontrollpunkte (Rot) der sichtbaren Spannen,
+        // bei nicht aktiven Kurven nur kleine graue Punkte
+        int end = -1;
+        for (int s = 0; s < spanCount; s++) {
+            int k = spans[s];
+            int from = Math.max(k - p, end + 1);
+            if (isActive) {
+                g2.setColor(Color.GRAY);
+                for (int i = Math.max(from - 1, k - p); i < k; i++) {
+                    g2.drawLine(viewport.toScreenX(cps.getX(i)), viewport.toScreenY(cps.getY(i)),
+                            viewport.toScreenX(cps.getX(i + 1)), viewport.toScreenY(cps.getY(i + 1)));
+                }
+                g2.setColor(Color.RED);
+                for (int i = from; i <= k; i++) {
+                    g2.fillOval(viewport.toScreenX(cps.getX(i)) - 4, viewport.toScreenY(cps.getY(i)) - 4, 8, 8);
+                }
+            } else {
+                g2.setColor(Color.LIGHT_GRAY);
+                for (int i = from; i <= k; i++) {
+                    g2.fillOval(viewport.toScreenX(cps.getX(i)) - 3, viewport.toScreenY(cps.getY(i)) - 3, 6, 6);
+                }
+            }
+            end = k;
+        }
+
+        // Zeichne die NURBS-Kurve Spanne für Spanne aus dem Zwischenspeicher
+        g2.setColor(isActive ? Color.BLUE : Color.DARK_GRAY);
+        FloatCurve floatCurve = view.sampleCache.getFloatCurve();
+        for (int s = 0; s < spanCount; s++) {
+            if (floatCurve != null) {
+                float[] xy = view.sampleCache.getFloatSamples(cps, spans[s]);
+                if (xy != null) {
+                    drawPolyline(g2, xy, floatCurve.getOriginX(), floatCurve.getOriginY());
+                }
+            } else {
+                double[] xy = view.sampleCache.getSamples(cps, spans[s]);
+                if (xy != null) {
+                    drawPolyline(g2, xy);
+                }
+            }
+        }
+    }
+
+    // Sammelt die Spannen, deren Box das Rechteck (Modellkoordinaten) schneidet, aufsteigend sortiert.
+    // Liefert ihre Anzahl; die Spannen selbst stehen danach über getSpan bereit.
+    int collectSpans(SpanBoundsTree spanBounds, double minX, double minY, double maxX, double maxY) {
+        spanCount = 0;
+        spanBounds.query(minX, minY, maxX, maxY, k -> {
+            if (spanCount == spans.length) {
+                spans = Arrays.copyOf(spans, Math.max(16, 2 * spanCount));
+            }
+            spans[spanCount++] = k;
+        });
+        return spanCount;
+    }
+
+    int getSpan(int index) {
+        return spans[index];
+    }
+
+    private void drawPolyline(Graphics2D g2, double[] xy) {
+        int count = xy.length / 2;
+        if (xs.length < count) {
+            xs = new int[count];
+            ys = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            xs[i] = viewport.toScreenX(xy[2 * i]);
+            ys[i] = viewport.toScreenY(xy[2 * i + 1]);
+        }
+        g2.drawPolyline(xs, ys, count);
+    }
+
+    private void drawPolyline(Graphics2D g2, float[] xy, double originX, double originY) {
+        int count = xy.length / 2;
+        if (xs.length < count) {
+            xs = new int[count];
+            ys = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            xs[i] = viewport.toScreenX(originX + xy[2 * i]);
+            ys[i] = viewport.toScreenY(originY + xy[2 * i + 1]);
+        }
+        g2.drawPolyline(xs, ys, count);
+    }
+}
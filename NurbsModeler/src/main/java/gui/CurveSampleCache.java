@@ -0,0 +1,173 @@
+package gui;
+
+import data.ArcLengthTable;
+import data.FloatCurve;
+import data.NURBSEvaluator;
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanCache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Zwischenspeicher der Kurvenpunkte (Modellkoordinaten) pro Knotenspanne.
+// Spannen werden erst ausgewertet, wenn sie gezeichnet werden; nach einer Änderung
+// werden nur die betroffenen Spannen verworfen.
+// Mit einfacher Genauigkeit wird aus einer FloatCurve ausgewertet und in float gespeichert,
+// relativ zu deren Ursprung.
+// Die Felder der Spannen bleiben über Neuaufbauten hinweg erhalten und werden überschrieben.
+class CurveSampleCache extends SpanCache {
+    private static final double[][] NO_SAMPLES = new double[0][];
+    private static final float[][] NO_FLOAT_SAMPLES = new float[0][];
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final double[] point = new double[3];
+    // samples[k] enthält x, y für resolution+1 Parameterwerte der Spanne k, gültig wenn valid.get(k)
+    private double[][] samples = NO_SAMPLES;
+    private final BitSet valid = new BitSet();
+    private int resolution;
+    // Gesetzt im Modus gleicher Bogenlänge, sonst null
+    private ArcLengthTable arcLength;
+    private double[] parameters = new double[0];
+    // Gesetzt bei einfacher Genauigkeit, sonst null
+    private FloatCurve floatCurve;
+    private float[][] floatSamples = NO_FLOAT_SAMPLES;
+    private final float[] floatPoint = new float[3];
+
+    CurveSampleCache(NURBSModel model, int resolution) {
+        super(model);
+        this.resolution = resolution;
+    }
+
+    void setResolution(int resolution) {
+        if (resolution != this.resolution) {
+            this.resolution = resolution;
+            invalidateAll();
+        }
+    }
+
+    // Mit einer Tabelle liegen die Punkte jeder Spanne in gleichen Bogenlängen statt in gleichen
+    // Parameterschritten. Die Tabelle muss vor getSamples() aktualisiert werden.
+    void setArcLengthTable(ArcLengthTable arcLength) {
+        if (arcLength != this.arcLength) {
+            this.arcLength = arcLength;
+            invalidateAll();
+        }
+    }
+
+    void setSinglePrecision(boolean singlePrecision) {
+        if (singlePrecision != (floatCurve != null)) {
+            floatCurve = singlePrecision ? new FloatCurve() : null;
+            invalidateAll();
+        }
+    }
+
+    // Ursprung der float-Punkte; nur bei einfacher Genauigkeit
+    FloatCurve getFloatCurve() {
+        return floatCurve;
+    }
+
+    // Liefert die Punkte der Spanne k aus dem Snapshot, den update() zurückgegeben hat;
+    // null für leere Spannen.
+    synchronized double[] getSamples(NURBSSnapshot s, int k) {
+        if (s.getKnot(k) == s.getKnot(k + 1)) {
+            return null;
+        }
+        if (!valid.get(k)) {
+            samples[k] = evaluate(s, k, samples[k]);
+            valid.set(k);
+        }
+        return samples[k];
+    }
+
+    // Wie getSamples, bei einfacher Genauigkeit; die Punkte sind relativ zum Ursprung der FloatCurve.
+    synchronized float[] getFloatSamples(NURBSSnapshot s, int k) {
+        if (s.getKnot(k) == s.getKnot(k + 1)) {
+            return null;
+        }
+        if (!valid.get(k)) {
+            floatSamples[k] = evaluateFloat(k, floatSamples[k]);
+            valid.set(k);
+        }
+        return floatSamples[k];
+    }
+
+    @Override
+    protected void reset(NURBSSnapshot s) {
+        // Nur die Felder der anderen Genauigkeit werden freigegeben
+        if (floatCurve != null) {
+            samples = NO_SAMPLES;
+            if (floatSamples.length < s.size()) {
+                floatSamples = Arrays.copyOf(floatSamples, s.size());
+            }
+            floatCurve.load(s);
+        } else {
+            floatSamples = NO_FLOAT_SAMPLES;
+            if (samples.length < s.size()) {
+                samples = Arrays.copyOf(samples, s.size());
+            }
+        }
+        valid.clear();
+    }
+
+    @Override
+    protected void computeSpan(NURBSSnapshot s, int k) {
+        valid.clear(k);
+        if (floatCurve != null) {
+            floatCurve.updateSpan(s, k);
+        }
+    }
+
+    // Schreibt in xy, wenn es die passende Länge hat, sonst in ein neues Feld
+    private double[] evaluate(NURBSSnapshot s, int k, double[] xy) {
+        double u0 = s.getKnot(k);
+        double u1 = s.getKnot(k + 1);
+        if (xy == null || xy.length != 2 * (resolution + 1)) {
+            xy = new double[2 * (resolution + 1)];
+        }
+        if (arcLength != null) {
+            if (parameters.length < resolution + 1) {
+                parameters = new double[resolution + 1];
+            }
+            arcLength.spanParameters(k, resolution, parameters);
+        }
+        for (int i = 0; i <= resolution; i++) {
+            double u;
+            if (arcLength != null) {
+                u = parameters[i];
+            } else {
+                u = i == resolution ? u1 : u0 + (u1 - u0) * i / resolution;
+            }
+            // Am Ende der letzten Spanne liegt u auf U_{k+1}; die Basisfunktionen bleiben dort gültig.
+            evaluator.point(s, k, u, point);
+            xy[2 * i] = point[0];
+            xy[2 * i + 1] = point[1];
+        }
+        return xy;
+    }
+
+    private float[] evaluateFloat(int k, float[] xy) {
+        if (xy == null || xy.length != 2 * (resolution + 1)) {
+            xy = new float[2 * (resolution + 1)];
+        }
+        if (arcLength != null) {
+            if (parameters.length < resolution + 1) {
+                parameters = new double[resolution + 1];
+            }
+            arcLength.spanParameters(k, resolution, parameters);
+        }
+        float u0 = floatCurve.getKnot(k);
+        float u1 = floatCurve.getKnot(k + 1);
+        for (int i = 0; i <= resolution; i++) {
+            float u;
+            if (arcLength != null) {
+                u = (float) parameters[i];
+            } else {
+                u = i == resolution ? u1 : u0 + (u1 - u0) * i / resolution;
+            }
+            floatCurve.point(k, u, floatPoint, 0);
+            xy[2 * i] = floatPoint[0];
+            xy[2 * i + 1] = floatPoint[1];
+        }
+        return xy;
+    }
+}
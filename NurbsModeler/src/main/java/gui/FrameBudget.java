@@ -0,0 +1,116 @@
+package gui;
+
+import javax.swing.Timer;
+import java.util.function.IntConsumer;
+
+// Regelt die Abtastdichte der Kurven nach der gemessenen Zeichenzeit.
+// Während Ziehen, Verschieben oder Zoomen wird die Auflösung halbiert, solange ein Bild länger als das
+// Zeitbudget braucht, und verdoppelt, wenn es deutlich darunter bleibt. Die Stufen sind Zweierpotenz-Teile
+// der vollen Auflösung, damit nicht bei jedem Bild alle Spannen neu ausgewertet werden. Ruht die Eingabe,
+// wird Schritt für Schritt wieder bis zur vollen Auflösung verfeinert.
+class FrameBudget {
+    static final long DEFAULT_TARGET_NANOS = 8_000_000L;
+    private static final int MIN_RESOLUTION = 4;
+    // Ohne Eingabe für diese Zeit gilt die Interaktion als beendet (z.B. nach dem Mausrad)
+    private static final int IDLE_DELAY_MS = 150;
+    private static final int REFINE_INTERVAL_MS = 30;
+
+    private final long targetNanos;
+    private final IntConsumer apply;
+    private final Timer idleTimer;
+    private final Timer refineTimer;
+    private int fullResolution;
+    // Stufe 0 ist die volle Auflösung, jede weitere halbiert sie: full >> level, mindestens MIN_RESOLUTION
+    private int level;
+    private int resolution;
+    private boolean interacting;
+    // Das erste Bild nach einem Wechsel wertet alle sichtbaren Spannen neu aus und wird nicht gemessen
+    private boolean settling;
+    private long paintStart;
+
+    // apply wird mit der neuen Auflösung aufgerufen und soll neu zeichnen lassen
+    FrameBudget(int fullResolution, long targetNanos, IntConsumer apply) {
+        this.fullResolution = fullResolution;
+        this.resolution = fullResolution;
+        this.targetNanos = targetNanos;
+        this.apply = apply;
+        idleTimer = new Timer(IDLE_DELAY_MS, e -> interactionEnded());
+        idleTimer.setRepeats(false);
+        refineTimer = new Timer(REFINE_INTERVAL_MS, e -> refine());
+    }
+
+    int getResolution() {
+        return resolution;
+    }
+
+    // Neue volle Auflösung, z.B. aus dem Resolution-Spinner
+    void setFullResolution(int fullResolution) {
+        this.fullResolution = fullResolution;
+        if (!interacting) {
+            refineTimer.stop();
+            setLevel(0);
+        } else {
+            setLevel(level);
+        }
+    }
+
+    // Bei jedem Eingabeereignis einer Interaktion aufrufen
+    void input() {
+        interacting = true;
+        refineTimer.stop();
+        idleTimer.restart();
+    }
+
+    // Am Ende einer Interaktion, z.B. beim Loslassen der Maus
+    void interactionEnded() {
+        idleTimer.stop();
+        interacting = false;
+        if (level > 0) {
+            refineTimer.restart();
+        }
+    }
+
+    void paintStarted() {
+        paintStart = System.nanoTime();
+    }
+
+    void paintFinished() {
+        long paintNanos = System.nanoTime() - paintStart;
+        if (settling) {
+            settling = false;
+            return;
+        }
+        if (!interacting) {
+            return;
+        }
+        if (paintNanos > targetNanos && resolutionAt(level + 1) < resolution) {
+            setLevel(level + 1);
+        } else if (paintNanos < targetNanos / 4 && level > 0) {
+            // Verdoppeln kostet etwa das Doppelte, bleibt also unter der Hälfte des Budgets
+            setLevel(level - 1);
+        }
+    }
+
+    private void refine() {
+        if (interacting || level == 0) {
+            refineTimer.stop();
+            return;
+        }
+        setLevel(level - 1);
+    }
+
+    private int resolutionAt(int level) {
+        return Math.min(fullResolution, Math.max(MIN_RESOLUTION, fullResolution >> level));
+    }
+
+    // Auf dem Weg nach unten und wieder zurück entstehen so dieselben Auflösungen
+    private void setLevel(int level) {
+        this.level = level;
+        int resolution = resolutionAt(level);
+        if (resolution != this.resolution) {
+            this.resolution = resolution;
+            settling = true;
+            apply.accept(resolution);
+        }
+    }
+}
@@ -1,67 +1,72 @@
 package gui;
 
 import data.NURBSModel;
+import data.NURBSSnapshot;
 import gui.events.EventSystem;
 import gui.events.KnotVectorChangedEvent;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
-import java.text.DecimalFormat;
 
+// Knoteneditor: der ganze Vektor wird in einem KnotStrip gezeichnet,
+// der ausgewählte Knoten kann darunter numerisch eingegeben werden.
 class KnotPanel extends JPanel {
     EventSystem eventSystem = EventSystem.getInstance();
-    double[] knots = new double[0];
-    JTextField[] knotFields;
-    DecimalFormat df = new DecimalFormat("#.####");
+    KnotStrip strip;
+    JLabel knotLabel = new JLabel("Knot:");
+    JTextField knotField = new JTextField(8);
     JButton applyButton = new JButton("Apply");
 
     public KnotPanel(NURBSModel model) {
-        setLayout(new WrapLayout(FlowLayout.LEFT));
-        eventSystem.subscribe(KnotVectorChangedEvent.class, e -> updateFields(e.getNewKnotVector()));
-
-        updateFields(model.getKnots());
+        super(new BorderLayout());
+        strip = new KnotStrip(model);
+        strip.setSelectionListener(i -> {
+            NURBSSnapshot s = model.snapshot();
+            // Die Endknoten legen den Parameterbereich fest und sind nur zur Ansicht auswählbar
+            boolean movable = i != -1 && KnotStrip.isMovable(s, i);
+            knotLabel.setText(i == -1 ? "Knot:" : "Knot " + i + ":");
+            knotField.setText(i == -1 ? "" : String.valueOf(s.getKnot(i)));
+            knotField.setEnabled(movable);
+            applyButton.setEnabled(movable);
+        });
+        strip.setSelectedIndex(-1);
 
         applyButton.addActionListener(e -> {
+            int i = strip.getSelectedIndex();
+            NURBSSnapshot s = model.snapshot();
+            if (i == -1 || !KnotStrip.isMovable(s, i)) {
+                return;
+            }
             try {
-                double[] newKnots = new double[knotFields.length];
-                for (int i = 0; i < knotFields.length; i++) {
-                    newKnots[i] = Double.parseDouble(knotFields[i].getText().trim().replaceAll(",", "."));
+                double u = Double.parseDouble(knotField.getText().trim().replaceAll(",", "."));
+                if (!KnotStrip.canMoveTo(s, i, u)) {
+                    JOptionPane.showMessageDialog(this, "Knot value must lie between its neighbours "
+                            + "and keep every knot's multiplicity at most " + s.getDegree() + ".",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
-                model.setKnots(newKnots);
-                eventSystem.dispatch(new KnotVectorChangedEvent(this, newKnots));
+                model.setKnot(i, u);
+                // Jede Eingabe ist ein eigener Undo-Schritt.
+                model.endGesture();
+                eventSystem.dispatch(new KnotVectorChangedEvent(this, model.getKnots()));
+                strip.setSelectedIndex(i);
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Invalid knot value format.", "Error", JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
+        // Enter im Textfeld übernimmt den Wert
+        knotField.addActionListener(e -> applyButton.doClick());
 
-        setBackground(Color.LIGHT_GRAY);
-    }
+        JPanel entry = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        entry.add(knotLabel);
+        entry.add(knotField);
+        entry.add(applyButton);
 
-    private void updateFields(double[] newKnotVector) {
-        if (newKnotVector.length != knots.length) {
-            this.removeAll();
-            knotFields = new JTextField[newKnotVector.length];
-            for (int i = 0; i < newKnotVector.length; i++) {
-                knotFields[i] = new JTextField(5);
-                knotFields[i].setText(df.format(newKnotVector[i]));
-                knotFields[i].addKeyListener(new KeyAdapter() {
-                    @Override
-                    public void keyTyped(KeyEvent e) {
-                        if (e.getKeyChar() == KeyEvent.VK_ENTER) {
-                            applyButton.doClick();
-                        }
-                    }
-                });
-                add(knotFields[i]);
-            }
-        } else {
-            for (int i = 0; i < newKnotVector.length; i++) {
-                knotFields[i].setText(String.valueOf(newKnotVector[i]));
-            }
-        }
-        add(applyButton);
-        this.revalidate();
+        add(strip, BorderLayout.CENTER);
+        add(entry, BorderLayout.SOUTH);
+        setBackground(Color.LIGHT_GRAY);
+        entry.setOpaque(false);
     }
 }
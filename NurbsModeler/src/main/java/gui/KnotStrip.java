@@ -0,0 +1,264 @@
+package gui;
+
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import gui.events.DefaultEventListener;
+import gui.events.EventSystem;
+import gui.events.KnotVectorChangedEvent;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.DecimalFormat;
+import java.util.function.IntConsumer;
+
+// Zeichnet den Knotenvektor als Striche auf einer Parameterachse, mehrfache Knoten mit Markierungen.
+// Eine einzige Komponente für den ganzen Vektor: Kosten pro Zeichenvorgang O(Anzahl Knoten),
+// Knoten, die auf dieselbe Pixelspalte fallen, werden nur einmal gezeichnet.
+// Innere Knoten lassen sich mit der Maus zwischen ihren Nachbarn verschieben.
+class KnotStrip extends JComponent {
+    private static final int MARGIN = 12;
+    private static final int PICK_RADIUS = 6;
+    // Bis zu dieser Vielfachheit werden Punkte gestapelt, darüber wird die Zahl geschrieben
+    private static final int MAX_DOTS = 4;
+
+    private final NURBSModel model;
+    private final EventSystem eventSystem = EventSystem.getInstance();
+    private final DecimalFormat df = new DecimalFormat("#.####");
+    private int selectedIndex = -1;
+    // Beim Klick auf einen mehrfachen Knoten entscheidet erst die Zugrichtung, welcher bewegt wird
+    private int pressedFirst = -1, pressedLast = -1;
+    private boolean dragging;
+    // Achsenbereich, während eines Zugs festgehalten
+    private double axisMin, axisMax;
+    private IntConsumer selectionListener = i -> {
+    };
+    private final DefaultEventListener<KnotVectorChangedEvent> knotVectorListener = e -> knotsChanged();
+
+    KnotStrip(NURBSModel model) {
+        this.model = model;
+        setPreferredSize(new Dimension(300, 56));
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        MouseAdapter ma = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                NURBSSnapshot s = model.snapshot();
+                updateAxis(s);
+                int i = pickKnot(s, e.getX());
+                pressedFirst = pressedLast = -1;
+                if (i != -1) {
+                    pressedFirst = i;
+                    pressedLast = i;
+                    while (pressedFirst > 0 && s.getKnot(pressedFirst - 1) == s.getKnot(i)) pressedFirst--;
+                    while (pressedLast < s.getKnotCount() - 1 && s.getKnot(pressedLast + 1) == s.getKnot(i)) pressedLast++;
+                    i = pressedFirst;
+                }
+                setSelectedIndex(i);
+                requestFocusInWindow();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (pressedFirst == -1) {
+                    return;
+                }
+                NURBSSnapshot s = model.snapshot();
+                double u = toParameter(e.getX());
+                if (!dragging) {
+                    // Nach rechts bewegt sich der letzte Knoten des Bündels, nach links der erste.
+                    int i = u > s.getKnot(pressedFirst) ? pressedLast : pressedFirst;
+                    if (!isMovable(s, i)) {
+                        return;
+                    }
+                    dragging = true;
+                    setSelectedIndex(i);
+                }
+                int i = selectedIndex;
+                double low = s.getKnot(i - 1), high = s.getKnot(i + 1);
+                // Vor einem vollen Bündel (Vielfachheit p) einen Pixel Abstand halten, sonst wird die Kurve unstetig
+                double gap = Math.min((axisMax - axisMin) / Math.max(1, getWidth() - 2 * MARGIN), (high - low) / 4);
+                if (!canMoveTo(s, i, low)) low += gap;
+                if (!canMoveTo(s, i, high)) high -= gap;
+                u = Math.max(low, Math.min(high, u));
+                model.setKnot(i, u);
+                eventSystem.dispatch(new KnotVectorChangedEvent(KnotStrip.this, model.getKnots()));
+                selectionListener.accept(i);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (dragging) {
+                    model.endGesture();
+                }
+                dragging = false;
+                pressedFirst = pressedLast = -1;
+            }
+        };
+        addMouseListener(ma);
+        addMouseMotionListener(ma);
+    }
+
+    // Angemeldet nur, solange der Streifen angezeigt wird
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        eventSystem.subscribe(KnotVectorChangedEvent.class, knotVectorListener);
+        knotsChanged();
+    }
+
+    private void knotsChanged() {
+        if (selectedIndex >= model.snapshot().getKnotCount()) {
+            setSelectedIndex(-1);
+        }
+        repaint();
+    }
+
+    @Override
+    public void removeNotify() {
+        eventSystem.unsubscribe(KnotVectorChangedEvent.class, knotVectorListener);
+        super.removeNotify();
+    }
+
+    int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    void setSelectedIndex(int index) {
+        selectedIndex = index;
+        selectionListener.accept(index);
+        repaint();
+    }
+
+    // Wird bei Auswahl und beim Verschieben des ausgewählten Knotens aufgerufen
+    void setSelectionListener(IntConsumer selectionListener) {
+        this.selectionListener = selectionListener;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        NURBSSnapshot s = model.snapshot();
+        int count = s.getKnotCount();
+        if (count == 0) {
+            return;
+        }
+        if (!dragging) {
+            updateAxis(s);
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        FontMetrics fm = g2.getFontMetrics();
+        int axisY = getHeight() - fm.getHeight() - 4;
+
+        // Achse mit Beschriftung der Enden
+        g2.setColor(Color.GRAY);
+        g2.drawLine(MARGIN, axisY, getWidth() - MARGIN, axisY);
+        String first = df.format(axisMin), last = df.format(axisMax);
+        g2.drawString(first, MARGIN - fm.stringWidth(first) / 2, axisY + fm.getAscent() + 2);
+        g2.drawString(last, getWidth() - MARGIN - fm.stringWidth(last) / 2, axisY + fm.getAscent() + 2);
+
+        // Knoten gleichen Werts werden als ein Strich mit Vielfachheit gezeichnet
+        g2.setColor(Color.BLACK);
+        int lastX = Integer.MIN_VALUE;
+        int i = 0;
+        while (i < count) {
+            double u = s.getKnot(i);
+            int j = i + 1;
+            while (j < count && s.getKnot(j) == u) {
+                j++;
+            }
+            int x = toScreen(u);
+            if (x != lastX) {
+                drawKnot(g2, x, axisY, j - i, fm);
+                lastX = x;
+            }
+            i = j;
+        }
+
+        if (selectedIndex != -1) {
+            int x = toScreen(s.getKnot(selectedIndex));
+            g2.setColor(Color.RED);
+            g2.drawLine(x, axisY - 10, x, axisY + 4);
+            g2.fillPolygon(new int[]{x - 4, x + 4, x}, new int[]{axisY + 10, axisY + 10, axisY + 4}, 3);
+        }
+    }
+
+    private void drawKnot(Graphics2D g2, int x, int axisY, int multiplicity, FontMetrics fm) {
+        g2.drawLine(x, axisY - 10, x, axisY + 4);
+        if (multiplicity > MAX_DOTS) {
+            String label = String.valueOf(multiplicity);
+            g2.drawString(label, x - fm.stringWidth(label) / 2, axisY - 13);
+        } else {
+            for (int k = 1; k < multiplicity; k++) {
+                g2.fillOval(x - 2, axisY - 12 - 5 * k, 4, 4);
+            }
+        }
+    }
+
+    // Liefert den Index des nächstgelegenen Knotens innerhalb von PICK_RADIUS Pixeln, sonst -1.
+    private int pickKnot(NURBSSnapshot s, int x) {
+        int count = s.getKnotCount();
+        if (count == 0) {
+            return -1;
+        }
+        double u = toParameter(x);
+        // Erster Index mit U[i] >= u
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (s.getKnot(mid) < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int best = -1;
+        int bestDistance = PICK_RADIUS + 1;
+        for (int i = Math.max(0, low - 1); i <= Math.min(count - 1, low); i++) {
+            int d = Math.abs(toScreen(s.getKnot(i)) - x);
+            if (d < bestDistance) {
+                best = i;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    // Nur innere Knoten sind verschiebbar, die Enden legen den Parameterbereich fest.
+    static boolean isMovable(NURBSSnapshot s, int i) {
+        int p = s.getDegree();
+        return i > p && i < s.getKnotCount() - p - 1;
+    }
+
+    // Darf der innere Knoten i den Wert u annehmen? u muss zwischen den Nachbarn liegen, und die
+    // Vielfachheit von u darf danach p nicht übersteigen.
+    static boolean canMoveTo(NURBSSnapshot s, int i, double u) {
+        if (u < s.getKnot(i - 1) || u > s.getKnot(i + 1)) {
+            return false;
+        }
+        int multiplicity = 1;
+        for (int j = i - 1; j >= 0 && s.getKnot(j) == u; j--) multiplicity++;
+        for (int j = i + 1; j < s.getKnotCount() && s.getKnot(j) == u; j++) multiplicity++;
+        return multiplicity <= s.getDegree();
+    }
+
+    private void updateAxis(NURBSSnapshot s) {
+        int count = s.getKnotCount();
+        axisMin = count == 0 ? 0 : s.getKnot(0);
+        axisMax = count == 0 ? 1 : s.getKnot(count - 1);
+        if (axisMax <= axisMin) {
+            axisMax = axisMin + 1;
+        }
+    }
+
+    private int toScreen(double u) {
+        return MARGIN + (int) Math.round((u - axisMin) / (axisMax - axisMin) * (getWidth() - 2 * MARGIN));
+    }
+
+    private double toParameter(int x) {
+        return axisMin + (double) (x - MARGIN) / Math.max(1, getWidth() - 2 * MARGIN) * (axisMax - axisMin);
+    }
+}
@@ -1,43 +1,60 @@
 package gui;
 
-import data.ControlPoint;
+import data.FloatCurve;
+import data.NURBSDocument;
 import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanBoundsTree;
+import gui.events.ActiveCurveChangedEvent;
 import gui.events.ControlPointMovedEvent;
+import gui.events.DisplayPrecisionChangedEvent;
 import gui.events.EventSystem;
 import gui.events.KnotVectorChangedEvent;
 import gui.events.NURBSResolutionChangedEvent;
+import gui.events.TessellationModeChangedEvent;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.util.ArrayList;
 import java.util.List;
 
+// Zeichenfläche für alle Kurven eines Dokuments. Bearbeitet wird immer die aktive Kurve;
+// ein Klick auf einen Kontrollpunkt einer anderen Kurve macht diese aktiv.
 public class NURBSPanel extends JPanel {
-    private final NURBSModel model;
-    private int panOffsetX = 0, panOffsetY = 0;
+    // Radius in Pixeln, innerhalb dessen ein Kontrollpunkt angeklickt wird
+    private static final int PICK_RADIUS = 8;
+
+    private final NURBSDocument document;
+    private NURBSModel active;
+    private final Viewport viewport = new Viewport();
     private int lastMouseX, lastMouseY;
+    private NURBSModel selectedCurve;
     private int selectedPointIndex = -1;
-    private int resolution = 100;
+    private final CurveRenderer renderer = new CurveRenderer(viewport);
+    // Senkt die Auflösung beim Ziehen, Verschieben und Zoomen und verfeinert danach wieder
+    private final FrameBudget frameBudget = new FrameBudget(renderer.getResolution(), FrameBudget.DEFAULT_TARGET_NANOS, resolution -> {
+        renderer.setResolution(resolution);
+        repaint();
+    });
+    // Sichtbare Kurven und sichtbarer Bereich des aktuellen Zeichenvorgangs
+    private final List<NURBSModel> visibleCurves = new ArrayList<>();
+    private double[] visible;
     private final EventSystem eventSystem = EventSystem.getInstance();
 
-    public NURBSPanel(NURBSModel model) {
-        this.model = model;
+    public NURBSPanel(NURBSDocument document, NURBSModel active) {
+        this.document = document;
+        this.active = active;
         setBackground(Color.WHITE);
         MouseAdapter ma = new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                Point click = e.getPoint();
-                java.util.List<ControlPoint> cps = model.getControlPoints();
-                selectedPointIndex = -1;
-                // Prüfe, ob ein Kontrollpunkt in der Nähe (innerhalb 8 Pixel) angeklickt wurde.
-                for (int i = 0; i < cps.size(); i++) {
-                    Point p = transform(cps.get(i));
-                    if (click.distance(p) < 8) {
-                        selectedPointIndex = i;
-                        break;
-                    }
+                frameBudget.input();
+                pickControlPoint(e.getX(), e.getY());
+                if (selectedPointIndex != -1 && selectedCurve != NURBSPanel.this.active) {
+                    eventSystem.dispatch(new ActiveCurveChangedEvent(NURBSPanel.this, selectedCurve));
                 }
                 // Wenn kein Punkt getroffen, starte Panning.
                 if (selectedPointIndex == -1) {
@@ -48,28 +65,23 @@ public class NURBSPanel extends JPanel {
 
             @Override
             public void mouseDragged(MouseEvent e) {
+                frameBudget.input();
                 if (selectedPointIndex != -1) {
                     // Verschiebe den ausgewählten Kontrollpunkt.
-                    Point mousePoint = e.getPoint();
-                    double scale = 200.0;
-                    int baseOffsetX = 200;
-                    int baseOffsetY = 400;
-                    double newX = (mousePoint.x - baseOffsetX - panOffsetX) / scale;
-                    double newY = (baseOffsetY + panOffsetY - mousePoint.y) / scale;
-                    var cp = model.getControlPoints().get(selectedPointIndex);
-                    var oldValues = cp.getArray();
-
-                    cp.x = newX;
-                    cp.y = newY;
-
-                    var newValues = cp.getArray();
-                    eventSystem.dispatch(new ControlPointMovedEvent(cp, oldValues, newValues));
+                    NURBSModel model = selectedCurve;
+                    double newX = viewport.toModelX(e.getX());
+                    double newY = viewport.toModelY(e.getY());
+                    var oldValues = new double[4];
+                    model.snapshot().getPoint(selectedPointIndex, oldValues, 0);
+
+                    model.setControlPoint(selectedPointIndex, newX, newY, oldValues[2], oldValues[3]);
+
+                    var newValues = new double[4];
+                    model.snapshot().getPoint(selectedPointIndex, newValues, 0);
+                    eventSystem.dispatch(new ControlPointMovedEvent(model, selectedPointIndex, oldValues, newValues));
                 } else {
                     // Panning: Aktualisiere die Verschiebung.
-                    int dx = e.getX() - lastMouseX;
-                    int dy = e.getY() - lastMouseY;
-                    panOffsetX += dx;
-                    panOffsetY += dy;
+                    viewport.pan(e.getX() - lastMouseX, e.getY() - lastMouseY);
                     lastMouseX = e.getX();
                     lastMouseY = e.getY();
                 }
@@ -78,107 +90,132 @@ public class NURBSPanel extends JPanel {
 
             @Override
             public void mouseReleased(MouseEvent e) {
+                if (selectedPointIndex != -1) {
+                    selectedCurve.endGesture();
+                }
                 selectedPointIndex = -1;
+                selectedCurve = null;
+                frameBudget.interactionEnded();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                // Zoom um die Mausposition, 10 % pro Raste
+                frameBudget.input();
+                viewport.zoom(Math.pow(1.1, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                repaint();
             }
         };
         addMouseListener(ma);
         addMouseMotionListener(ma);
+        addMouseWheelListener(ma);
 
         eventSystem.subscribe(KnotVectorChangedEvent.class, event -> repaint());
         eventSystem.subscribe(NURBSResolutionChangedEvent.class, e -> {
-            resolution = e.getNewResolution();
+            frameBudget.setFullResolution(e.getNewResolution());
+        });
+        eventSystem.subscribe(TessellationModeChangedEvent.class, e -> {
+            renderer.setEqualArcLength(e.isEqualArcLength());
+            repaint();
+        });
+        eventSystem.subscribe(DisplayPrecisionChangedEvent.class, e -> {
+            renderer.setSinglePrecision(e.isSinglePrecision());
+            repaint();
+        });
+        eventSystem.subscribe(ActiveCurveChangedEvent.class, e -> {
+            this.active = e.getCurve();
             repaint();
         });
     }
 
     @Override
     protected void paintComponent(Graphics g) {
+        frameBudget.paintStarted();
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        java.util.List<ControlPoint> cps = model.getControlPoints();
-
-        // Zeichne das Kontrollpolygon (Grau)
-        g2.setColor(Color.GRAY);
-        for (int i = 0; i < cps.size() - 1; i++) {
-            Point p1 = transform(cps.get(i));
-            Point p2 = transform(cps.get(i + 1));
-            g2.drawLine(p1.x, p1.y, p2.x, p2.y);
+        // Falls der Knotenvektor nicht zur aktuellen Konfiguration passt, neu generieren.
+        NURBSSnapshot cps = active.snapshot();
+        if (!cps.isValid()) {
+            active.setKnots(active.generateUniformKnotVector(cps.size(), cps.getDegree()));
         }
-
-        // Zeichne die Kontrollpunkte (Rot)
-        g2.setColor(Color.RED);
-        for (ControlPoint cp : cps) {
-            Point p = transform(cp);
-            g2.fillOval(p.x - 4, p.y - 4, 8, 8);
+        document.update();
+
+        // Nur Kurven, deren Box den sichtbaren Bereich schneidet, werden überhaupt betrachtet,
+        // und von diesen nur die sichtbaren Spannen. Die aktive Kurve wird zuletzt gezeichnet.
+        visible = renderer.setVisibleArea(getWidth(), getHeight(), PICK_RADIUS);
+        visibleCurves.clear();
+        document.query(visible[0], visible[1], visible[2], visible[3], visibleCurves::add);
+        boolean activeVisible = false;
+        for (NURBSModel curve : visibleCurves) {
+            if (curve == active) {
+                activeVisible = true;
+            } else {
+                renderer.drawCurve(g2, curve, document.getSpanBounds(curve), false);
+            }
         }
-
-        // Berechne und zeichne die NURBS-Kurve (Blau)
-        g2.setColor(Color.BLUE);
-        java.util.List<Point> curvePoints = evaluateCurvePoints(resolution * model.getControlPoints().size());
-        for (int i = 0; i < curvePoints.size() - 1; i++) {
-            Point p1 = curvePoints.get(i);
-            Point p2 = curvePoints.get(i + 1);
-            g2.drawLine(p1.x, p1.y, p2.x, p2.y);
+        if (activeVisible) {
+            renderer.drawCurve(g2, active, document.getSpanBounds(active), true);
         }
+        frameBudget.paintFinished();
     }
 
-    // Transformation von Modellkoordinaten in Bildschirmkoordinaten (unter Berücksichtigung von Panning).
-    private Point transform(ControlPoint cp) {
-        int scale = 200;
-        int baseOffsetX = 200;
-        int baseOffsetY = 400; // Y-Achse invertiert
-        int x = baseOffsetX + panOffsetX + (int) (cp.x * scale);
-        int y = baseOffsetY + panOffsetY - (int) (cp.y * scale);
-        return new Point(x, y);
+    // Größte Abweichung zwischen float- und double-Auswertung in Pixeln beim aktuellen Zoom,
+    // für alle Kurven des Dokuments und einzeln.
+    public String getPrecisionReport() {
+        StringBuilder report = new StringBuilder();
+        List<NURBSModel> curves = document.getCurves();
+        double max = 0.0;
+        for (int i = 0; i < curves.size(); i++) {
+            double pixels = FloatCurve.maxDeviation(curves.get(i).snapshot(), renderer.getResolution()) * viewport.getScale();
+            max = Math.max(max, pixels);
+            report.append(String.format("Curve %d: %.3g px%n", i + 1, pixels));
+        }
+        return String.format("Max deviation float vs. double: %.3g px%n%n", max) + report;
     }
 
-    // Berechnet eine Liste von Punkten der NURBS-Kurve.
-    private java.util.List<Point> evaluateCurvePoints(int numPoints) {
-        java.util.List<Point> pts = new ArrayList<>();
-        double[] U = model.getKnots();
-        int p = model.getDegree();
-        java.util.List<ControlPoint> cps = model.getControlPoints();
-        // Falls der Knotenvector nicht zur aktuellen Konfiguration passt, neu generieren.
-        if (U.length != cps.size() + p + 1) {
-            U = model.generateUniformKnotVector(cps.size(), p);
-            model.setKnots(U);
+    // Sucht den Kontrollpunkt mit dem kleinsten Index innerhalb von PICK_RADIUS Pixeln, zuerst auf der
+    // aktiven Kurve, dann auf den übrigen. Die Hierarchie des Dokuments liefert nur die Kurven, deren
+    // Box den Klickbereich schneidet, und deren Hierarchie nur die betroffenen Spannen.
+    private void pickControlPoint(int x, int y) {
+        selectedCurve = null;
+        selectedPointIndex = -1;
+        document.update();
+        double minX = viewport.toModelX(x - PICK_RADIUS), minY = viewport.toModelY(y + PICK_RADIUS);
+        double maxX = viewport.toModelX(x + PICK_RADIUS), maxY = viewport.toModelY(y - PICK_RADIUS);
+        List<NURBSModel> candidates = new ArrayList<>();
+        document.query(minX, minY, maxX, maxY, candidates::add);
+        if (candidates.remove(active)) {
+            candidates.add(0, active);
         }
-        double uStart = U[p];
-        double uEnd = U[U.length - p - 1];
-        for (int i = 0; i <= numPoints; i++) {
-            double u = uStart + (uEnd - uStart) * i / numPoints;
-            ControlPoint cp = evaluateCurvePoint(u, U, p, cps);
-            pts.add(transform(cp));
+        for (NURBSModel curve : candidates) {
+            int index = pickControlPoint(curve, x, y, minX, minY, maxX, maxY);
+            if (index != -1) {
+                selectedCurve = curve;
+                selectedPointIndex = index;
+                return;
+            }
         }
-        return pts;
     }
 
-    // Berechnet einen Punkt der NURBS-Kurve bei Parameter u.
-    private ControlPoint evaluateCurvePoint(double u, double[] U, int p, List<ControlPoint> cps) {
-        double numeratorX = 0.0, numeratorY = 0.0, denominator = 0.0;
-        for (int i = 0; i < cps.size(); i++) {
-            double N = bsplineBasis(i, p, u, U);
-            double wN = cps.get(i).weight * N;
-            numeratorX += cps.get(i).x * wN;
-            numeratorY += cps.get(i).y * wN;
-            denominator += wN;
+    private int pickControlPoint(NURBSModel curve, int x, int y, double minX, double minY, double maxX, double maxY) {
+        SpanBoundsTree spanBounds = document.getSpanBounds(curve);
+        NURBSSnapshot cps = spanBounds.update();
+        int spanCount = renderer.collectSpans(spanBounds, minX, minY, maxX, maxY);
+        int p = cps.getDegree();
+        int end = -1;
+        for (int s = 0; s < spanCount; s++) {
+            int k = renderer.getSpan(s);
+            for (int i = Math.max(k - p, end + 1); i <= k; i++) {
+                double dx = viewport.toScreenX(cps.getX(i)) - x;
+                double dy = viewport.toScreenY(cps.getY(i)) - y;
+                if (Math.sqrt(dx * dx + dy * dy) < PICK_RADIUS) {
+                    return i;
+                }
+            }
+            end = k;
         }
-        return new ControlPoint(numeratorX / denominator, numeratorY / denominator, 1.0);
+        return -1;
     }
 
-    // Rekursive Berechnung der B-Spline-Basisfunktion N_{i,p}(u).
-    private double bsplineBasis(int i, int p, double u, double[] U) {
-        if (p == 0) {
-            if ((U[i] <= u && u < U[i + 1]) || (u == U[U.length - 1] && u >= U[i] && u <= U[i + 1])) return 1.0;
-            return 0.0;
-        } else {
-            double left = 0.0, right = 0.0;
-            double denom1 = U[i + p] - U[i];
-            double denom2 = U[i + p + 1] - U[i + 1];
-            if (denom1 != 0) left = (u - U[i]) / denom1 * bsplineBasis(i, p - 1, u, U);
-            if (denom2 != 0) right = (U[i + p + 1] - u) / denom2 * bsplineBasis(i + 1, p - 1, u, U);
-            return left + right;
-        }
-    }
 }
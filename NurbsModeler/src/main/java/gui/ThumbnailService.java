@@ -0,0 +1,236 @@
+package gui;
+
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanBoundsTree;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders PNG previews of many curves without a window, with the same drawing code as {@link NURBSPanel}.
+ * <p>
+ * Jobs run on a fixed pool of worker threads. Every worker keeps its image, graphics context, renderer
+ * and PNG encoder for the lifetime of the service. Its evaluation caches move on from curve to curve and
+ * keep their storage, so a batch allocates almost nothing per curve once the first curves have sized
+ * them. At most twice as many jobs as there are workers wait at any time, which bounds the memory of
+ * large batches.
+ * Each curve is framed to the box of its control points.
+ * <p>
+ * Works with {@code java.awt.headless=true}.
+ */
+public class ThumbnailService implements AutoCloseable {
+    // Rand in Pixeln zwischen Kurve und Bildkante
+    private static final int MARGIN = 8;
+
+    /**
+     * Receives the encoded images. It is called from the worker threads, possibly concurrently.
+     */
+    public interface Sink {
+        /**
+         * @param index  position of the curve in the batch
+         * @param png    buffer holding the encoded image; it is reused after the call returns
+         * @param length number of valid bytes in the buffer
+         */
+        void accept(int index, byte[] png, int length) throws IOException;
+    }
+
+    private final int width;
+    private final int height;
+    private final int threads;
+    private final int resolution;
+    private final ExecutorService pool;
+    private final ThreadLocal<Worker> workers;
+    // Alle je angelegten Worker, damit close() ihre Ressourcen freigeben kann
+    private final List<Worker> allWorkers = new CopyOnWriteArrayList<>();
+    private volatile boolean singlePrecision;
+
+    /**
+     * @param width      image width in pixels
+     * @param height     image height in pixels
+     * @param threads    number of worker threads
+     * @param resolution samples per knot span
+     */
+    public ThumbnailService(int width, int height, int threads, int resolution) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Image size must be positive.");
+        if (threads <= 0)
+            throw new IllegalArgumentException("Need at least one worker thread.");
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+        this.resolution = resolution;
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "thumbnail-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers = ThreadLocal.withInitial(() -> {
+            Worker worker = new Worker();
+            allWorkers.add(worker);
+            return worker;
+        });
+    }
+
+    /**
+     * Selects single-precision evaluation for the following batches. Previews only need pixel accuracy,
+     * see {@link data.FloatCurve}.
+     */
+    public void setSinglePrecision(boolean singlePrecision) {
+        this.singlePrecision = singlePrecision;
+    }
+
+    /**
+     * Renders every curve of the batch and blocks until all images were passed to the sink.
+     * @return the throughput of the batch in images per second
+     * @throws IOException if encoding or the sink failed; the remaining jobs are skipped
+     */
+    public double render(List<NURBSModel> models, Sink sink) throws IOException, InterruptedException {
+        int slots = 2 * threads;
+        Semaphore pending = new Semaphore(slots);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < models.size() && failure.get() == null; i++) {
+            int index = i;
+            NURBSModel model = models.get(i);
+            pending.acquire();
+            pool.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        workers.get().render(index, model, sink);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+        // Warten, bis alle Aufträge fertig sind
+        pending.acquire(slots);
+        pending.release(slots);
+        long elapsed = System.nanoTime() - start;
+        Exception e = failure.get();
+        if (e instanceof IOException io)
+            throw io;
+        if (e instanceof RuntimeException re)
+            throw re;
+        return models.size() / Math.max(elapsed * 1e-9, 1e-9);
+    }
+
+    /**
+     * @return a sink writing {@code curve-<index>.png} files into the directory
+     */
+    public static Sink directory(Path directory) {
+        return (index, png, length) -> {
+            try (OutputStream out = Files.newOutputStream(directory.resolve(String.format("curve-%05d.png", index)))) {
+                out.write(png, 0, length);
+            }
+        };
+    }
+
+    /**
+     * Stops the workers and releases their graphics contexts, encoders and caches.
+     * Waits for jobs that are still running.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // Laufende Aufträge benutzen die Ressourcen noch
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Worker worker : allWorkers) {
+            worker.dispose();
+        }
+        allWorkers.clear();
+    }
+
+    // Zustand eines Arbeitsthreads, wird für alle seine Aufträge wiederverwendet
+    private final class Worker {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2 = image.createGraphics();
+        final CurveRenderer renderer = new CurveRenderer(new Viewport());
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        final PngBuffer png = new PngBuffer();
+        final double[] bounds = new double[4];
+        // Kurve des letzten Auftrags; ihre Zwischenspeicher gehen an die nächste über
+        NURBSModel current;
+        SpanBoundsTree spanBounds;
+
+        Worker() {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            renderer.setResolution(resolution);
+        }
+
+        void render(int index, NURBSModel model, Sink sink) throws IOException {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, width, height);
+            renderer.setSinglePrecision(singlePrecision);
+            if (spanBounds == null) {
+                spanBounds = new SpanBoundsTree(model);
+            } else if (model != current) {
+                spanBounds.rebind(model);
+                renderer.rebind(current, model);
+            }
+            current = model;
+            NURBSSnapshot s = spanBounds.update();
+            if (s.isValid()) {
+                spanBounds.getBounds(bounds);
+                renderer.getViewport().fit(bounds[0], bounds[1], bounds[2], bounds[3], width, height, MARGIN);
+                renderer.setVisibleArea(width, height, 0);
+                renderer.drawCurve(g2, model, spanBounds, true);
+            }
+            png.reset();
+            try (ImageOutputStream out = new MemoryCacheImageOutputStream(png)) {
+                writer.setOutput(out);
+                writer.write(image);
+            }
+            sink.accept(index, png.buffer(), png.size());
+        }
+
+        // Meldet die Zwischenspeicher bei der letzten Kurve ab und gibt Grafikkontext und Encoder frei
+        void dispose() {
+            if (current != null) {
+                current.removeEditListener(spanBounds);
+                renderer.release(current);
+                current = null;
+            }
+            g2.dispose();
+            writer.dispose();
+        }
+    }
+
+    // Gibt den internen Puffer ohne Kopie heraus
+    private static final class PngBuffer extends ByteArrayOutputStream {
+        PngBuffer() {
+            super(1 << 16);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
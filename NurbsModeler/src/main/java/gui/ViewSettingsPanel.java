@@ -0,0 +1,31 @@
+package gui;
+
+import gui.events.DisplayPrecisionChangedEvent;
+import gui.events.EventSystem;
+import gui.events.NURBSResolutionChangedEvent;
+import gui.events.TessellationModeChangedEvent;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Ansichtseinstellungen des NURBSPanel; sie gelten für alle Kurven und gibt es deshalb nur einmal.
+public class ViewSettingsPanel extends JPanel {
+    private final EventSystem eventSystem = EventSystem.getInstance();
+
+    public ViewSettingsPanel(NURBSPanel drawingPanel) {
+        super(new FlowLayout(FlowLayout.LEFT));
+        var resolutionSpinner = new JSpinner(new SpinnerNumberModel(200, 100, 1000, 100));
+        resolutionSpinner.addChangeListener(e -> eventSystem.dispatch(new NURBSResolutionChangedEvent(this, (Integer) resolutionSpinner.getValue())));
+        add(new JLabel("Resolution:"));
+        add(resolutionSpinner);
+        var arcLengthBox = new JCheckBox("Equal arc length");
+        arcLengthBox.addActionListener(e -> eventSystem.dispatch(new TessellationModeChangedEvent(this, arcLengthBox.isSelected())));
+        add(arcLengthBox);
+        var singlePrecisionBox = new JCheckBox("Single precision");
+        singlePrecisionBox.addActionListener(e -> eventSystem.dispatch(new DisplayPrecisionChangedEvent(this, singlePrecisionBox.isSelected())));
+        add(singlePrecisionBox);
+        var precisionReportButton = new JButton("Precision report");
+        precisionReportButton.addActionListener(e -> JOptionPane.showMessageDialog(this, drawingPanel.getPrecisionReport(), "Precision", JOptionPane.INFORMATION_MESSAGE));
+        add(precisionReportButton);
+    }
+}
@@ -0,0 +1,71 @@
+package gui;
+
+// Abbildung zwischen Modellkoordinaten und Bildschirmkoordinaten mit Zoom und Verschiebung.
+// Die y-Achse zeigt im Modell nach oben, auf dem Bildschirm nach unten.
+class Viewport {
+    static final double MIN_SCALE = 1e-3;
+    static final double MAX_SCALE = 1e9;
+
+    // Pixel pro Modelleinheit
+    private double scale = 200;
+    // Bildschirmposition des Modellursprungs
+    private double originX = 200, originY = 400;
+
+    double getScale() {
+        return scale;
+    }
+
+    int toScreenX(double x) {
+        return (int) Math.floor(originX + x * scale);
+    }
+
+    int toScreenY(double y) {
+        return (int) Math.floor(originY - y * scale);
+    }
+
+    double toModelX(double sx) {
+        return (sx - originX) / scale;
+    }
+
+    double toModelY(double sy) {
+        return (originY - sy) / scale;
+    }
+
+    void pan(int dx, int dy) {
+        originX += dx;
+        originY += dy;
+    }
+
+    // Zoomt um den Faktor, wobei der Modellpunkt unter (anchorX, anchorY) an seiner Stelle bleibt.
+    void zoom(double factor, int anchorX, int anchorY) {
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        double x = toModelX(anchorX), y = toModelY(anchorY);
+        scale = newScale;
+        originX = anchorX - x * scale;
+        originY = anchorY + y * scale;
+    }
+
+    // Sichtbarer Bereich in Modellkoordinaten (minX, minY, maxX, maxY), um margin Pixel erweitert.
+    void getVisibleBounds(int width, int height, int margin, double[] out) {
+        out[0] = toModelX(-margin);
+        out[1] = toModelY(height + margin);
+        out[2] = toModelX(width + margin);
+        out[3] = toModelY(-margin);
+    }
+
+    // Skaliert und verschiebt so, dass das Rechteck (Modellkoordinaten) mit margin Pixeln Rand
+    // zentriert in width x height passt. Ausgeartete Rechtecke behalten den aktuellen Maßstab.
+    void fit(double minX, double minY, double maxX, double maxY, int width, int height, int margin) {
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+        double w = maxX - minX, h = maxY - minY;
+        if (w > 0 || h > 0) {
+            double sx = w > 0 ? Math.max(1, width - 2 * margin) / w : Double.POSITIVE_INFINITY;
+            double sy = h > 0 ? Math.max(1, height - 2 * margin) / h : Double.POSITIVE_INFINITY;
+            scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, Math.min(sx, sy)));
+        }
+        originX = 0.5 * width - 0.5 * (minX + maxX) * scale;
+        originY = 0.5 * height + 0.5 * (minY + maxY) * scale;
+    }
+}
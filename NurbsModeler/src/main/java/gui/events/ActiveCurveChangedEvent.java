@@ -0,0 +1,19 @@
+package gui.events;
+
+import data.NURBSModel;
+
+import java.util.EventObject;
+
+public class ActiveCurveChangedEvent extends EventObject {
+    private final NURBSModel curve;
+
+    public ActiveCurveChangedEvent(Object source, NURBSModel curve) {
+        super(source);
+        this.curve = curve;
+    }
+
+    // Die Kurve, die ab jetzt bearbeitet wird
+    public NURBSModel getCurve() {
+        return curve;
+    }
+}
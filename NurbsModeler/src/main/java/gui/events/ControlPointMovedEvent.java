@@ -1,12 +1,30 @@
 package gui.events;
 
-import data.ControlPoint;
-
 import java.util.EventObject;
-import java.util.List;
 
 public class ControlPointMovedEvent extends EventObject {
-    public ControlPointMovedEvent(ControlPoint controlPoint, double[] oldValues, double[] newValues) {
-        super(controlPoint);
+    private final int index;
+    private final double[] oldValues;
+    private final double[] newValues;
+
+    public ControlPointMovedEvent(Object source, int index, double[] oldValues, double[] newValues) {
+        super(source);
+        this.index = index;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // x, y, z, weight before the move
+    public double[] getOldValues() {
+        return oldValues;
+    }
+
+    // x, y, z, weight after the move
+    public double[] getNewValues() {
+        return newValues;
     }
 }
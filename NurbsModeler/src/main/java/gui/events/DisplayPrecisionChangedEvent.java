@@ -0,0 +1,17 @@
+package gui.events;
+
+import java.util.EventObject;
+
+public class DisplayPrecisionChangedEvent extends EventObject {
+    private final boolean singlePrecision;
+
+    public DisplayPrecisionChangedEvent(Object source, boolean singlePrecision) {
+        super(source);
+        this.singlePrecision = singlePrecision;
+    }
+
+    // true: Kurvenpunkte für die Anzeige in float, false: in double
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+}
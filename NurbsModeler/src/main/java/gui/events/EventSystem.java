@@ -27,6 +27,13 @@ public class EventSystem {
         this.listeners.get(clazz).add(listener);
     }
 
+    public <T extends EventObject> void unsubscribe(Class<T> clazz, DefaultEventListener<T> listener) {
+        List<EventListener> list = this.listeners.get(clazz);
+        if (list != null) {
+            list.remove(listener);
+        }
+    }
+
     public <T extends EventObject> void dispatch(T eventObject) {
         if (this.listeners.containsKey(eventObject.getClass())) {
             for (EventListener listener : this.listeners.get(eventObject.getClass())) {
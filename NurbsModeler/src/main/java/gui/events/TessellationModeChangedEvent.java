@@ -0,0 +1,17 @@
+package gui.events;
+
+import java.util.EventObject;
+
+public class TessellationModeChangedEvent extends EventObject {
+    private final boolean equalArcLength;
+
+    public TessellationModeChangedEvent(Object source, boolean equalArcLength) {
+        super(source);
+        this.equalArcLength = equalArcLength;
+    }
+
+    // true: Kurvenpunkte in gleichen Bogenlängen, false: in gleichen Parameterschritten
+    public boolean isEqualArcLength() {
+        return equalArcLength;
+    }
+}
@@ -0,0 +1,112 @@
+package tst;
+
+import data.BatchEvaluator;
+import data.NURBSEvaluator;
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanLocator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Throughput of BatchEvaluator against evaluating every keyframe on its own.
+// The keyframes share degree and knot vector of one random curve and differ by noise on the
+// control points and weights, as in a morph. The per-curve baseline is NURBSEvaluator.point with a
+// span cursor per curve, i.e. span search and basis once per curve and parameter. The batch is
+// timed sequentially and in parallel; all results must agree with the baseline to 1e-12 relative.
+class BatchEvaluationBenchmark {
+    private static final int ROUNDS = 5;
+
+    // Usage: BatchEvaluationBenchmark [curves] [parameters] [degree] [control points] [seed]
+    public static void main(String[] args) {
+        int curves = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int degree = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int points = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        Random random = new Random(seed);
+        List<NURBSSnapshot> keyframes = keyframes(curves, degree, points, random);
+        double[] u = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            u[i] = (double) i / (samples - 1);
+        }
+        double[] expected = new double[3 * samples * curves];
+        double[] actual = new double[expected.length];
+        BatchEvaluator batch = new BatchEvaluator(keyframes);
+
+        long single = Long.MAX_VALUE, sequential = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            perCurve(keyframes, u, expected);
+            long t1 = System.nanoTime();
+            batch.setParallel(false);
+            batch.evaluate(u, samples, actual);
+            long t2 = System.nanoTime();
+            batch.setParallel(true);
+            batch.evaluate(u, samples, actual);
+            long t3 = System.nanoTime();
+            single = Math.min(single, t1 - t0);
+            sequential = Math.min(sequential, t2 - t1);
+            parallel = Math.min(parallel, t3 - t2);
+        }
+
+        double deviation = 0.0, extent = Double.MIN_NORMAL;
+        for (int i = 0; i < expected.length; i++) {
+            deviation = Math.max(deviation, Math.abs(expected[i] - actual[i]));
+            extent = Math.max(extent, Math.abs(expected[i]));
+        }
+        long evaluations = (long) curves * samples;
+        System.out.printf("%d curves of degree %d with %d control points, %d parameters, %d threads%n",
+                curves, degree, points, samples, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-28s %16s %10s%n", "engine", "points/s", "speed-up");
+        System.out.printf("%-28s %16.0f %10s%n", "per curve", evaluations * 1e9 / single, "1.00");
+        System.out.printf("%-28s %16.0f %10.2f%n", "batch", evaluations * 1e9 / sequential, (double) single / sequential);
+        System.out.printf("%-28s %16.0f %10.2f%n", "batch, parallel", evaluations * 1e9 / parallel, (double) single / parallel);
+        System.out.printf("max deviation %.3e (relative %.3e)%n", deviation, deviation / extent);
+        if (deviation > 1e-12 * extent) {
+            System.exit(1);
+        }
+    }
+
+    // One random curve and noisy copies of its control points that share its knot vector.
+    static List<NURBSSnapshot> keyframes(int curves, int degree, int points, Random random) {
+        double[] knots = new double[points + degree + 1];
+        for (int i = 0; i < knots.length; i++) {
+            knots[i] = Math.min(1.0, Math.max(0.0, (double) (i - degree) / (points - degree)));
+        }
+        double[] base = new double[4 * points];
+        for (int i = 0; i < points; i++) {
+            base[4 * i] = random.nextGaussian() * 10;
+            base[4 * i + 1] = random.nextGaussian() * 10;
+            base[4 * i + 2] = random.nextGaussian() * 10;
+            base[4 * i + 3] = 0.5 + random.nextDouble();
+        }
+        List<NURBSSnapshot> keyframes = new ArrayList<>(curves);
+        double[] xyzw = new double[base.length];
+        for (int c = 0; c < curves; c++) {
+            for (int i = 0; i < base.length; i++) {
+                xyzw[i] = base[i] + (i % 4 == 3 ? 0.1 : 1.0) * random.nextDouble();
+            }
+            keyframes.add(new NURBSModel(degree, knots, xyzw, points).snapshot());
+        }
+        return keyframes;
+    }
+
+    // Same output layout as BatchEvaluator.evaluate: curve c at u[i] starts at (i * curves + c) * 3.
+    private static void perCurve(List<NURBSSnapshot> keyframes, double[] u, double[] out) {
+        NURBSEvaluator evaluator = new NURBSEvaluator();
+        SpanLocator locator = new SpanLocator();
+        double[] point = new double[3];
+        int curves = keyframes.size();
+        for (int c = 0; c < curves; c++) {
+            NURBSSnapshot s = keyframes.get(c);
+            locator.reset(s.getKnots(), s.getDegree());
+            for (int i = 0; i < u.length; i++) {
+                evaluator.point(s, locator.find(u[i]), u[i], point);
+                System.arraycopy(point, 0, out, (i * curves + c) * 3, 3);
+            }
+        }
+    }
+}
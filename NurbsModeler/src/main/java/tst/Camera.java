@@ -0,0 +1,188 @@
+package tst;
+
+// A simple camera class with a look-at view and perspective projection.
+// Vectors are double[3] and matrices double[16] (column-major); all updates happen in place.
+// Position, target and lens are only read from outside, so every change goes through the
+// methods that invalidate the cached matrix.
+class Camera {
+    private final double[] position = new double[3], target = new double[3], up = new double[3];
+    private final double fov, near, far;
+    private double aspect;
+    // Viewport size in pixels
+    private int width = 1, height = 1;
+    // For orbiting control.
+    private double azimuth = 0;      // horizontal angle
+    private double elevation = 0;    // vertical angle
+    private double distance;         // distance from target
+
+    private final double[] view = new double[16];
+    private final double[] projection = new double[16];
+    // Cached projection * view; rebuilt only when orbit, zoom or aspect changed.
+    private final double[] viewProjection = new double[16];
+    private boolean viewProjectionValid = false;
+
+    public Camera(double[] position, double[] target, double[] up,
+                  double fov, double aspect, double near, double far) {
+        System.arraycopy(position, 0, this.position, 0, 3);
+        System.arraycopy(target, 0, this.target, 0, 3);
+        System.arraycopy(up, 0, this.up, 0, 3);
+        this.fov = fov;
+        this.aspect = aspect;
+        this.near = near;
+        this.far = far;
+        double dx = position[0] - target[0], dy = position[1] - target[1], dz = position[2] - target[2];
+        this.distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Orbit the camera around the target given mouse deltas.
+    public void orbit(double dx, double dy) {
+        azimuth += dx * 0.01;
+        elevation += dy * 0.01;
+        elevation = Math.max(-Math.PI/2 + 0.1, Math.min(Math.PI/2 - 0.1, elevation));
+        updatePosition();
+    }
+
+    // Zoom in/out by modifying the distance.
+    public void zoom(int wheelRotation) {
+        distance *= (1 + wheelRotation * 0.1);
+        updatePosition();
+    }
+
+    private void updatePosition() {
+        Vec3.set(position, 0,
+                target[0] + distance * Math.cos(elevation) * Math.sin(azimuth),
+                target[1] + distance * Math.sin(elevation),
+                target[2] + distance * Math.cos(elevation) * Math.cos(azimuth));
+        viewProjectionValid = false;
+    }
+
+    // Sets the viewport size; the aspect ratio follows from it.
+    public void setViewport(int width, int height) {
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+        setAspect(this.width / (double) this.height);
+    }
+
+    public void setAspect(double aspect) {
+        if (aspect != this.aspect) {
+            this.aspect = aspect;
+            viewProjectionValid = false;
+        }
+    }
+
+    public double getAspect() {
+        return aspect;
+    }
+
+    // Copies the eye position into out[0..2].
+    public void getPosition(double[] out) {
+        System.arraycopy(position, 0, out, 0, 3);
+    }
+
+    // Copies the point the camera looks at into out[0..2].
+    public void getTarget(double[] out) {
+        System.arraycopy(target, 0, out, 0, 3);
+    }
+
+    // Copies the up direction into out[0..2].
+    public void getUp(double[] out) {
+        System.arraycopy(up, 0, out, 0, 3);
+    }
+
+    public double getFov() {
+        return fov;
+    }
+
+    public double getNear() {
+        return near;
+    }
+
+    public double getFar() {
+        return far;
+    }
+
+    public double getAzimuth() {
+        return azimuth;
+    }
+
+    public double getElevation() {
+        return elevation;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Returns projection * view, rebuilding it only after the camera changed.
+    // The returned array is owned by the camera and must not be modified.
+    public double[] getViewProjectionMatrix() {
+        if (!viewProjectionValid) {
+            Mat4.lookAt(position, target, up, view);
+            Mat4.perspective(fov, aspect, near, far, projection);
+            Mat4.multiply(projection, view, viewProjection);
+            viewProjectionValid = true;
+        }
+        return viewProjection;
+    }
+
+    // Projects all points of a packed x, y, z array into packed screen x, y using the current viewport.
+    public void project(double[] xyz, int[] outXY) {
+        project(xyz, 0, outXY, xyz.length / 3);
+    }
+
+    // Projects the first count points of a packed x, y, z array into packed screen x, y.
+    public void project(double[] xyz, int[] outXY, int count) {
+        project(xyz, 0, outXY, count);
+    }
+
+    // Projects count points starting at point index first into packed screen x, y starting at 0.
+    public void project(double[] xyz, int first, int[] outXY, int count) {
+        double[] m = getViewProjectionMatrix();
+        double m0 = m[0], m1 = m[1], m3 = m[3], m4 = m[4], m5 = m[5], m7 = m[7];
+        double m8 = m[8], m9 = m[9], m11 = m[11], m12 = m[12], m13 = m[13], m15 = m[15];
+        double halfWidth = width / 2.0, halfHeight = height / 2.0;
+        for (int i = 0, j = 3 * first; i < count; i++, j += 3) {
+            double x = xyz[j], y = xyz[j + 1], z = xyz[j + 2];
+            double px = m0 * x + m4 * y + m8 * z + m12;
+            double py = m1 * x + m5 * y + m9 * z + m13;
+            double w = m3 * x + m7 * y + m11 * z + m15;
+            if (w != 0) {
+                px /= w;
+                py /= w;
+            }
+            // Convert normalized device coordinates (-1 to 1) to screen coordinates.
+            outXY[2 * i] = (int) ((px + 1) * halfWidth);
+            outXY[2 * i + 1] = (int) ((1 - py) * halfHeight);
+        }
+    }
+
+    // Projects count points starting at point index first into packed screen x, y (pixels, not truncated) and
+    // normalized device depth z. Points behind the camera get NaN coordinates.
+    public void projectWithDepth(double[] xyz, int first, float[] outXYZ, int count) {
+        double[] m = getViewProjectionMatrix();
+        double halfWidth = width / 2.0, halfHeight = height / 2.0;
+        for (int i = 0; i < count; i++) {
+            int j = 3 * i, src = 3 * (first + i);
+            double x = xyz[src], y = xyz[src + 1], z = xyz[src + 2];
+            double w = m[3] * x + m[7] * y + m[11] * z + m[15];
+            if (w <= 0) {
+                outXYZ[j] = outXYZ[j + 1] = outXYZ[j + 2] = Float.NaN;
+                continue;
+            }
+            double px = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+            double py = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+            double pz = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
+            outXYZ[j] = (float) ((px + 1) * halfWidth);
+            outXYZ[j + 1] = (float) ((1 - py) * halfHeight);
+            outXYZ[j + 2] = (float) pz;
+        }
+    }
+}
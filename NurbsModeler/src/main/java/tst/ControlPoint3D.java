@@ -0,0 +1,18 @@
+package tst;
+
+// Represents a 3D control point with weight.
+class ControlPoint3D {
+    public double x, y, z, weight;
+    public ControlPoint3D(double x, double y, double z, double weight) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.weight = weight;
+    }
+    public ControlPoint3D copy() {
+        return new ControlPoint3D(x, y, z, weight);
+    }
+    public String toString() {
+        return String.format("(%.2f, %.2f, %.2f, w=%.2f)", x, y, z, weight);
+    }
+}
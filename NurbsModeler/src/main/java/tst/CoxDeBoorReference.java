@@ -0,0 +1,47 @@
+package tst;
+
+import data.NURBSSnapshot;
+
+// Reference evaluation with the recursive Cox–de Boor formula over all control points,
+// as NURBSPanel originally drew the curve. Exponential in the degree and linear in the number
+// of control points per point, but short enough to check by eye; faster engines are compared against it.
+class CoxDeBoorReference {
+    private NURBSSnapshot s;
+    private double[] U;
+
+    void prepare(NURBSSnapshot s) {
+        this.s = s;
+        this.U = s.getKnots();
+    }
+
+    // Writes x, y, z of C(u) into out[o..o+2].
+    void evaluate(double u, double[] out, int o) {
+        int p = s.getDegree();
+        double x = 0.0, y = 0.0, z = 0.0, w = 0.0;
+        for (int i = 0; i < s.size(); i++) {
+            double wN = s.getWeight(i) * bsplineBasis(i, p, u, U);
+            x += s.getX(i) * wN;
+            y += s.getY(i) * wN;
+            z += s.getZ(i) * wN;
+            w += wN;
+        }
+        out[o] = x / w;
+        out[o + 1] = y / w;
+        out[o + 2] = z / w;
+    }
+
+    // Recursive B-spline basis function N_{i,p}(u); the last knot closes the last non-empty interval.
+    static double bsplineBasis(int i, int p, double u, double[] U) {
+        if (p == 0) {
+            if ((U[i] <= u && u < U[i + 1]) || (u == U[U.length - 1] && u >= U[i] && u <= U[i + 1])) return 1.0;
+            return 0.0;
+        } else {
+            double left = 0.0, right = 0.0;
+            double denom1 = U[i + p] - U[i];
+            double denom2 = U[i + p + 1] - U[i + 1];
+            if (denom1 != 0) left = (u - U[i]) / denom1 * bsplineBasis(i, p - 1, u, U);
+            if (denom2 != 0) right = (U[i + p + 1] - u) / denom2 * bsplineBasis(i + 1, p - 1, u, U);
+            return left + right;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tst;
+
+// Screen-space level of detail for sampling a NurbsModel3D.
+// Each knot span lies in the convex hull of its p+1 control points, so the bounding box of those
+// points is projected through the camera: spans whose box is outside the view frustum are skipped,
+// the others get a segment count proportional to the projected pixel extent of the box.
+// The result is kept until the camera moves or zooms noticeably, the viewport changes or the
+// curve is invalidated.
+class CurveLod {
+    static final double PIXELS_PER_SEGMENT = 4;
+    static final int MAX_SEGMENTS = 512;
+    // Camera changes below these thresholds keep the cached levels.
+    private static final double ANGLE_TOLERANCE = 0.05;
+    private static final double DISTANCE_TOLERANCE = 0.1;
+
+    // Segment count per span index k; 0 for empty or culled spans.
+    private int[] segments = new int[0];
+    private boolean valid;
+    private double azimuth, elevation, distance;
+    private int width, height;
+    private final double[] box = new double[6];
+
+    // Forces a recomputation, e.g. after the control points or knots were edited.
+    public void invalidate() {
+        valid = false;
+    }
+
+    // Returns the segment count per span, recomputing it if needed.
+    // The array is owned by this object and indexed by span k in [degree, n].
+    public int[] update(NurbsModel3D model, Camera camera) {
+        int spans = model.knots.length - 1;
+        if (valid && segments.length == spans && !cameraMoved(camera)) {
+            return segments;
+        }
+        if (segments.length != spans) {
+            segments = new int[spans];
+        }
+        azimuth = camera.getAzimuth();
+        elevation = camera.getElevation();
+        distance = camera.getDistance();
+        width = camera.getWidth();
+        height = camera.getHeight();
+        valid = true;
+
+        double[] m = camera.getViewProjectionMatrix();
+        int p = model.degree;
+        int n = model.controlPoints.size() - 1;
+        for (int k = 0; k < spans; k++) {
+            if (k < p || k > n || model.knots[k] == model.knots[k + 1]) {
+                segments[k] = 0;
+                continue;
+            }
+            boundingBox(model, k - p, k, box);
+            segments[k] = segmentsFor(box, m);
+        }
+        return segments;
+    }
+
+    private boolean cameraMoved(Camera camera) {
+        return Math.abs(camera.getAzimuth() - azimuth) > ANGLE_TOLERANCE
+                || Math.abs(camera.getElevation() - elevation) > ANGLE_TOLERANCE
+                || Math.abs(camera.getDistance() - distance) > DISTANCE_TOLERANCE * distance
+                || camera.getWidth() != width || camera.getHeight() != height;
+    }
+
+    private static void boundingBox(NurbsModel3D model, int from, int to, double[] box) {
+        box[0] = box[1] = box[2] = Double.POSITIVE_INFINITY;
+        box[3] = box[4] = box[5] = Double.NEGATIVE_INFINITY;
+        for (int i = from; i <= to; i++) {
+            ControlPoint3D cp = model.controlPoints.get(i);
+            box[0] = Math.min(box[0], cp.x);
+            box[1] = Math.min(box[1], cp.y);
+            box[2] = Math.min(box[2], cp.z);
+            box[3] = Math.max(box[3], cp.x);
+            box[4] = Math.max(box[4], cp.y);
+            box[5] = Math.max(box[5], cp.z);
+        }
+    }
+
+    // Projects the eight box corners to clip space. Returns 0 if all of them are outside the same
+    // frustum plane, otherwise the number of segments for the projected extent.
+    private int segmentsFor(double[] box, double[] m) {
+        int outside = 0x3F;
+        boolean behind = false;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < 8; c++) {
+            double x = box[(c & 1) == 0 ? 0 : 3];
+            double y = box[(c & 2) == 0 ? 1 : 4];
+            double z = box[(c & 4) == 0 ? 2 : 5];
+            double cx = m[0] * x + m[4] * y + m[8] * z + m[12];
+            double cy = m[1] * x + m[5] * y + m[9] * z + m[13];
+            double cz = m[2] * x + m[6] * y + m[10] * z + m[14];
+            double cw = m[3] * x + m[7] * y + m[11] * z + m[15];
+            int code = 0;
+            if (cx < -cw) code |= 1;
+            if (cx > cw) code |= 2;
+            if (cy < -cw) code |= 4;
+            if (cy > cw) code |= 8;
+            if (cz < -cw) code |= 16;
+            if (cz > cw) code |= 32;
+            outside &= code;
+            if (cw <= 0) {
+                behind = true;
+                continue;
+            }
+            double sx = (cx / cw + 1) * width / 2, sy = (1 - cy / cw) * height / 2;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+        }
+        if (outside != 0) {
+            return 0;
+        }
+        if (behind) {
+            // The box crosses the camera plane; its projection is unbounded.
+            return MAX_SEGMENTS;
+        }
+        // The visible part is at most the viewport, so clamp the extent to it.
+        double extentX = Math.min(maxX, width) - Math.max(minX, 0);
+        double extentY = Math.min(maxY, height) - Math.max(minY, 0);
+        double extent = Math.hypot(Math.max(extentX, 0), Math.max(extentY, 0));
+        return (int) Math.max(1, Math.min(MAX_SEGMENTS, Math.ceil(extent / PIXELS_PER_SEGMENT)));
+    }
+}
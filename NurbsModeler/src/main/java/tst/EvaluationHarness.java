@@ -0,0 +1,355 @@
+package tst;
+
+import data.FloatCurve;
+import data.NURBSEvaluator;
+import data.NURBSModel;
+import data.NURBSSnapshot;
+import data.SpanLocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Differential check of all curve evaluation engines against the recursive Cox–de Boor reference.
+// Random valid curves (degree 1..10, clamped non-uniform knots with repeated interior knots up to
+// multiplicity p, weights over two orders of magnitude) are evaluated by every engine at the same
+// sorted parameters: both domain ends, every distinct knot and random values in between.
+// Deviations are distances relative to the extent of the control points; throughput excludes prepare().
+//
+// Use it as a library (add engines, run, inspect the results) or run main, which prints a table
+// and exits with status 1 if an engine exceeds its tolerance.
+public class EvaluationHarness {
+    static final int MAX_DEGREE = 10;
+
+    // An evaluation engine under test.
+    public interface Engine {
+        String name();
+
+        // Largest accepted deviation relative to the extent of the curve.
+        double tolerance();
+
+        // Loads a curve; not timed.
+        void prepare(NURBSSnapshot s);
+
+        // Writes x, y, z of C(u[i]) into out[3i..3i+2] for the first count parameters, which are ascending.
+        void evaluate(double[] u, int count, double[] out);
+    }
+
+    // Outcome per engine over all curves of a run.
+    public static final class Result {
+        public final String engine;
+        public final double maxDeviation;
+        public final double tolerance;
+        public final long points;
+        public final long nanos;
+        // Degree and seed index of the curve with the largest deviation, -1 if none deviated
+        public final int worstDegree, worstCurve;
+
+        Result(String engine, double maxDeviation, double tolerance, long points, long nanos, int worstDegree, int worstCurve) {
+            this.engine = engine;
+            this.maxDeviation = maxDeviation;
+            this.tolerance = tolerance;
+            this.points = points;
+            this.nanos = nanos;
+            this.worstDegree = worstDegree;
+            this.worstCurve = worstCurve;
+        }
+
+        public boolean passed() {
+            return maxDeviation <= tolerance;
+        }
+
+        public double pointsPerSecond() {
+            return points / Math.max(nanos * 1e-9, 1e-12);
+        }
+    }
+
+    private final long seed;
+    private final List<Engine> engines = new ArrayList<>();
+    private final CoxDeBoorReference reference = new CoxDeBoorReference();
+
+    public EvaluationHarness(long seed) {
+        this.seed = seed;
+    }
+
+    // A harness with every engine of this code base.
+    public static EvaluationHarness withDefaultEngines(long seed) {
+        EvaluationHarness harness = new EvaluationHarness(seed);
+        harness.addEngine(new EvaluatorPointEngine());
+        harness.addEngine(new EvaluatorDerivativeEngine());
+        harness.addEngine(new NurbsModel3DEngine());
+        harness.addEngine(new FloatCurveEngine());
+        return harness;
+    }
+
+    public void addEngine(Engine engine) {
+        engines.add(engine);
+    }
+
+    // Generates a random valid curve: degree 1..MAX_DEGREE, p+1 to p+40 control points.
+    public static NURBSModel randomCurve(Random random) {
+        int p = 1 + random.nextInt(MAX_DEGREE);
+        int n = p + 1 + random.nextInt(40);
+        double[] xyzw = new double[4 * n];
+        for (int i = 0; i < n; i++) {
+            xyzw[4 * i] = random.nextGaussian() * 10;
+            xyzw[4 * i + 1] = random.nextGaussian() * 10;
+            xyzw[4 * i + 2] = random.nextGaussian() * 10;
+            xyzw[4 * i + 3] = Math.pow(10, 2 * random.nextDouble() - 1);
+        }
+        // Clamped: p+1 zeros and ones; the n-p-1 interior knots are random and partly repeated
+        double[] knots = new double[n + p + 1];
+        Arrays.fill(knots, n, knots.length, 1.0);
+        int i = p + 1;
+        while (i < n) {
+            double u = random.nextDouble();
+            int multiplicity = random.nextInt(4) == 0 ? 1 + random.nextInt(p) : 1;
+            for (int j = 0; j < multiplicity && i < n; j++) {
+                knots[i++] = u;
+            }
+        }
+        Arrays.sort(knots, p + 1, n);
+        return new NURBSModel(p, knots, xyzw, n);
+    }
+
+    // Evaluates curves random curves with samples random parameters each (plus ends and knots).
+    public List<Result> run(int curves, int samples) {
+        int engineCount = engines.size();
+        double[] maxDeviation = new double[engineCount];
+        long[] nanos = new long[engineCount];
+        int[] worstDegree = new int[engineCount], worstCurve = new int[engineCount];
+        Arrays.fill(worstDegree, -1);
+        Arrays.fill(worstCurve, -1);
+        long points = 0;
+        Random random = new Random(seed);
+        double[] expected = new double[0], actual = new double[0];
+        for (int c = 0; c < curves; c++) {
+            NURBSSnapshot s = randomCurve(random).snapshot();
+            double[] u = parameters(s, samples, random);
+            if (expected.length < 3 * u.length) {
+                expected = new double[3 * u.length];
+                actual = new double[3 * u.length];
+            }
+            reference.prepare(s);
+            for (int i = 0; i < u.length; i++) {
+                reference.evaluate(u[i], expected, 3 * i);
+            }
+            double extent = extent(s);
+            for (int e = 0; e < engineCount; e++) {
+                Engine engine = engines.get(e);
+                engine.prepare(s);
+                long start = System.nanoTime();
+                engine.evaluate(u, u.length, actual);
+                nanos[e] += System.nanoTime() - start;
+                for (int i = 0; i < 3 * u.length; i += 3) {
+                    double dx = actual[i] - expected[i], dy = actual[i + 1] - expected[i + 1], dz = actual[i + 2] - expected[i + 2];
+                    double deviation = Math.sqrt(dx * dx + dy * dy + dz * dz) / extent;
+                    // NaN counts as the worst deviation
+                    if (!(deviation <= maxDeviation[e])) {
+                        maxDeviation[e] = Double.isNaN(deviation) ? Double.POSITIVE_INFINITY : deviation;
+                        worstDegree[e] = s.getDegree();
+                        worstCurve[e] = c;
+                    }
+                }
+            }
+            points += u.length;
+        }
+        List<Result> results = new ArrayList<>();
+        for (int e = 0; e < engineCount; e++) {
+            Engine engine = engines.get(e);
+            results.add(new Result(engine.name(), maxDeviation[e], engine.tolerance(), points, nanos[e], worstDegree[e], worstCurve[e]));
+        }
+        return results;
+    }
+
+    // Reference throughput over the same kind of curves, for the table.
+    public double referencePointsPerSecond(int curves, int samples) {
+        Random random = new Random(seed);
+        double[] out = new double[3];
+        long points = 0, nanos = 0;
+        for (int c = 0; c < curves; c++) {
+            NURBSSnapshot s = randomCurve(random).snapshot();
+            double[] u = parameters(s, samples, random);
+            reference.prepare(s);
+            long start = System.nanoTime();
+            for (double v : u) {
+                reference.evaluate(v, out, 0);
+            }
+            nanos += System.nanoTime() - start;
+            points += u.length;
+        }
+        return points / Math.max(nanos * 1e-9, 1e-12);
+    }
+
+    public static String format(List<Result> results, double referencePointsPerSecond) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %14s %12s %16s  %s%n", "engine", "max deviation", "tolerance", "points/s", "status"));
+        sb.append(String.format("%-28s %14s %12s %16.0f%n", "Cox-de Boor (reference)", "-", "-", referencePointsPerSecond));
+        for (Result r : results) {
+            sb.append(String.format("%-28s %14.3e %12.1e %16.0f  %s%n", r.engine, r.maxDeviation, r.tolerance,
+                    r.pointsPerSecond(), r.passed() ? "ok" : "FAILED (degree " + r.worstDegree + ", curve " + r.worstCurve + ")"));
+        }
+        return sb.toString();
+    }
+
+    // Usage: EvaluationHarness [curves] [samples per curve] [seed]
+    public static void main(String[] args) {
+        int curves = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        EvaluationHarness harness = withDefaultEngines(seed);
+        // Warm-up, so the table compares compiled code
+        harness.run(Math.max(1, curves / 10), samples);
+        List<Result> results = harness.run(curves, samples);
+        System.out.print(format(results, harness.referencePointsPerSecond(Math.max(1, curves / 10), samples)));
+        if (!results.stream().allMatch(Result::passed)) {
+            System.exit(1);
+        }
+    }
+
+    // Both domain ends, every distinct knot inside the domain and random parameters, ascending.
+    private static double[] parameters(NURBSSnapshot s, int samples, Random random) {
+        int p = s.getDegree();
+        double start = s.getKnot(p), end = s.getKnot(s.size());
+        double[] u = new double[samples + s.getKnotCount()];
+        int count = 0;
+        for (int i = 0; i < samples; i++) {
+            u[count++] = start + (end - start) * random.nextDouble();
+        }
+        for (int i = p; i <= s.size(); i++) {
+            u[count++] = s.getKnot(i);
+        }
+        Arrays.sort(u, 0, count);
+        return Arrays.copyOf(u, count);
+    }
+
+    private static double extent(NURBSSnapshot s) {
+        double extent = 0.0;
+        for (int c = 0; c < 3; c++) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < s.size(); i++) {
+                double v = c == 0 ? s.getX(i) : c == 1 ? s.getY(i) : s.getZ(i);
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            extent = Math.max(extent, max - min);
+        }
+        return Math.max(extent, Double.MIN_NORMAL);
+    }
+
+    // NURBSEvaluator.point (A2.2) with the span cursor of SpanLocator.
+    static class EvaluatorPointEngine implements Engine {
+        private final NURBSEvaluator evaluator = new NURBSEvaluator();
+        private final SpanLocator locator = new SpanLocator();
+        private final double[] point = new double[3];
+        private NURBSSnapshot s;
+
+        public String name() {
+            return "NURBSEvaluator.point";
+        }
+
+        public double tolerance() {
+            return 1e-9;
+        }
+
+        public void prepare(NURBSSnapshot s) {
+            this.s = s;
+            locator.reset(s.getKnots(), s.getDegree());
+        }
+
+        public void evaluate(double[] u, int count, double[] out) {
+            for (int i = 0; i < count; i++) {
+                evaluator.point(s, locator.find(u[i]), u[i], point);
+                System.arraycopy(point, 0, out, 3 * i, 3);
+            }
+        }
+    }
+
+    // The point computed by NURBSEvaluator.derivative (A2.3) along with the first derivative.
+    static class EvaluatorDerivativeEngine implements Engine {
+        private final NURBSEvaluator evaluator = new NURBSEvaluator();
+        private final SpanLocator locator = new SpanLocator();
+        private final double[] derivative = new double[6];
+        private NURBSSnapshot s;
+
+        public String name() {
+            return "NURBSEvaluator.derivative";
+        }
+
+        public double tolerance() {
+            return 1e-9;
+        }
+
+        public void prepare(NURBSSnapshot s) {
+            this.s = s;
+            locator.reset(s.getKnots(), s.getDegree());
+        }
+
+        public void evaluate(double[] u, int count, double[] out) {
+            for (int i = 0; i < count; i++) {
+                evaluator.derivative(s, locator.find(u[i]), u[i], derivative);
+                System.arraycopy(derivative, 0, out, 3 * i, 3);
+            }
+        }
+    }
+
+    // De Boor in homogeneous coordinates of the 3D demo.
+    static class NurbsModel3DEngine implements Engine {
+        private final NurbsModel3D model = new NurbsModel3D();
+
+        public String name() {
+            return "NurbsModel3D de Boor";
+        }
+
+        public double tolerance() {
+            return 1e-9;
+        }
+
+        public void prepare(NURBSSnapshot s) {
+            model.controlPoints.clear();
+            for (int i = 0; i < s.size(); i++) {
+                model.controlPoints.add(new ControlPoint3D(s.getX(i), s.getY(i), s.getZ(i), s.getWeight(i)));
+            }
+            model.degree = s.getDegree();
+            model.knots = s.getKnots();
+        }
+
+        public void evaluate(double[] u, int count, double[] out) {
+            for (int i = 0; i < count; i++) {
+                model.evaluateCurvePoint(u[i], out, 3 * i);
+            }
+        }
+    }
+
+    // Single-precision display path; parameters are rounded to float like the knots.
+    // High degrees with weights far apart lose a few more digits, hence the looser tolerance:
+    // 5e-4 of the extent is half a pixel for a curve filling a 1000 pixel window.
+    static class FloatCurveEngine implements Engine {
+        private final FloatCurve curve = new FloatCurve();
+        private final SpanLocator locator = new SpanLocator();
+        private final float[] point = new float[3];
+
+        public String name() {
+            return "FloatCurve (float)";
+        }
+
+        public double tolerance() {
+            return 5e-4;
+        }
+
+        public void prepare(NURBSSnapshot s) {
+            curve.load(s);
+            locator.reset(s.getKnots(), s.getDegree());
+        }
+
+        public void evaluate(double[] u, int count, double[] out) {
+            for (int i = 0; i < count; i++) {
+                curve.point(locator.find(u[i]), (float) u[i], point, 0);
+                out[3 * i] = curve.getOriginX() + point[0];
+                out[3 * i + 1] = curve.getOriginY() + point[1];
+                out[3 * i + 2] = curve.getOriginZ() + point[2];
+            }
+        }
+    }
+}
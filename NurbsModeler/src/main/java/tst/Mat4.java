@@ -0,0 +1,67 @@
+package tst;
+
+// In-place 4x4 matrix operations on double[16] arrays in column-major order.
+final class Mat4 {
+    private Mat4() {
+    }
+
+    static void identity(double[] m) {
+        for (int i = 0; i < 16; i++) m[i] = 0;
+        m[0] = m[5] = m[10] = m[15] = 1;
+    }
+
+    // out = a * b; out must not alias a or b.
+    static void multiply(double[] a, double[] b, double[] out) {
+        for (int col = 0; col < 4; col++) {
+            double b0 = b[col * 4], b1 = b[col * 4 + 1], b2 = b[col * 4 + 2], b3 = b[col * 4 + 3];
+            for (int row = 0; row < 4; row++) {
+                out[col * 4 + row] = a[row] * b0 + a[4 + row] * b1 + a[8 + row] * b2 + a[12 + row] * b3;
+            }
+        }
+    }
+
+    // Transforms the point (x, y, z, 1) and writes x, y, z after the perspective divide.
+    static void transformPoint(double[] m, double[] in, int io, double[] out, int o) {
+        double x = in[io], y = in[io + 1], z = in[io + 2];
+        double tx = m[0] * x + m[4] * y + m[8] * z + m[12];
+        double ty = m[1] * x + m[5] * y + m[9] * z + m[13];
+        double tz = m[2] * x + m[6] * y + m[10] * z + m[14];
+        double w = m[3] * x + m[7] * y + m[11] * z + m[15];
+        if (w != 0) {
+            tx /= w; ty /= w; tz /= w;
+        }
+        Vec3.set(out, o, tx, ty, tz);
+    }
+
+    // Builds a look-at view matrix for the camera at eye looking at target.
+    static void lookAt(double[] eye, double[] target, double[] up, double[] out) {
+        // z axis from target to eye
+        double zx = eye[0] - target[0], zy = eye[1] - target[1], zz = eye[2] - target[2];
+        double zl = Math.sqrt(zx * zx + zy * zy + zz * zz);
+        if (zl != 0) { zx /= zl; zy /= zl; zz /= zl; }
+        // x axis = up x z
+        double xx = up[1] * zz - up[2] * zy, xy = up[2] * zx - up[0] * zz, xz = up[0] * zy - up[1] * zx;
+        double xl = Math.sqrt(xx * xx + xy * xy + xz * xz);
+        if (xl != 0) { xx /= xl; xy /= xl; xz /= xl; }
+        // y axis = z x x
+        double yx = zy * xz - zz * xy, yy = zz * xx - zx * xz, yz = zx * xy - zy * xx;
+        identity(out);
+        out[0] = xx; out[4] = xy; out[8]  = xz;
+        out[1] = yx; out[5] = yy; out[9]  = yz;
+        out[2] = zx; out[6] = zy; out[10] = zz;
+        out[12] = -(xx * eye[0] + xy * eye[1] + xz * eye[2]);
+        out[13] = -(yx * eye[0] + yy * eye[1] + yz * eye[2]);
+        out[14] = -(zx * eye[0] + zy * eye[1] + zz * eye[2]);
+    }
+
+    // Builds a perspective projection matrix; fov is the vertical field of view in degrees.
+    static void perspective(double fov, double aspect, double near, double far, double[] out) {
+        for (int i = 0; i < 16; i++) out[i] = 0;
+        double f = 1.0 / Math.tan(Math.toRadians(fov) / 2);
+        out[0] = f / aspect;
+        out[5] = f;
+        out[10] = (far + near) / (near - far);
+        out[11] = -1;
+        out[14] = (2 * far * near) / (near - far);
+    }
+}
@@ -0,0 +1,51 @@
+package tst;
+
+import java.util.Arrays;
+
+// Packed triangle mesh: vertex positions as consecutive x, y, z and triangles as index triples.
+// The arrays may be larger than needed; only the first vertexCount / indexCount entries are valid.
+// Buffers are reused between tessellations and only grow.
+class Mesh {
+    public double[] positions = new double[0];
+    public int vertexCount;
+    // Per-vertex unit normals (x, y, z), filled by computeNormals()
+    public double[] normals = new double[0];
+    public int[] indices = new int[0];
+    public int indexCount;
+    // When the vertices form a regular grid (row-major), its size; 0 otherwise.
+    public int gridRows, gridCols;
+
+    public void ensureCapacity(int vertices, int indexes) {
+        if (positions.length < vertices * 3) {
+            positions = new double[vertices * 3];
+        }
+        if (indices.length < indexes) {
+            indices = new int[indexes];
+        }
+    }
+
+    // Computes area-weighted vertex normals from the triangles.
+    public void computeNormals() {
+        if (normals.length < vertexCount * 3) {
+            normals = new double[positions.length];
+        }
+        double[] n = normals, v = positions;
+        Arrays.fill(n, 0, vertexCount * 3, 0.0);
+        for (int t = 0; t < indexCount; t += 3) {
+            int a = 3 * indices[t], b = 3 * indices[t + 1], c = 3 * indices[t + 2];
+            double ux = v[b] - v[a], uy = v[b + 1] - v[a + 1], uz = v[b + 2] - v[a + 2];
+            double wx = v[c] - v[a], wy = v[c + 1] - v[a + 1], wz = v[c + 2] - v[a + 2];
+            double nx = uy * wz - uz * wy, ny = uz * wx - ux * wz, nz = ux * wy - uy * wx;
+            n[a] += nx; n[a + 1] += ny; n[a + 2] += nz;
+            n[b] += nx; n[b + 1] += ny; n[b + 2] += nz;
+            n[c] += nx; n[c + 1] += ny; n[c + 2] += nz;
+        }
+        for (int i = 0; i < vertexCount * 3; i += 3) {
+            Vec3.normalize(n, i, n, i);
+        }
+    }
+
+    public int triangleCount() {
+        return indexCount / 3;
+    }
+}
@@ -3,7 +3,12 @@ package tst;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 // Main application frame
@@ -28,11 +33,43 @@ class Nurbs3DPanel extends JPanel {
     private NurbsModel3D model;
     // A simple camera for 3D-to-2D projection
     private Camera camera;
+    // A NURBS surface shown as a wireframe of its tessellation
+    private NurbsSurface surface;
+    private final Mesh surfaceMesh = new Mesh();
 
     // Variables for mouse-based camera rotation
     private int lastMouseX, lastMouseY;
     private boolean rotating = false;
 
+    // Reused buffers, so painting a frame does not allocate
+    private double[] polygon = new double[0];
+    private double[] curve = new double[0];
+    // Start point and point count of each sampled curve strip; culled spans split the curve.
+    private int[] stripStart = new int[0], stripLength = new int[0];
+    private int stripCount;
+    private final CurveLod curveLod = new CurveLod();
+    private int[] screenX = new int[0], screenY = new int[0], screenXY = new int[0];
+    private float[] screenXYZ = new float[0];
+    private int[] shades = new int[0];
+    private final double[] faceNormal = new double[3];
+
+    // Java2D wireframe, or the software rasterizer with flat or Gouraud shaded surfaces
+    enum RenderMode { WIREFRAME, FLAT, GOURAUD }
+    private RenderMode renderMode = RenderMode.GOURAUD;
+    private final SoftwareRasterizer rasterizer = new SoftwareRasterizer();
+    private static final double[] LIGHT = {0.37, 0.84, 0.40};
+    private static final int SURFACE_COLOR = 0x6FA0D8;
+    private static final int TUBE_COLOR = 0x3050C0;
+
+    // 'T' shows the curve as a swept tube, whose chunks go straight to the renderer; 'E' exports it.
+    private final TubeMesher tubeMesher = new TubeMesher();
+    private boolean showTube;
+    // Shading and graphics of the frame being painted; read by the two tube sinks, so painting does not allocate
+    private boolean gouraud;
+    private Graphics2D wireGraphics;
+    private final TubeMesher.Sink tubeSink = (chunk, firstVertex, shared) -> addShadedMesh(chunk, gouraud, TUBE_COLOR);
+    private final TubeMesher.Sink wireSink = (chunk, firstVertex, shared) -> drawWireframe(wireGraphics, chunk);
+
     public Nurbs3DPanel() {
         // Create a simple NURBS model – for example, a quadratic curve in 3D.
         model = new NurbsModel3D();
@@ -44,8 +81,20 @@ class Nurbs3DPanel extends JPanel {
         model.degree = 2;
         model.knots = model.generateUniformKnotVector(model.controlPoints.size(), model.degree);
 
+        // A bicubic surface below the curve, with a wave in its control grid.
+        surface = new NurbsSurface(8, 8, 3, 3);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                double x = -1.5 + 3.0 * i / 7;
+                double z = -1.5 + 3.0 * j / 7;
+                surface.setControlPoint(i, j, x, -1 + 0.3 * Math.sin(2 * x) * Math.cos(2 * z), z, 1);
+            }
+        }
+        surface.tessellate(32, 32, surfaceMesh);
+        surfaceMesh.computeNormals();
+
         // Initialize the camera. We start at (0,0,5), looking at the origin.
-        camera = new Camera(new Vector3(0, 0, 5), new Vector3(0, 0, 0), new Vector3(0, 1, 0),
+        camera = new Camera(new double[]{0, 0, 5}, new double[]{0, 0, 0}, new double[]{0, 1, 0},
                 60, 1.0, 0.1, 100);
 
         // Mouse controls for camera orbit and zoom.
@@ -75,272 +124,251 @@ class Nurbs3DPanel extends JPanel {
             camera.zoom(e.getWheelRotation());
             repaint();
         });
+        // 'S' cycles through the render modes.
+        setFocusable(true);
+        addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_S) {
+                    RenderMode[] modes = RenderMode.values();
+                    renderMode = modes[(renderMode.ordinal() + 1) % modes.length];
+                    repaint();
+                } else if (e.getKeyCode() == KeyEvent.VK_T) {
+                    showTube = !showTube;
+                    repaint();
+                } else if (e.getKeyCode() == KeyEvent.VK_E) {
+                    exportTube(Path.of("tube.obj"));
+                }
+            }
+        });
     }
 
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         // Update camera aspect ratio
-        camera.aspect = getWidth() / (double) getHeight();
+        camera.setViewport(getWidth(), getHeight());
         Graphics2D g2 = (Graphics2D) g;
+        if (renderMode != RenderMode.WIREFRAME) {
+            paintRasterized(g2);
+            return;
+        }
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
+        // Draw the surface wireframe (gray)
+        g2.setColor(Color.GRAY);
+        drawWireframe(g2, surfaceMesh);
+
         // Draw the control polygon (red)
         g2.setColor(Color.RED);
-        List<ControlPoint3D> cps = model.controlPoints;
-        for (int i = 0; i < cps.size() - 1; i++) {
-            Vector3 p1 = new Vector3(cps.get(i).x, cps.get(i).y, cps.get(i).z);
-            Vector3 p2 = new Vector3(cps.get(i+1).x, cps.get(i+1).y, cps.get(i+1).z);
-            Point pp1 = camera.project(p1, getWidth(), getHeight());
-            Point pp2 = camera.project(p2, getWidth(), getHeight());
-            g2.drawLine(pp1.x, pp1.y, pp2.x, pp2.y);
-        }
+        int polygonSize = fillPolygon();
+        drawPolyline(g2, polygon, 0, polygonSize);
 
-        // Draw the NURBS curve (blue)
+        // Draw the NURBS curve (blue), as a line or as the triangles of its tube
         g2.setColor(Color.BLUE);
-        int numSamples = 100;
-        Point prev = null;
-        // The valid parameter range is from knots[degree] to knots[knots.length - degree - 1]
-        double uStart = model.knots[model.degree];
-        double uEnd = model.knots[model.knots.length - model.degree - 1];
-        for (int i = 0; i <= numSamples; i++) {
-            double u = uStart + (uEnd - uStart) * i / numSamples;
-            ControlPoint3D pt = model.evaluateCurvePoint(u);
-            Vector3 p = new Vector3(pt.x, pt.y, pt.z);
-            Point proj = camera.project(p, getWidth(), getHeight());
-            if (prev != null) {
-                g2.drawLine(prev.x, prev.y, proj.x, proj.y);
+        if (showTube) {
+            wireGraphics = g2;
+            try {
+                tubeMesher.mesh(model, wireSink);
+            } finally {
+                // The context is only valid during this paint
+                wireGraphics = null;
             }
-            prev = proj;
+            return;
+        }
+        fillCurveSamples();
+        for (int s = 0; s < stripCount; s++) {
+            drawPolyline(g2, curve, stripStart[s], stripLength[s]);
         }
-    }
-}
-
-// 3D NURBS model: holds a list of control points, the degree, and knot vector,
-// and includes evaluation of the curve via a de Boor–like algorithm.
-class NurbsModel3D {
-    public List<ControlPoint3D> controlPoints;
-    public int degree;
-    public double[] knots;
-
-    public NurbsModel3D() {
-        controlPoints = new ArrayList<>();
     }
 
-    // Generates a uniform, clamped knot vector.
-    public double[] generateUniformKnotVector(int numPoints, int degree) {
-        int n = numPoints - 1;
-        int m = n + degree + 1;
-        double[] kv = new double[m+1];
-        for (int i = 0; i <= m; i++) {
-            if (i <= degree) {
-                kv[i] = 0.0;
-            } else if (i >= m - degree) {
-                kv[i] = 1.0;
-            } else {
-                kv[i] = (double) (i - degree) / (m - 2 * degree);
-            }
+    // Copies the control points into the polygon buffer and returns their number.
+    private int fillPolygon() {
+        List<ControlPoint3D> cps = model.controlPoints;
+        if (polygon.length < cps.size() * 3) {
+            polygon = new double[cps.size() * 3];
+        }
+        for (int i = 0; i < cps.size(); i++) {
+            ControlPoint3D cp = cps.get(i);
+            Vec3.set(polygon, 3 * i, cp.x, cp.y, cp.z);
         }
-        return kv;
+        return cps.size();
     }
 
-    // Evaluate the NURBS curve at parameter u.
-    // This implementation uses de Boor's algorithm in homogeneous coordinates.
-    public ControlPoint3D evaluateCurvePoint(double u) {
-        int n = controlPoints.size() - 1;
-        int p = degree;
-        // Find index k so that knots[k] <= u < knots[k+1]
-        int k = p;
-        while (k < knots.length - 1 && !(knots[k] <= u && u < knots[k+1])) {
-            k++;
+    // Samples the visible knot spans of the curve into the curve buffer, with a per-span sample
+    // count chosen by the screen-space level of detail. Adjacent visible spans share their end point
+    // and form one strip.
+    private void fillCurveSamples() {
+        int[] segments = curveLod.update(model, camera);
+        int total = 0;
+        for (int k = 0; k < segments.length; k++) {
+            total += segments[k] + 1;
         }
-        if (u == knots[knots.length - p - 1]) {
-            k = knots.length - p - 2;
+        if (curve.length < total * 3) {
+            curve = new double[total * 3];
         }
-        // Copy control points into array d in homogeneous coordinates.
-        ControlPoint3D[] d = new ControlPoint3D[n+1];
-        for (int i = 0; i <= n; i++) {
-            d[i] = controlPoints.get(i).copy();
+        if (stripStart.length < segments.length) {
+            stripStart = new int[segments.length];
+            stripLength = new int[segments.length];
         }
-        // de Boor recursion
-        for (int r = 1; r <= p; r++) {
-            for (int i = k; i >= k - p + r; i--) {
-                double alpha = (u - knots[i]) / (knots[i + p - r + 1] - knots[i]);
-                // Interpolate in homogeneous coordinates
-                double x = (1 - alpha) * d[i-1].x * d[i-1].weight + alpha * d[i].x * d[i].weight;
-                double y = (1 - alpha) * d[i-1].y * d[i-1].weight + alpha * d[i].y * d[i].weight;
-                double z = (1 - alpha) * d[i-1].z * d[i-1].weight + alpha * d[i].z * d[i].weight;
-                double w = (1 - alpha) * d[i-1].weight + alpha * d[i].weight;
-                d[i] = new ControlPoint3D(x / w, y / w, z / w, w);
+        stripCount = 0;
+        int count = 0;
+        boolean open = false;
+        for (int k = 0; k < segments.length; k++) {
+            int n = segments[k];
+            if (n == 0) {
+                // Empty spans (repeated knots) do not interrupt the curve, culled ones do.
+                if (model.knots[k] != model.knots[k + 1]) open = false;
+                continue;
             }
+            double u0 = model.knots[k], u1 = model.knots[k + 1];
+            int first = 1;
+            if (!open) {
+                stripStart[stripCount] = count;
+                stripLength[stripCount++] = 0;
+                first = 0;
+                open = true;
+            }
+            for (int i = first; i <= n; i++) {
+                double u = i == n ? u1 : u0 + (u1 - u0) * i / n;
+                model.evaluateCurvePoint(u, k, curve, 3 * count++);
+            }
+            stripLength[stripCount - 1] += n + 1 - first;
         }
-        return d[k];
     }
-}
 
-// Represents a 3D control point with weight.
-class ControlPoint3D {
-    public double x, y, z, weight;
-    public ControlPoint3D(double x, double y, double z, double weight) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-        this.weight = weight;
-    }
-    public ControlPoint3D copy() {
-        return new ControlPoint3D(x, y, z, weight);
-    }
-    public String toString() {
-        return String.format("(%.2f, %.2f, %.2f, w=%.2f)", x, y, z, weight);
-    }
-}
+    // Renders the scene with depth testing through the software rasterizer.
+    private void paintRasterized(Graphics2D g2) {
+        rasterizer.begin(getWidth(), getHeight(), getBackground().getRGB() & 0xFFFFFF);
+        gouraud = renderMode == RenderMode.GOURAUD;
+        addShadedMesh(surfaceMesh, gouraud, SURFACE_COLOR);
 
-// Simple 3D vector class.
-class Vector3 {
-    public double x, y, z;
-    public Vector3(double x, double y, double z) {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-    }
-    public Vector3 add(Vector3 v) {
-        return new Vector3(x + v.x, y + v.y, z + v.z);
-    }
-    public Vector3 subtract(Vector3 v) {
-        return new Vector3(x - v.x, y - v.y, z - v.z);
-    }
-    public Vector3 scale(double s) {
-        return new Vector3(x * s, y * s, z * s);
-    }
-    public double dot(Vector3 v) {
-        return x * v.x + y * v.y + z * v.z;
-    }
-    public Vector3 cross(Vector3 v) {
-        return new Vector3(y * v.z - z * v.y,
-                z * v.x - x * v.z,
-                x * v.y - y * v.x);
-    }
-    public Vector3 normalize() {
-        double mag = Math.sqrt(x * x + y * y + z * z);
-        if (mag == 0) return new Vector3(0, 0, 0);
-        return new Vector3(x / mag, y / mag, z / mag);
-    }
-}
-
-// A simple 4x4 matrix class for transformations.
-class Matrix4 {
-    public double[] m; // 16 elements in column-major order.
-    public Matrix4() {
-        m = new double[16];
-    }
-    public static Matrix4 identity() {
-        Matrix4 mat = new Matrix4();
-        for (int i = 0; i < 16; i++) mat.m[i] = 0;
-        mat.m[0] = mat.m[5] = mat.m[10] = mat.m[15] = 1;
-        return mat;
-    }
-    public Matrix4 multiply(Matrix4 other) {
-        Matrix4 result = new Matrix4();
-        for (int row = 0; row < 4; row++) {
-            for (int col = 0; col < 4; col++) {
-                result.m[col * 4 + row] = 0;
-                for (int k = 0; k < 4; k++) {
-                    result.m[col * 4 + row] += this.m[k * 4 + row] * other.m[col * 4 + k];
-                }
+        int polygonSize = fillPolygon();
+        addLineStrip(polygon, 0, polygonSize, 0xFF0000);
+        if (showTube) {
+            tubeMesher.mesh(model, tubeSink);
+        } else {
+            fillCurveSamples();
+            for (int s = 0; s < stripCount; s++) {
+                addLineStrip(curve, stripStart[s], stripLength[s], 0x0000FF);
             }
         }
-        return result;
+
+        g2.drawImage(rasterizer.render(), 0, 0, null);
     }
-    public Vector3 transform(Vector3 v) {
-        double x = m[0] * v.x + m[4] * v.y + m[8] * v.z + m[12];
-        double y = m[1] * v.x + m[5] * v.y + m[9] * v.z + m[13];
-        double z = m[2] * v.x + m[6] * v.y + m[10] * v.z + m[14];
-        double w = m[3] * v.x + m[7] * v.y + m[11] * v.z + m[15];
-        if (w != 0) {
-            x /= w; y /= w; z /= w;
+
+    // Writes the tube of the curve as an OBJ file, chunk by chunk.
+    private void exportTube(Path file) {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            ObjWriter writer = new ObjWriter(out);
+            tubeMesher.mesh(model, writer);
+            JOptionPane.showMessageDialog(this, "Exported " + writer.getVertexCount() + " vertices and "
+                    + writer.getTriangleCount() + " triangles to " + file.toAbsolutePath(), "Export",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException | UncheckedIOException e) {
+            JOptionPane.showMessageDialog(this, "Export failed: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
-        return new Vector3(x, y, z);
     }
-}
 
-// A simple camera class with a look-at view and perspective projection.
-class Camera {
-    public Vector3 position, target, up;
-    public double fov, aspect, near, far;
-    // For orbiting control.
-    private double azimuth = 0;      // horizontal angle
-    private double elevation = 0;    // vertical angle
-    private double distance;         // distance from target
-
-    public Camera(Vector3 position, Vector3 target, Vector3 up,
-                  double fov, double aspect, double near, double far) {
-        this.position = position;
-        this.target = target;
-        this.up = up;
-        this.fov = fov;
-        this.aspect = aspect;
-        this.near = near;
-        this.far = far;
-        this.distance = position.subtract(target).normalize().scale(1).dot(position.subtract(target));
-        this.distance = Math.sqrt((position.subtract(target)).dot(position.subtract(target)));
+    private void addShadedMesh(Mesh mesh, boolean gouraud, int rgb) {
+        int count = mesh.vertexCount;
+        ensureScreenCapacity(count);
+        camera.projectWithDepth(mesh.positions, 0, screenXYZ, count);
+        float[] p = screenXYZ;
+        int[] idx = mesh.indices;
+        if (gouraud) {
+            for (int v = 0; v < count; v++) {
+                shades[v] = shade(mesh.normals, 3 * v, rgb);
+            }
+        }
+        for (int t = 0; t < mesh.indexCount; t += 3) {
+            int a = 3 * idx[t], b = 3 * idx[t + 1], c = 3 * idx[t + 2];
+            int ca, cb, cc;
+            if (gouraud) {
+                ca = shades[idx[t]];
+                cb = shades[idx[t + 1]];
+                cc = shades[idx[t + 2]];
+            } else {
+                double[] v = mesh.positions;
+                double ux = v[b] - v[a], uy = v[b + 1] - v[a + 1], uz = v[b + 2] - v[a + 2];
+                double wx = v[c] - v[a], wy = v[c + 1] - v[a + 1], wz = v[c + 2] - v[a + 2];
+                Vec3.set(faceNormal, 0, uy * wz - uz * wy, uz * wx - ux * wz, ux * wy - uy * wx);
+                Vec3.normalize(faceNormal, 0, faceNormal, 0);
+                ca = cb = cc = shade(faceNormal, 0, rgb);
+            }
+            rasterizer.addTriangle(p[a], p[a + 1], p[a + 2], p[b], p[b + 1], p[b + 2],
+                    p[c], p[c + 1], p[c + 2], ca, cb, cc);
+        }
     }
 
-    // Orbit the camera around the target given mouse deltas.
-    public void orbit(double dx, double dy) {
-        azimuth += dx * 0.01;
-        elevation += dy * 0.01;
-        elevation = Math.max(-Math.PI/2 + 0.1, Math.min(Math.PI/2 - 0.1, elevation));
-        double x = target.x + distance * Math.cos(elevation) * Math.sin(azimuth);
-        double y = target.y + distance * Math.sin(elevation);
-        double z = target.z + distance * Math.cos(elevation) * Math.cos(azimuth);
-        position = new Vector3(x, y, z);
+    private void addLineStrip(double[] xyz, int first, int count, int rgb) {
+        ensureScreenCapacity(count);
+        camera.projectWithDepth(xyz, first, screenXYZ, count);
+        float[] p = screenXYZ;
+        for (int i = 0; i < count - 1; i++) {
+            int a = 3 * i, b = a + 3;
+            rasterizer.addLine(p[a], p[a + 1], p[a + 2], p[b], p[b + 1], p[b + 2], rgb);
+        }
     }
 
-    // Zoom in/out by modifying the distance.
-    public void zoom(int wheelRotation) {
-        distance *= (1 + wheelRotation * 0.1);
-        double x = target.x + distance * Math.cos(elevation) * Math.sin(azimuth);
-        double y = target.y + distance * Math.sin(elevation);
-        double z = target.z + distance * Math.cos(elevation) * Math.cos(azimuth);
-        position = new Vector3(x, y, z);
+    // Two-sided Lambert shading of a color with an ambient term.
+    private static int shade(double[] normal, int o, int rgb) {
+        double intensity = 0.25 + 0.75 * Math.abs(Vec3.dot(normal, o, LIGHT, 0));
+        int r = (int) (((rgb >> 16) & 0xFF) * intensity);
+        int g = (int) (((rgb >> 8) & 0xFF) * intensity);
+        int b = (int) ((rgb & 0xFF) * intensity);
+        return (r << 16) | (g << 8) | b;
     }
 
-    // Computes the view matrix using a lookAt transformation.
-    public Matrix4 getViewMatrix() {
-        Vector3 zaxis = position.subtract(target).normalize();
-        Vector3 xaxis = up.cross(zaxis).normalize();
-        Vector3 yaxis = zaxis.cross(xaxis);
-        Matrix4 view = Matrix4.identity();
-        view.m[0] = xaxis.x; view.m[4] = xaxis.y; view.m[8]  = xaxis.z;
-        view.m[1] = yaxis.x; view.m[5] = yaxis.y; view.m[9]  = yaxis.z;
-        view.m[2] = zaxis.x; view.m[6] = zaxis.y; view.m[10] = zaxis.z;
-        view.m[12] = -xaxis.dot(position);
-        view.m[13] = -yaxis.dot(position);
-        view.m[14] = -zaxis.dot(position);
-        return view;
+    // Draws the grid lines of a grid mesh, or the triangle edges of any other mesh.
+    private void drawWireframe(Graphics2D g2, Mesh mesh) {
+        int count = mesh.vertexCount;
+        ensureScreenCapacity(Math.max(count, Math.max(mesh.gridRows, mesh.gridCols)));
+        camera.project(mesh.positions, screenXY, count);
+        int[] xy = screenXY;
+        if (mesh.gridRows > 0) {
+            int rows = mesh.gridRows, cols = mesh.gridCols;
+            for (int a = 0; a < rows; a++) {
+                for (int b = 0; b < cols; b++) {
+                    screenX[b] = xy[2 * (a * cols + b)];
+                    screenY[b] = xy[2 * (a * cols + b) + 1];
+                }
+                g2.drawPolyline(screenX, screenY, cols);
+            }
+            for (int b = 0; b < cols; b++) {
+                for (int a = 0; a < rows; a++) {
+                    screenX[a] = xy[2 * (a * cols + b)];
+                    screenY[a] = xy[2 * (a * cols + b) + 1];
+                }
+                g2.drawPolyline(screenX, screenY, rows);
+            }
+        } else {
+            int[] idx = mesh.indices;
+            for (int t = 0; t < mesh.indexCount; t += 3) {
+                int i0 = idx[t], i1 = idx[t + 1], i2 = idx[t + 2];
+                g2.drawLine(xy[2 * i0], xy[2 * i0 + 1], xy[2 * i1], xy[2 * i1 + 1]);
+                g2.drawLine(xy[2 * i1], xy[2 * i1 + 1], xy[2 * i2], xy[2 * i2 + 1]);
+                g2.drawLine(xy[2 * i2], xy[2 * i2 + 1], xy[2 * i0], xy[2 * i0 + 1]);
+            }
+        }
     }
 
-    // Computes the perspective projection matrix.
-    public Matrix4 getProjectionMatrix() {
-        Matrix4 proj = new Matrix4();
-        double f = 1.0 / Math.tan(Math.toRadians(fov) / 2);
-        proj.m[0] = f / aspect;
-        proj.m[5] = f;
-        proj.m[10] = (far + near) / (near - far);
-        proj.m[11] = -1;
-        proj.m[14] = (2 * far * near) / (near - far);
-        proj.m[15] = 0;
-        return proj;
+    private void ensureScreenCapacity(int count) {
+        if (screenX.length < count) {
+            screenX = new int[count];
+            screenY = new int[count];
+            screenXY = new int[2 * count];
+            screenXYZ = new float[3 * count];
+            shades = new int[count];
+        }
     }
 
-    // Projects a 3D point to 2D screen coordinates.
-    public Point project(Vector3 point, int width, int height) {
-        Matrix4 view = getViewMatrix();
-        Matrix4 proj = getProjectionMatrix();
-        Matrix4 vp = proj.multiply(view);
-        Vector3 p = vp.transform(point);
-        // Convert normalized device coordinates (-1 to 1) to screen coordinates.
-        int sx = (int) ((p.x + 1) / 2 * width);
-        int sy = (int) ((1 - (p.y + 1) / 2) * height);
-        return new Point(sx, sy);
+    // Projects all points in one batch and draws them as a connected line strip.
+    private void drawPolyline(Graphics2D g2, double[] xyz, int first, int count) {
+        ensureScreenCapacity(count);
+        camera.project(xyz, first, screenXY, count);
+        for (int i = 0; i < count; i++) {
+            screenX[i] = screenXY[2 * i];
+            screenY[i] = screenXY[2 * i + 1];
+        }
+        g2.drawPolyline(screenX, screenY, count);
     }
 }
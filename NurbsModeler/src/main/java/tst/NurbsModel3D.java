@@ -0,0 +1,89 @@
+package tst;
+
+import data.SpanLocator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 3D NURBS model: holds a list of control points, the degree, and knot vector,
+// and includes evaluation of the curve via a de Boor–like algorithm.
+class NurbsModel3D {
+    public List<ControlPoint3D> controlPoints;
+    public int degree;
+    public double[] knots;
+
+    public NurbsModel3D() {
+        controlPoints = new ArrayList<>();
+    }
+
+    // Generates a uniform, clamped knot vector.
+    public double[] generateUniformKnotVector(int numPoints, int degree) {
+        int n = numPoints - 1;
+        int m = n + degree + 1;
+        double[] kv = new double[m+1];
+        for (int i = 0; i <= m; i++) {
+            if (i <= degree) {
+                kv[i] = 0.0;
+            } else if (i >= m - degree) {
+                kv[i] = 1.0;
+            } else {
+                kv[i] = (double) (i - degree) / (m - 2 * degree);
+            }
+        }
+        return kv;
+    }
+
+    // Scratch buffer for de Boor: p+1 homogeneous points (w*x, w*y, w*z, w)
+    private double[] deBoor = new double[0];
+    private final SpanLocator spanLocator = new SpanLocator();
+
+    // Evaluate the NURBS curve at parameter u.
+    public ControlPoint3D evaluateCurvePoint(double u) {
+        double[] out = new double[3];
+        double w = evaluateCurvePoint(u, out, 0);
+        return new ControlPoint3D(out[0], out[1], out[2], w);
+    }
+
+    // Evaluate the NURBS curve at parameter u, write x, y, z into out[o..o+2] and return the weight.
+    // This implementation uses de Boor's algorithm in homogeneous coordinates on the
+    // p+1 control points of the knot span only, in a reused scratch buffer.
+    // The span is found by the locator, which is O(1) per call when u increases between calls.
+    public double evaluateCurvePoint(double u, double[] out, int o) {
+        if (spanLocator.getKnots() != knots || spanLocator.getDegree() != degree) {
+            spanLocator.reset(knots, degree);
+        }
+        return evaluateCurvePoint(u, spanLocator.find(u), out, o);
+    }
+
+    // Same as evaluateCurvePoint(u, out, o) for a caller that already knows the span k of u.
+    public double evaluateCurvePoint(double u, int k, double[] out, int o) {
+        int p = degree;
+        if (deBoor.length < (p + 1) * 4) {
+            deBoor = new double[(p + 1) * 4];
+        }
+        double[] d = deBoor;
+        // d[j] holds control point k-p+j in homogeneous coordinates.
+        for (int j = 0; j <= p; j++) {
+            ControlPoint3D cp = controlPoints.get(k - p + j);
+            d[4 * j] = cp.x * cp.weight;
+            d[4 * j + 1] = cp.y * cp.weight;
+            d[4 * j + 2] = cp.z * cp.weight;
+            d[4 * j + 3] = cp.weight;
+        }
+        // de Boor recursion
+        for (int r = 1; r <= p; r++) {
+            for (int j = p; j >= r; j--) {
+                int i = k - p + j;
+                double alpha = (u - knots[i]) / (knots[i + p - r + 1] - knots[i]);
+                for (int c = 0; c < 4; c++) {
+                    d[4 * j + c] = (1 - alpha) * d[4 * (j - 1) + c] + alpha * d[4 * j + c];
+                }
+            }
+        }
+        double w = d[4 * p + 3];
+        out[o] = d[4 * p] / w;
+        out[o + 1] = d[4 * p + 1] / w;
+        out[o + 2] = d[4 * p + 2] / w;
+        return w;
+    }
+}
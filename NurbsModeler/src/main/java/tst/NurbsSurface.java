@@ -0,0 +1,149 @@
+package tst;
+
+import data.NURBSEvaluator;
+import data.SpanLocator;
+
+import java.util.Arrays;
+
+// Tensor-product NURBS surface with a weighted control grid of countU x countV points.
+// Control points are stored packed and row-major: point (i, j) starts at 4 * (i * countV + j)
+// and holds x, y, z, weight.
+class NurbsSurface {
+    public int degreeU, degreeV;
+    public double[] knotsU, knotsV;
+    public int countU, countV;
+    public double[] points;
+
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final SpanLocator spanLocator = new SpanLocator();
+    // Per-sample span index and p+1 basis values along u and v, reused between tessellations.
+    private int[] spansU = new int[0], spansV = new int[0];
+    private double[] basisU = new double[0], basisV = new double[0];
+    // One row of the control grid contracted along u, in homogeneous coordinates.
+    private double[] row = new double[0];
+
+    public NurbsSurface(int countU, int countV, int degreeU, int degreeV) {
+        this.countU = countU;
+        this.countV = countV;
+        this.degreeU = degreeU;
+        this.degreeV = degreeV;
+        this.points = new double[countU * countV * 4];
+        this.knotsU = uniformKnotVector(countU, degreeU);
+        this.knotsV = uniformKnotVector(countV, degreeV);
+    }
+
+    public void setControlPoint(int i, int j, double x, double y, double z, double weight) {
+        int o = 4 * (i * countV + j);
+        points[o] = x;
+        points[o + 1] = y;
+        points[o + 2] = z;
+        points[o + 3] = weight;
+    }
+
+    // Generates a uniform, clamped knot vector.
+    static double[] uniformKnotVector(int numPoints, int degree) {
+        int n = numPoints - 1;
+        int m = n + degree + 1;
+        double[] kv = new double[m + 1];
+        for (int i = 0; i <= m; i++) {
+            if (i <= degree) {
+                kv[i] = 0.0;
+            } else if (i >= m - degree) {
+                kv[i] = 1.0;
+            } else {
+                kv[i] = (double) (i - degree) / (m - 2 * degree);
+            }
+        }
+        return kv;
+    }
+
+    // Tessellates the surface into a (samplesU+1) x (samplesV+1) vertex grid with two triangles per cell.
+    // The basis functions of every u row and every v column are computed once and shared by the
+    // whole grid; each row first contracts the control grid along u, so a vertex only costs
+    // (q+1) homogeneous multiply-adds.
+    public void tessellate(int samplesU, int samplesV, Mesh mesh) {
+        int p = degreeU, q = degreeV;
+        int rows = samplesU + 1, cols = samplesV + 1;
+        computeBasis(knotsU, p, countU, rows, true);
+        computeBasis(knotsV, q, countV, cols, false);
+        if (row.length < countV * 4) {
+            row = new double[countV * 4];
+        }
+        mesh.ensureCapacity(rows * cols, samplesU * samplesV * 6);
+        mesh.vertexCount = rows * cols;
+        mesh.gridRows = rows;
+        mesh.gridCols = cols;
+        double[] out = mesh.positions;
+
+        for (int a = 0; a < rows; a++) {
+            // row[j] = sum_r N_{spanU-p+r}(u_a) * Pw(spanU-p+r, j)
+            int firstU = spansU[a] - p;
+            Arrays.fill(row, 0, countV * 4, 0.0);
+            for (int r = 0; r <= p; r++) {
+                double N = basisU[a * (p + 1) + r];
+                if (N == 0) continue;
+                int base = (firstU + r) * countV * 4;
+                for (int j = 0; j < countV; j++) {
+                    int o = base + 4 * j;
+                    double wN = points[o + 3] * N;
+                    row[4 * j] += points[o] * wN;
+                    row[4 * j + 1] += points[o + 1] * wN;
+                    row[4 * j + 2] += points[o + 2] * wN;
+                    row[4 * j + 3] += wN;
+                }
+            }
+            for (int b = 0; b < cols; b++) {
+                int firstV = spansV[b] - q;
+                double x = 0, y = 0, z = 0, w = 0;
+                for (int s = 0; s <= q; s++) {
+                    double N = basisV[b * (q + 1) + s];
+                    int o = 4 * (firstV + s);
+                    x += row[o] * N;
+                    y += row[o + 1] * N;
+                    z += row[o + 2] * N;
+                    w += row[o + 3] * N;
+                }
+                int v = 3 * (a * cols + b);
+                out[v] = x / w;
+                out[v + 1] = y / w;
+                out[v + 2] = z / w;
+            }
+        }
+
+        int[] idx = mesh.indices;
+        int k = 0;
+        for (int a = 0; a < samplesU; a++) {
+            for (int b = 0; b < samplesV; b++) {
+                int v00 = a * cols + b, v01 = v00 + 1, v10 = v00 + cols, v11 = v10 + 1;
+                idx[k++] = v00; idx[k++] = v10; idx[k++] = v11;
+                idx[k++] = v00; idx[k++] = v11; idx[k++] = v01;
+            }
+        }
+        mesh.indexCount = k;
+    }
+
+    // Fills the span and basis tables for count equally spaced parameters over the domain.
+    private void computeBasis(double[] U, int p, int numPoints, int count, boolean alongU) {
+        int[] spans = alongU ? spansU : spansV;
+        double[] basis = alongU ? basisU : basisV;
+        if (spans.length < count) spans = new int[count];
+        if (basis.length < count * (p + 1)) basis = new double[count * (p + 1)];
+        int n = numPoints - 1;
+        double uStart = U[p], uEnd = U[n + 1];
+        spanLocator.reset(U, p);
+        for (int a = 0; a < count; a++) {
+            double u = a == count - 1 ? uEnd : uStart + (uEnd - uStart) * a / (count - 1);
+            // The samples increase, so the locator only steps forward; the domain end belongs to the last span.
+            int k = spanLocator.find(u);
+            spans[a] = k;
+            System.arraycopy(evaluator.basisFunctions(k, u, p, U), 0, basis, a * (p + 1), p + 1);
+        }
+        if (alongU) {
+            spansU = spans;
+            basisU = basis;
+        } else {
+            spansV = spans;
+            basisV = basis;
+        }
+    }
+}
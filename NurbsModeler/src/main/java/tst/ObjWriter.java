@@ -0,0 +1,82 @@
+package tst;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Writes streamed mesh chunks as a Wavefront OBJ file: "v" and "vn" lines for every new vertex and
+// "f v//vn" triangles with 1-based global indices. Repeated ring vertices at the start of a chunk
+// are not written again, so consecutive chunks share their seam and the mesh stays closed.
+// Numbers are formatted by hand into one reused buffer instead of String.format per value.
+class ObjWriter implements TubeMesher.Sink {
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(64);
+    private int vertices, triangles;
+
+    ObjWriter(Writer out) {
+        this.out = out;
+    }
+
+    public int getVertexCount() {
+        return vertices;
+    }
+
+    public int getTriangleCount() {
+        return triangles;
+    }
+
+    @Override
+    public void accept(Mesh chunk, int firstVertex, int sharedVertices) {
+        try {
+            for (int v = sharedVertices; v < chunk.vertexCount; v++) {
+                writeVector("v ", chunk.positions, 3 * v);
+            }
+            for (int v = sharedVertices; v < chunk.vertexCount; v++) {
+                writeVector("vn ", chunk.normals, 3 * v);
+            }
+            int[] idx = chunk.indices;
+            for (int t = 0; t < chunk.indexCount; t += 3) {
+                line.setLength(0);
+                line.append('f');
+                for (int c = 0; c < 3; c++) {
+                    int index = firstVertex + idx[t + c] + 1;
+                    line.append(' ').append(index).append("//").append(index);
+                }
+                line.append('\n');
+                out.append(line);
+            }
+            vertices = firstVertex + chunk.vertexCount;
+            triangles += chunk.indexCount / 3;
+        } catch (IOException e) {
+            // The sink interface cannot throw checked exceptions.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeVector(String tag, double[] values, int o) throws IOException {
+        line.setLength(0);
+        line.append(tag);
+        appendFixed(values[o]);
+        line.append(' ');
+        appendFixed(values[o + 1]);
+        line.append(' ');
+        appendFixed(values[o + 2]);
+        line.append('\n');
+        out.append(line);
+    }
+
+    // Six decimals are well below the precision of display and export use.
+    private void appendFixed(double value) {
+        long scaled = Math.round(value * 1e6);
+        if (scaled < 0) {
+            line.append('-');
+            scaled = -scaled;
+        }
+        line.append(scaled / 1_000_000).append('.');
+        long fraction = scaled % 1_000_000;
+        for (long digit = 100_000; digit > fraction && digit > 1; digit /= 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+}
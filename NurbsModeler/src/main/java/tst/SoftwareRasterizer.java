@@ -0,0 +1,220 @@
+package tst;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// CPU rasterizer writing straight into the int[] raster of a BufferedImage with a float z-buffer.
+// Primitives are collected in screen space (x, y in pixels, z in normalized device depth, smaller is
+// closer), binned into square tiles and then rasterized tile by tile in parallel. Every tile only
+// touches its own pixels, so no synchronization is needed while rendering.
+// All buffers are kept between frames and only grow.
+class SoftwareRasterizer {
+    static final int TILE_SIZE = 64;
+    // Lines are pulled slightly towards the viewer so they win against the surfaces they lie on.
+    private static final float LINE_DEPTH_BIAS = 1e-4f;
+
+    private BufferedImage image;
+    private int[] color = new int[0];
+    private float[] depth = new float[0];
+    private int width, height, tilesX, tilesY;
+    private int background;
+
+    // Lines: x0, y0, z0, x1, y1, z1 and one color each.
+    private float[] lines = new float[0];
+    private int[] lineColors = new int[0];
+    private int lineCount;
+    // Triangles: x, y, z for three vertices and one color per vertex.
+    private float[] triangles = new float[0];
+    private int[] triangleColors = new int[0];
+    private int triangleCount;
+
+    // Per tile primitive lists; line indices are stored as is, triangle indices as ~index.
+    private int[][] bins = new int[0][];
+    private int[] binSizes = new int[0];
+
+    // Starts a new frame of the given size, cleared to the background color.
+    public void begin(int width, int height, int background) {
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            color = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            depth = new float[width * height];
+            tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+            tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+            bins = new int[tilesX * tilesY][16];
+            binSizes = new int[tilesX * tilesY];
+        }
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        lineCount = 0;
+        triangleCount = 0;
+    }
+
+    public void addLine(float x0, float y0, float z0, float x1, float y1, float z1, int rgb) {
+        if (!Float.isFinite(x0 + y0 + z0 + x1 + y1 + z1)) return;
+        if (lines.length < (lineCount + 1) * 6) {
+            lines = Arrays.copyOf(lines, Math.max(64, lines.length * 2));
+            lineColors = Arrays.copyOf(lineColors, lines.length / 6);
+        }
+        int o = lineCount * 6;
+        lines[o] = x0; lines[o + 1] = y0; lines[o + 2] = z0 - LINE_DEPTH_BIAS;
+        lines[o + 3] = x1; lines[o + 4] = y1; lines[o + 5] = z1 - LINE_DEPTH_BIAS;
+        lineColors[lineCount++] = rgb;
+    }
+
+    // Adds a triangle with one color per vertex; equal colors give flat shading.
+    public void addTriangle(float x0, float y0, float z0, float x1, float y1, float z1,
+                            float x2, float y2, float z2, int rgb0, int rgb1, int rgb2) {
+        if (!Float.isFinite(x0 + y0 + z0 + x1 + y1 + z1 + x2 + y2 + z2)) return;
+        if (triangles.length < (triangleCount + 1) * 9) {
+            triangles = Arrays.copyOf(triangles, Math.max(144, triangles.length * 2));
+            triangleColors = Arrays.copyOf(triangleColors, triangles.length / 3);
+        }
+        int o = triangleCount * 9;
+        triangles[o] = x0; triangles[o + 1] = y0; triangles[o + 2] = z0;
+        triangles[o + 3] = x1; triangles[o + 4] = y1; triangles[o + 5] = z1;
+        triangles[o + 6] = x2; triangles[o + 7] = y2; triangles[o + 8] = z2;
+        int c = triangleCount * 3;
+        triangleColors[c] = rgb0; triangleColors[c + 1] = rgb1; triangleColors[c + 2] = rgb2;
+        triangleCount++;
+    }
+
+    // Bins all primitives and rasterizes the tiles in parallel.
+    public BufferedImage render() {
+        Arrays.fill(binSizes, 0, tilesX * tilesY, 0);
+        for (int i = 0; i < lineCount; i++) {
+            int o = i * 6;
+            bin(i, Math.min(lines[o], lines[o + 3]), Math.min(lines[o + 1], lines[o + 4]),
+                    Math.max(lines[o], lines[o + 3]), Math.max(lines[o + 1], lines[o + 4]));
+        }
+        for (int i = 0; i < triangleCount; i++) {
+            int o = i * 9;
+            float[] t = triangles;
+            bin(~i, Math.min(t[o], Math.min(t[o + 3], t[o + 6])), Math.min(t[o + 1], Math.min(t[o + 4], t[o + 7])),
+                    Math.max(t[o], Math.max(t[o + 3], t[o + 6])), Math.max(t[o + 1], Math.max(t[o + 4], t[o + 7])));
+        }
+        IntStream.range(0, tilesX * tilesY).parallel().forEach(this::renderTile);
+        return image;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    private void bin(int primitive, float minX, float minY, float maxX, float maxY) {
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+        int tx0 = Math.max(0, (int) minX / TILE_SIZE), ty0 = Math.max(0, (int) minY / TILE_SIZE);
+        int tx1 = Math.min(tilesX - 1, (int) maxX / TILE_SIZE), ty1 = Math.min(tilesY - 1, (int) maxY / TILE_SIZE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                int tile = ty * tilesX + tx;
+                if (binSizes[tile] == bins[tile].length) {
+                    bins[tile] = Arrays.copyOf(bins[tile], bins[tile].length * 2);
+                }
+                bins[tile][binSizes[tile]++] = primitive;
+            }
+        }
+    }
+
+    private void renderTile(int tile) {
+        int x0 = (tile % tilesX) * TILE_SIZE, y0 = (tile / tilesX) * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, width), y1 = Math.min(y0 + TILE_SIZE, height);
+        for (int y = y0; y < y1; y++) {
+            Arrays.fill(color, y * width + x0, y * width + x1, background);
+            Arrays.fill(depth, y * width + x0, y * width + x1, Float.POSITIVE_INFINITY);
+        }
+        int[] bin = bins[tile];
+        // Triangles first, then lines, so lines are depth-tested against the shaded surfaces.
+        for (int i = 0, n = binSizes[tile]; i < n; i++) {
+            if (bin[i] < 0) rasterizeTriangle(~bin[i], x0, y0, x1, y1);
+        }
+        for (int i = 0, n = binSizes[tile]; i < n; i++) {
+            if (bin[i] >= 0) rasterizeLine(bin[i], x0, y0, x1, y1);
+        }
+    }
+
+    // Steps along the whole line with a fixed step count so that neighbouring tiles agree on the
+    // covered pixels, but only visits the steps whose parameter lies inside this tile.
+    private void rasterizeLine(int i, int tx0, int ty0, int tx1, int ty1) {
+        int o = i * 6;
+        float ax = lines[o], ay = lines[o + 1], az = lines[o + 2];
+        float dx = lines[o + 3] - ax, dy = lines[o + 4] - ay, dz = lines[o + 5] - az;
+        // Liang-Barsky clip of the parameter range against the tile rectangle.
+        float t0 = 0, t1 = 1;
+        if (dx == 0) {
+            if (ax < tx0 || ax > tx1) return;
+        } else {
+            float ta = (tx0 - ax) / dx, tb = (tx1 - ax) / dx;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (ay < ty0 || ay > ty1) return;
+        } else {
+            float ta = (ty0 - ay) / dy, tb = (ty1 - ay) / dy;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (t0 > t1) return;
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy))));
+        int rgb = lineColors[i];
+        for (int s = (int) Math.ceil(t0 * steps), last = (int) Math.floor(t1 * steps); s <= last; s++) {
+            float t = (float) s / steps;
+            int x = (int) (ax + dx * t), y = (int) (ay + dy * t);
+            if (x < tx0 || x >= tx1 || y < ty0 || y >= ty1) continue;
+            int pixel = y * width + x;
+            float z = az + dz * t;
+            if (z < depth[pixel]) {
+                depth[pixel] = z;
+                color[pixel] = rgb;
+            }
+        }
+    }
+
+    // Edge-function rasterization over the triangle's bounding box clipped to the tile, sampling
+    // pixel centers and interpolating depth and color with barycentric weights.
+    private void rasterizeTriangle(int i, int tx0, int ty0, int tx1, int ty1) {
+        int o = i * 9;
+        float[] t = triangles;
+        float ax = t[o], ay = t[o + 1], az = t[o + 2];
+        float bx = t[o + 3], by = t[o + 4], bz = t[o + 5];
+        float cx = t[o + 6], cy = t[o + 7], cz = t[o + 8];
+        float area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        if (area == 0) return;
+        float invArea = 1 / area;
+        int minX = Math.max(tx0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+        int maxX = Math.min(tx1 - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+        int minY = Math.max(ty0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+        int maxY = Math.min(ty1 - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+        int c0 = triangleColors[i * 3], c1 = triangleColors[i * 3 + 1], c2 = triangleColors[i * 3 + 2];
+        boolean flat = c0 == c1 && c1 == c2;
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + 0.5f;
+            for (int x = minX; x <= maxX; x++) {
+                float px = x + 0.5f;
+                // Barycentric weights, normalized so both windings work.
+                float w0 = ((bx - px) * (cy - py) - (by - py) * (cx - px)) * invArea;
+                float w1 = ((cx - px) * (ay - py) - (cy - py) * (ax - px)) * invArea;
+                float w2 = 1 - w0 - w1;
+                if (w0 < 0 || w1 < 0 || w2 < 0) continue;
+                int pixel = y * width + x;
+                float z = w0 * az + w1 * bz + w2 * cz;
+                if (z < depth[pixel]) {
+                    depth[pixel] = z;
+                    color[pixel] = flat ? c0 : blend(c0, c1, c2, w0, w1, w2);
+                }
+            }
+        }
+    }
+
+    private static int blend(int c0, int c1, int c2, float w0, float w1, float w2) {
+        int r = (int) (((c0 >> 16) & 0xFF) * w0 + ((c1 >> 16) & 0xFF) * w1 + ((c2 >> 16) & 0xFF) * w2);
+        int g = (int) (((c0 >> 8) & 0xFF) * w0 + ((c1 >> 8) & 0xFF) * w1 + ((c2 >> 8) & 0xFF) * w2);
+        int b = (int) ((c0 & 0xFF) * w0 + (c1 & 0xFF) * w1 + (c2 & 0xFF) * w2);
+        return (Math.min(r, 255) << 16) | (Math.min(g, 255) << 8) | Math.min(b, 255);
+    }
+}
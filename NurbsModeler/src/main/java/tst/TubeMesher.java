@@ -0,0 +1,247 @@
+package tst;
+
+import data.NURBSEvaluator;
+
+import java.util.List;
+
+// Sweeps a circular profile along a NurbsModel3D and streams the resulting tube as triangle chunks.
+// Every non-empty knot span is sampled at samplesPerSpan parameters. Point and analytic tangent
+// C'(u) come from one set of basis derivatives per sample. The profile is oriented by
+// rotation-minimizing frames from the double reflection method (Wang, Jüttler, Zheng, Liu,
+// "Computation of Rotation Minimizing Frames", ACM TOG 2008), so the tube does not twist where a
+// Frenet frame would flip at inflections or straight pieces.
+//
+// Rings of `sides` vertices are written into one reusable Mesh and handed to the sink every
+// ringsPerChunk rings, so memory stays constant however long the curve is. Each chunk after the
+// first starts with a copy of the previous chunk's last ring, which makes it self-contained for
+// renderers using its local indices; writers that need shared vertices skip those and use
+// firstVertex + local index as global index. The tube is open at both ends.
+class TubeMesher {
+    // Receives the chunks of a tube. The mesh and its arrays are reused for the next chunk.
+    interface Sink {
+        // firstVertex: global index of local vertex 0; sharedVertices: leading vertices that repeat
+        // the last ring of the previous chunk (0 for the first chunk).
+        void accept(Mesh chunk, int firstVertex, int sharedVertices);
+    }
+
+    private double radius = 0.05;
+    private int sides = 16;
+    private int samplesPerSpan = 32;
+    private int ringsPerChunk = 128;
+
+    private final NURBSEvaluator evaluator = new NURBSEvaluator();
+    private final Mesh chunk = new Mesh();
+    private double[] cosines = new double[0], sines = new double[0];
+
+    // Current and previous sample: point, unit tangent, frame normal r; binormal s = t x r.
+    private final double[] point = new double[3], tangent = new double[3];
+    private final double[] normal = new double[3], binormal = new double[3];
+    private final double[] lastPoint = new double[3], lastTangent = new double[3], lastNormal = new double[3];
+    private final double[] v1 = new double[3], v2 = new double[3];
+    private final double[] reflectedNormal = new double[3], reflectedTangent = new double[3];
+
+    private Sink sink;
+    private int ringsInChunk, firstVertex, sharedVertices, totalRings;
+
+    public void setRadius(double radius) {
+        this.radius = radius;
+    }
+
+    public void setSides(int sides) {
+        if (sides < 3) throw new IllegalArgumentException("A tube needs at least 3 sides.");
+        this.sides = sides;
+    }
+
+    public void setSamplesPerSpan(int samplesPerSpan) {
+        if (samplesPerSpan < 1) throw new IllegalArgumentException("At least one sample per span is needed.");
+        this.samplesPerSpan = samplesPerSpan;
+    }
+
+    public void setRingsPerChunk(int ringsPerChunk) {
+        if (ringsPerChunk < 2) throw new IllegalArgumentException("A chunk needs at least 2 rings.");
+        this.ringsPerChunk = ringsPerChunk;
+    }
+
+    // Meshes the tube and returns its number of vertices (shared ring copies not counted).
+    public int mesh(NurbsModel3D model, Sink sink) {
+        int p = model.degree;
+        double[] U = model.knots;
+        int n = model.controlPoints.size() - 1;
+        if (n < p || U == null || U.length != n + p + 2) {
+            return 0;
+        }
+        prepareProfile();
+        this.sink = sink;
+        ringsInChunk = firstVertex = sharedVertices = totalRings = 0;
+        chunk.vertexCount = chunk.indexCount = 0;
+        chunk.gridRows = chunk.gridCols = 0;
+        chunk.ensureCapacity(ringsPerChunk * sides, 6 * (ringsPerChunk - 1) * sides);
+        if (chunk.normals.length < chunk.positions.length) {
+            chunk.normals = new double[chunk.positions.length];
+        }
+
+        int lastSpan = -1;
+        for (int k = p; k <= n; k++) {
+            double u0 = U[k], u1 = U[k + 1];
+            if (u0 == u1) continue;
+            for (int i = 0; i < samplesPerSpan; i++) {
+                addRing(model, k, u0 + (u1 - u0) * i / samplesPerSpan);
+            }
+            lastSpan = k;
+        }
+        if (lastSpan >= 0) {
+            addRing(model, lastSpan, U[lastSpan + 1]);
+        }
+        if (ringsInChunk > 1) {
+            flush();
+        }
+        this.sink = null;
+        return totalRings * sides;
+    }
+
+    private void prepareProfile() {
+        if (cosines.length != sides) {
+            cosines = new double[sides];
+            sines = new double[sides];
+            for (int i = 0; i < sides; i++) {
+                double angle = 2 * Math.PI * i / sides;
+                cosines[i] = Math.cos(angle);
+                sines[i] = Math.sin(angle);
+            }
+        }
+    }
+
+    private void addRing(NurbsModel3D model, int k, double u) {
+        evaluate(model, k, u);
+        if (totalRings == 0) {
+            initialFrame();
+        } else {
+            propagateFrame();
+        }
+        Vec3.cross(tangent, 0, normal, 0, binormal, 0);
+
+        if (ringsInChunk == ringsPerChunk) {
+            flush();
+            // The new chunk starts with a copy of the last ring, so its triangles only use local vertices.
+            int from = 3 * (ringsPerChunk - 1) * sides;
+            System.arraycopy(chunk.positions, from, chunk.positions, 0, 3 * sides);
+            System.arraycopy(chunk.normals, from, chunk.normals, 0, 3 * sides);
+            firstVertex += (ringsPerChunk - 1) * sides;
+            sharedVertices = sides;
+            ringsInChunk = 1;
+            chunk.indexCount = 0;
+        }
+        writeRing(ringsInChunk);
+        if (ringsInChunk > 0) {
+            connect(ringsInChunk - 1, ringsInChunk);
+        }
+        ringsInChunk++;
+        totalRings++;
+        System.arraycopy(point, 0, lastPoint, 0, 3);
+        System.arraycopy(tangent, 0, lastTangent, 0, 3);
+        System.arraycopy(normal, 0, lastNormal, 0, 3);
+    }
+
+    private void flush() {
+        chunk.vertexCount = ringsInChunk * sides;
+        sink.accept(chunk, firstVertex, sharedVertices);
+    }
+
+    // Point and unit tangent at u in span k: C = A / W and C' = (A' - W' C) / W.
+    private void evaluate(NurbsModel3D model, int k, double u) {
+        int p = model.degree;
+        double[] D = evaluator.basisDerivatives(k, u, p, 1, model.knots);
+        List<ControlPoint3D> cps = model.controlPoints;
+        double ax = 0, ay = 0, az = 0, w = 0, dx = 0, dy = 0, dz = 0, dw = 0;
+        for (int j = 0; j <= p; j++) {
+            ControlPoint3D cp = cps.get(k - p + j);
+            double n0 = D[j] * cp.weight, n1 = D[p + 1 + j] * cp.weight;
+            ax += n0 * cp.x;
+            ay += n0 * cp.y;
+            az += n0 * cp.z;
+            w += n0;
+            dx += n1 * cp.x;
+            dy += n1 * cp.y;
+            dz += n1 * cp.z;
+            dw += n1;
+        }
+        double x = ax / w, y = ay / w, z = az / w;
+        Vec3.set(point, 0, x, y, z);
+        Vec3.set(tangent, 0, (dx - dw * x) / w, (dy - dw * y) / w, (dz - dw * z) / w);
+        if (Vec3.length(tangent, 0) == 0) {
+            // The parameterization stalls (e.g. at repeated control points): keep the last direction.
+            if (totalRings > 0) System.arraycopy(lastTangent, 0, tangent, 0, 3);
+            else Vec3.set(tangent, 0, 0, 0, 1);
+        }
+        Vec3.normalize(tangent, 0, tangent, 0);
+    }
+
+    // Any unit vector perpendicular to the first tangent, built from the axis least aligned with it.
+    private void initialFrame() {
+        double tx = Math.abs(tangent[0]), ty = Math.abs(tangent[1]), tz = Math.abs(tangent[2]);
+        if (tx <= ty && tx <= tz) Vec3.set(v1, 0, 1, 0, 0);
+        else if (ty <= tz) Vec3.set(v1, 0, 0, 1, 0);
+        else Vec3.set(v1, 0, 0, 0, 1);
+        Vec3.addScaled(v1, 0, tangent, 0, -Vec3.dot(v1, 0, tangent, 0), normal, 0);
+        Vec3.normalize(normal, 0, normal, 0);
+    }
+
+    // Double reflection: reflect the last frame in the bisecting plane of the two points, then in the
+    // plane that maps the reflected tangent onto the new tangent.
+    private void propagateFrame() {
+        Vec3.subtract(point, 0, lastPoint, 0, v1, 0);
+        double c1 = Vec3.dot(v1, 0, v1, 0);
+        if (c1 == 0) {
+            System.arraycopy(lastNormal, 0, reflectedNormal, 0, 3);
+            System.arraycopy(lastTangent, 0, reflectedTangent, 0, 3);
+        } else {
+            Vec3.addScaled(lastNormal, 0, v1, 0, -2 / c1 * Vec3.dot(v1, 0, lastNormal, 0), reflectedNormal, 0);
+            Vec3.addScaled(lastTangent, 0, v1, 0, -2 / c1 * Vec3.dot(v1, 0, lastTangent, 0), reflectedTangent, 0);
+        }
+        Vec3.subtract(tangent, 0, reflectedTangent, 0, v2, 0);
+        double c2 = Vec3.dot(v2, 0, v2, 0);
+        if (c2 == 0) {
+            System.arraycopy(reflectedNormal, 0, normal, 0, 3);
+        } else {
+            Vec3.addScaled(reflectedNormal, 0, v2, 0, -2 / c2 * Vec3.dot(v2, 0, reflectedNormal, 0), normal, 0);
+        }
+        // Re-orthonormalize against rounding drift over many samples.
+        Vec3.addScaled(normal, 0, tangent, 0, -Vec3.dot(normal, 0, tangent, 0), normal, 0);
+        Vec3.normalize(normal, 0, normal, 0);
+    }
+
+    private void writeRing(int ring) {
+        double[] pos = chunk.positions, nor = chunk.normals;
+        int o = 3 * ring * sides;
+        for (int i = 0; i < sides; i++, o += 3) {
+            double c = cosines[i], s = sines[i];
+            double nx = c * normal[0] + s * binormal[0];
+            double ny = c * normal[1] + s * binormal[1];
+            double nz = c * normal[2] + s * binormal[2];
+            nor[o] = nx;
+            nor[o + 1] = ny;
+            nor[o + 2] = nz;
+            pos[o] = point[0] + radius * nx;
+            pos[o + 1] = point[1] + radius * ny;
+            pos[o + 2] = point[2] + radius * nz;
+        }
+    }
+
+    // Two triangles per side between two rings, wound so their normals point outwards.
+    private void connect(int ringA, int ringB) {
+        int[] idx = chunk.indices;
+        int t = chunk.indexCount;
+        int a0 = ringA * sides, b0 = ringB * sides;
+        for (int i = 0; i < sides; i++) {
+            int j = i + 1 == sides ? 0 : i + 1;
+            int a = a0 + i, b = a0 + j, c = b0 + j, d = b0 + i;
+            idx[t++] = a;
+            idx[t++] = b;
+            idx[t++] = c;
+            idx[t++] = a;
+            idx[t++] = c;
+            idx[t++] = d;
+        }
+        chunk.indexCount = t;
+    }
+}
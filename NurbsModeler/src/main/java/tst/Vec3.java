@@ -0,0 +1,67 @@
+package tst;
+
+// In-place 3D vector operations on packed double arrays.
+// Every operation reads from (array, offset) pairs and writes into an out-parameter,
+// so nothing is allocated. Outputs may alias inputs.
+final class Vec3 {
+    private Vec3() {
+    }
+
+    static void set(double[] out, int o, double x, double y, double z) {
+        out[o] = x;
+        out[o + 1] = y;
+        out[o + 2] = z;
+    }
+
+    static void add(double[] a, int ao, double[] b, int bo, double[] out, int o) {
+        out[o] = a[ao] + b[bo];
+        out[o + 1] = a[ao + 1] + b[bo + 1];
+        out[o + 2] = a[ao + 2] + b[bo + 2];
+    }
+
+    static void subtract(double[] a, int ao, double[] b, int bo, double[] out, int o) {
+        out[o] = a[ao] - b[bo];
+        out[o + 1] = a[ao + 1] - b[bo + 1];
+        out[o + 2] = a[ao + 2] - b[bo + 2];
+    }
+
+    static void scale(double[] a, int ao, double s, double[] out, int o) {
+        out[o] = a[ao] * s;
+        out[o + 1] = a[ao + 1] * s;
+        out[o + 2] = a[ao + 2] * s;
+    }
+
+    // out = a + b * s
+    static void addScaled(double[] a, int ao, double[] b, int bo, double s, double[] out, int o) {
+        out[o] = a[ao] + b[bo] * s;
+        out[o + 1] = a[ao + 1] + b[bo + 1] * s;
+        out[o + 2] = a[ao + 2] + b[bo + 2] * s;
+    }
+
+    static double dot(double[] a, int ao, double[] b, int bo) {
+        return a[ao] * b[bo] + a[ao + 1] * b[bo + 1] + a[ao + 2] * b[bo + 2];
+    }
+
+    static void cross(double[] a, int ao, double[] b, int bo, double[] out, int o) {
+        double x = a[ao + 1] * b[bo + 2] - a[ao + 2] * b[bo + 1];
+        double y = a[ao + 2] * b[bo] - a[ao] * b[bo + 2];
+        double z = a[ao] * b[bo + 1] - a[ao + 1] * b[bo];
+        out[o] = x;
+        out[o + 1] = y;
+        out[o + 2] = z;
+    }
+
+    static double length(double[] a, int ao) {
+        return Math.sqrt(dot(a, ao, a, ao));
+    }
+
+    // Writes the unit vector of a; a zero vector stays zero.
+    static void normalize(double[] a, int ao, double[] out, int o) {
+        double mag = length(a, ao);
+        if (mag == 0) {
+            set(out, o, 0, 0, 0);
+        } else {
+            scale(a, ao, 1 / mag, out, o);
+        }
+    }
+}